@@ -0,0 +1,42 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.BackendApplication;
+import com.example.backend.entity.User;
+import com.example.backend.repository.UserRepository;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+
+// Một Spring context dùng chung trong mỗi JVM fork của JMH: H2 chế độ MySQL, dữ liệu do SyntheticDataGenerator sinh ra.
+// Context sống đến hết fork và được shutdown hook của Spring đóng khi JVM thoát, benchmark không tự đóng
+final class BenchmarkApplication {
+
+    private static ConfigurableApplicationContext context;
+
+    private BenchmarkApplication() {
+    }
+
+    static synchronized ConfigurableApplicationContext context() {
+        if (context == null) {
+            // Dữ liệu kết thúc ở hôm nay để các màn hình theo tháng hiện tại (dashboard) có dữ liệu
+            String endDate = System.getProperty("app.synthetic-data.end-date", LocalDate.now().toString());
+            // Truyền như tham số dòng lệnh: giá trị mặc định của builder bị application.properties ghi đè
+            context = new SpringApplicationBuilder(BackendApplication.class)
+                    .profiles("jmh", "synthetic-data")
+                    .run("--app.synthetic-data.end-date=" + endDate);
+        }
+        return context;
+    }
+
+    static <T> T bean(Class<T> type) {
+        return context().getBean(type);
+    }
+
+    // Người dùng đầu tiên của bộ dữ liệu tổng hợp
+    static User syntheticUser() {
+        String seed = context().getEnvironment().getProperty("app.synthetic-data.seed", "42");
+        return bean(UserRepository.class).findByEmail("synthetic-" + seed + "-0@example.com")
+                .orElseThrow(() -> new IllegalStateException("Chưa sinh dữ liệu tổng hợp"));
+    }
+}
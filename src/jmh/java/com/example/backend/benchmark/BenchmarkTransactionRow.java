@@ -0,0 +1,54 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.enums.TransactionType;
+import jakarta.persistence.Column;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.MappedSuperclass;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+// Các cột của bảng transactions, dùng chung cho hai bảng chỉ khác cách sinh id trong TransactionInsertBenchmark
+@MappedSuperclass
+abstract class BenchmarkTransactionRow {
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "wallet_id", nullable = false)
+    private Long walletId;
+
+    @Column(name = "category_id")
+    private Long categoryId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "transaction_type", nullable = false)
+    private TransactionType type;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal amount;
+
+    @Column(name = "transaction_date", nullable = false)
+    private Instant date;
+
+    private String description;
+
+    @Column(name = "balance_after_transaction")
+    private BigDecimal balanceAfterTransaction;
+
+    protected BenchmarkTransactionRow() {
+    }
+
+    protected BenchmarkTransactionRow(Long userId, Long walletId, Long categoryId, TransactionType type, BigDecimal amount,
+                                      Instant date, String description, BigDecimal balanceAfterTransaction) {
+        this.userId = userId;
+        this.walletId = walletId;
+        this.categoryId = categoryId;
+        this.type = type;
+        this.amount = amount;
+        this.date = date;
+        this.description = description;
+        this.balanceAfterTransaction = balanceAfterTransaction;
+    }
+}
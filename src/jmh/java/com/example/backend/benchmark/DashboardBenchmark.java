@@ -0,0 +1,27 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.dto.response.DashboardDataResponse;
+import com.example.backend.service.DashboardService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Benchmark)
+public class DashboardBenchmark {
+
+    private DashboardService dashboardService;
+    private Long userId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dashboardService = BenchmarkApplication.bean(DashboardService.class);
+        userId = BenchmarkApplication.syntheticUser().getId();
+    }
+
+    @Benchmark
+    public DashboardDataResponse dashboardAllWallets() {
+        return dashboardService.getDashboardData(userId, null);
+    }
+}
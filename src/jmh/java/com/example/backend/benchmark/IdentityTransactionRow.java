@@ -0,0 +1,31 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.enums.TransactionType;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+// Id AUTO_INCREMENT: Hibernate phải đọc id sau từng INSERT nên không gom được JDBC batch
+@Entity
+@Table(name = "benchmark_identity_transactions",
+        indexes = @Index(name = "idx_benchmark_identity_wallet_date_id", columnList = "wallet_id, transaction_date, id"))
+class IdentityTransactionRow extends BenchmarkTransactionRow {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    protected IdentityTransactionRow() {
+    }
+
+    IdentityTransactionRow(Long userId, Long walletId, Long categoryId, TransactionType type, BigDecimal amount,
+                           Instant date, String description, BigDecimal balanceAfterTransaction) {
+        super(userId, walletId, categoryId, type, amount, date, description, balanceAfterTransaction);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.dto.request.ReportRequest;
+import com.example.backend.dto.response.ReportDataResponse;
+import com.example.backend.service.ExcelService;
+import com.example.backend.service.PDFService;
+import com.example.backend.service.ReportService;
+import com.example.backend.service.StreamingPDFService;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+// Tổng hợp dữ liệu báo cáo và render Excel/PDF; phần render dùng dữ liệu dựng sẵn để tách khỏi chi phí truy vấn
+@State(Scope.Benchmark)
+public class ReportBenchmark {
+
+    // Số giao dịch trong khoảng báo cáo: ngày bắt đầu được lùi tới giao dịch thứ N gần nhất của người dùng
+    @Param({"1000", "10000", "100000"})
+    public int rows;
+
+    private ReportService reportService;
+    private ExcelService excelService;
+    private PDFService pdfService;
+    private StreamingPDFService streamingPDFService;
+    private Long userId;
+    private ReportRequest request;
+    private ReportDataResponse reportData;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        reportService = BenchmarkApplication.bean(ReportService.class);
+        excelService = BenchmarkApplication.bean(ExcelService.class);
+        pdfService = BenchmarkApplication.bean(PDFService.class);
+        streamingPDFService = BenchmarkApplication.bean(StreamingPDFService.class);
+        userId = BenchmarkApplication.syntheticUser().getId();
+
+        // Dữ liệu tổng hợp kết thúc cuối ngày hôm nay theo UTC; kéo dài thêm một ngày để múi giờ của máy không cắt mất giao dịch
+        LocalDateTime end = LocalDate.now().plusDays(2).atStartOfDay();
+        request = new ReportRequest();
+        request.setStartDate(startDateForRows());
+        request.setEndDate(end);
+        request.setReportType("PDF");
+        request.setReportFormat("DETAILED");
+
+        reportData = reportService.generateReportData(request, userId);
+        if (reportData.getTotalTransactions() < rows) {
+            throw new IllegalStateException("Báo cáo chỉ có " + reportData.getTotalTransactions() + " giao dịch, cần " + rows);
+        }
+    }
+
+    private LocalDateTime startDateForRows() {
+        EntityManager entityManager = BenchmarkApplication.bean(EntityManager.class);
+        Instant date = entityManager.createQuery(
+                        "SELECT t.date FROM Transaction t WHERE t.user.id = :userId ORDER BY t.date DESC, t.id DESC", Instant.class)
+                .setParameter("userId", userId)
+                .setFirstResult(rows - 1)
+                .setMaxResults(1)
+                .getResultList()
+                .stream()
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Bộ dữ liệu có ít hơn " + rows + " giao dịch"));
+        return LocalDateTime.ofInstant(date, ZoneId.systemDefault());
+    }
+
+    @Benchmark
+    public ReportDataResponse generateReportData() {
+        return reportService.generateReportData(request, userId);
+    }
+
+    @Benchmark
+    public byte[] renderExcel() throws IOException {
+        return excelService.generateExcelReport(reportData);
+    }
+
+    @Benchmark
+    public byte[] renderPdf() throws IOException {
+        return pdfService.generatePDFReport(reportData);
+    }
+
+    // Truy vấn và render trực tiếp ra luồng, không giữ toàn bộ file trong bộ nhớ
+    @Benchmark
+    public void streamPdf() {
+        streamingPDFService.writePDFReport(request, userId, OutputStream.nullOutputStream());
+    }
+}
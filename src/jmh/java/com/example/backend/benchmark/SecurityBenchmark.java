@@ -0,0 +1,84 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.controller.WalletController;
+import com.example.backend.dto.response.ApiResponse;
+import com.example.backend.dto.response.CursorPageResponse;
+import com.example.backend.dto.response.TransactionResponse;
+import com.example.backend.entity.User;
+import com.example.backend.repository.WalletRepository;
+import com.example.backend.security.CustomUserDetails;
+import com.example.backend.security.JwtAuthenticationFilter;
+import com.example.backend.service.WalletService;
+import com.example.backend.util.JwtUtil;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+
+// Chi phí xác thực JWT mỗi request và chi phí kiểm tra quyền ví của WalletPermissionAspect
+@State(Scope.Thread)
+public class SecurityBenchmark {
+
+    private JwtAuthenticationFilter jwtAuthenticationFilter;
+    private WalletController walletController;
+    private WalletService walletService;
+    private String authorizationHeader;
+    private Authentication authentication;
+    private Long walletId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        jwtAuthenticationFilter = BenchmarkApplication.bean(JwtAuthenticationFilter.class);
+        walletController = BenchmarkApplication.bean(WalletController.class);
+        walletService = BenchmarkApplication.bean(WalletService.class);
+
+        User user = BenchmarkApplication.syntheticUser();
+        authorizationHeader = "Bearer " + BenchmarkApplication.bean(JwtUtil.class).generateTokenFromUsername(user.getEmail());
+        CustomUserDetails userDetails = CustomUserDetails.create(user);
+        authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        walletId = BenchmarkApplication.bean(WalletRepository.class).findByUserId(user.getId()).get(0).getId();
+    }
+
+    @Setup(Level.Invocation)
+    public void authenticate() {
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+
+    @TearDown(Level.Invocation)
+    public void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public Authentication jwtFilter() throws ServletException, IOException {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/wallets");
+        request.addHeader("Authorization", authorizationHeader);
+        jwtAuthenticationFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    // Gọi qua proxy của controller nên đi qua aspect kiểm tra quyền
+    @Benchmark
+    public ResponseEntity<ApiResponse<CursorPageResponse<TransactionResponse>>> walletPermissionAspect() {
+        return walletController.getWalletTransactionsByCursor(walletId, null, 1, false);
+    }
+
+    // Cùng truy vấn nhưng gọi thẳng service, làm mốc để tách chi phí của aspect
+    @Benchmark
+    public CursorPageResponse<TransactionResponse> withoutAspect() {
+        return walletService.getTransactionsByWalletIdCursor(walletId, null, 1, false);
+    }
+}
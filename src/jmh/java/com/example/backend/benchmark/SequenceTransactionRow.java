@@ -0,0 +1,34 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.enums.TransactionType;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+// Cùng cấu hình id với Transaction: sequence pooled cấp sẵn 50 id mỗi lần, INSERT được gom theo batch
+@Entity
+@Table(name = "benchmark_sequence_transactions",
+        indexes = @Index(name = "idx_benchmark_sequence_wallet_date_id", columnList = "wallet_id, transaction_date, id"))
+class SequenceTransactionRow extends BenchmarkTransactionRow {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "benchmark_sequence_transactions_seq")
+    @SequenceGenerator(name = "benchmark_sequence_transactions_seq", sequenceName = "benchmark_sequence_transactions_seq",
+            allocationSize = 50)
+    private Long id;
+
+    protected SequenceTransactionRow() {
+    }
+
+    SequenceTransactionRow(Long userId, Long walletId, Long categoryId, TransactionType type, BigDecimal amount,
+                           Instant date, String description, BigDecimal balanceAfterTransaction) {
+        super(userId, walletId, categoryId, type, amount, date, description, balanceAfterTransaction);
+    }
+}
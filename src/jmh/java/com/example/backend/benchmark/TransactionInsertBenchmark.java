@@ -0,0 +1,179 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.entity.Category;
+import com.example.backend.entity.Transaction;
+import com.example.backend.entity.User;
+import com.example.backend.entity.Wallet;
+import com.example.backend.enums.Currency;
+import com.example.backend.enums.TransactionType;
+import com.example.backend.enums.UserStatus;
+import com.example.backend.repository.CategoryRepository;
+import com.example.backend.repository.TransactionRepository;
+import com.example.backend.repository.UserRepository;
+import com.example.backend.repository.WalletRepository;
+import com.example.backend.service.TransactionBulkInsertService;
+import com.example.backend.service.TransactionRollupService;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+// Ghi từng giao dịch trong transaction riêng so với chèn theo lô qua TransactionBulkInsertService,
+// và chèn cùng số dòng vào hai bảng chỉ khác cách sinh id (IDENTITY so với sequence pooled)
+@State(Scope.Benchmark)
+public class TransactionInsertBenchmark {
+
+    private static final String BENCHMARK_EMAIL = "benchmark-insert@example.com";
+
+    @Param({"100000"})
+    public int rows;
+
+    private TransactionRepository transactionRepository;
+    private TransactionRollupService transactionRollupService;
+    private TransactionBulkInsertService transactionBulkInsertService;
+    private TransactionTemplate transactionTemplate;
+    private EntityManager entityManager;
+    private JdbcTemplate jdbcTemplate;
+    private int batchSize;
+    private User user;
+    private Wallet wallet;
+    private Category category;
+    private List<Transaction> transactions;
+    private List<IdentityTransactionRow> identityRows;
+    private List<SequenceTransactionRow> sequenceRows;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        transactionRepository = BenchmarkApplication.bean(TransactionRepository.class);
+        transactionRollupService = BenchmarkApplication.bean(TransactionRollupService.class);
+        transactionBulkInsertService = BenchmarkApplication.bean(TransactionBulkInsertService.class);
+        transactionTemplate = new TransactionTemplate(BenchmarkApplication.bean(PlatformTransactionManager.class));
+        entityManager = BenchmarkApplication.bean(EntityManager.class);
+        jdbcTemplate = BenchmarkApplication.bean(JdbcTemplate.class);
+        batchSize = BenchmarkApplication.context().getEnvironment()
+                .getProperty("spring.jpa.properties.hibernate.jdbc.batch_size", Integer.class, 50);
+
+        // Người dùng riêng để dòng chèn thêm không làm thay đổi dữ liệu mà các benchmark đọc sử dụng
+        UserRepository userRepository = BenchmarkApplication.bean(UserRepository.class);
+        user = userRepository.findByEmail(BENCHMARK_EMAIL).orElseGet(() -> userRepository.save(createUser()));
+        WalletRepository walletRepository = BenchmarkApplication.bean(WalletRepository.class);
+        wallet = walletRepository.findByUserId(user.getId()).stream().findFirst()
+                .orElseGet(() -> walletRepository.save(createWallet(user)));
+        CategoryRepository categoryRepository = BenchmarkApplication.bean(CategoryRepository.class);
+        category = categoryRepository.findByUserId(user.getId()).stream().findFirst()
+                .orElseGet(() -> categoryRepository.save(Category.builder().name("Benchmark").user(user).color("#667eea").build()));
+        deleteInsertedRows();
+    }
+
+    // Mỗi lần gọi cần entity mới vì entity đã lưu không thể persist lại
+    @Setup(Level.Invocation)
+    public void prepareRows() {
+        Instant date = Instant.now().truncatedTo(ChronoUnit.DAYS);
+        transactions = new ArrayList<>(rows);
+        identityRows = new ArrayList<>(rows);
+        sequenceRows = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            BigDecimal amount = new BigDecimal(10_000 + i);
+            Instant at = date.plusSeconds(i);
+            transactions.add(Transaction.builder()
+                    .user(user)
+                    .wallet(wallet)
+                    .category(category)
+                    .type(TransactionType.EXPENSE)
+                    .amount(amount)
+                    .date(at)
+                    .description("Benchmark")
+                    .balanceAfterTransaction(wallet.getBalance())
+                    .build());
+            identityRows.add(new IdentityTransactionRow(user.getId(), wallet.getId(), category.getId(),
+                    TransactionType.EXPENSE, amount, at, "Benchmark", wallet.getBalance()));
+            sequenceRows.add(new SequenceTransactionRow(user.getId(), wallet.getId(), category.getId(),
+                    TransactionType.EXPENSE, amount, at, "Benchmark", wallet.getBalance()));
+        }
+    }
+
+    // Xóa dòng vừa chèn để bảng không lớn dần qua các lần đo
+    @TearDown(Level.Invocation)
+    public void deleteInsertedRows() {
+        jdbcTemplate.update("DELETE FROM transactions WHERE wallet_id = ?", wallet.getId());
+        jdbcTemplate.update("DELETE FROM transaction_rollup WHERE wallet_id = ?", wallet.getId());
+        jdbcTemplate.update("DELETE FROM benchmark_identity_transactions");
+        jdbcTemplate.update("DELETE FROM benchmark_sequence_transactions");
+    }
+
+    @Benchmark
+    public int saveEach() {
+        for (Transaction transaction : transactions) {
+            transactionTemplate.executeWithoutResult(status -> {
+                transactionRepository.save(transaction);
+                transactionRollupService.record(transaction);
+            });
+        }
+        return transactions.size();
+    }
+
+    @Benchmark
+    public int insertAll() {
+        return transactionBulkInsertService.insertAll(transactions);
+    }
+
+    @Benchmark
+    public int insertIdentityIds() {
+        return persistInBatches(identityRows);
+    }
+
+    @Benchmark
+    public int insertPooledSequenceIds() {
+        return persistInBatches(sequenceRows);
+    }
+
+    // Cùng vòng flush/clear theo lô như TransactionBulkInsertService, chỉ khác cách sinh id của entity
+    private int persistInBatches(List<? extends BenchmarkTransactionRow> rowsToInsert) {
+        return transactionTemplate.execute(status -> {
+            for (int i = 0; i < rowsToInsert.size(); i++) {
+                entityManager.persist(rowsToInsert.get(i));
+                if ((i + 1) % batchSize == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+            return rowsToInsert.size();
+        });
+    }
+
+    private static User createUser() {
+        User user = new User();
+        user.setEmail(BENCHMARK_EMAIL);
+        user.setUsername("benchmark-insert");
+        user.setPassword("{noop}benchmark");
+        user.setFirstName("Benchmark");
+        user.setLastName("Insert");
+        user.setStatus(UserStatus.ACTIVE);
+        return user;
+    }
+
+    private static Wallet createWallet(User user) {
+        Wallet wallet = new Wallet();
+        wallet.setName("Benchmark");
+        wallet.setUser(user);
+        wallet.setCurrency(Currency.VND);
+        wallet.setIcon("wallet.json");
+        wallet.setBalance(new BigDecimal("1000000000"));
+        return wallet;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.dto.response.TransactionCursorStatisticResponse;
+import com.example.backend.dto.response.TransactionResponse;
+import com.example.backend.dto.response.TransactionStatisticResponse;
+import com.example.backend.entity.Category;
+import com.example.backend.entity.Wallet;
+import com.example.backend.repository.CategoryRepository;
+import com.example.backend.repository.WalletRepository;
+import com.example.backend.service.TransactionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Danh sách giao dịch: truy vấn listing, phân trang offset so với keyset ở trang sâu, và các tổ hợp bộ lọc thống kê
+@State(Scope.Benchmark)
+public class TransactionListingBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    // Tổ hợp bộ lọc của API thống kê
+    @Param({"none", "wallet", "dateRange", "amountRange", "all"})
+    public String filter;
+
+    // Số trang bỏ qua khi so sánh offset với cursor; trang 5000 tương ứng offset 100.000 dòng
+    @Param({"1", "5000"})
+    public int page;
+
+    private TransactionService transactionService;
+    private Long userId;
+    private Long walletId;
+    private Long categoryId;
+    private LocalDateTime startDate;
+    private LocalDateTime endDate;
+    private BigDecimal minAmount;
+    private BigDecimal maxAmount;
+    private String deepCursor;
+    // Trang thực sự đạt tới: bộ lọc hẹp có thể có ít hơn page trang, offset và cursor cùng đo ở độ sâu này
+    private int depth;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        transactionService = BenchmarkApplication.bean(TransactionService.class);
+        userId = BenchmarkApplication.syntheticUser().getId();
+
+        List<Wallet> wallets = BenchmarkApplication.bean(WalletRepository.class).findByUserId(userId);
+        walletId = wallets.get(0).getId();
+        List<Category> categories = BenchmarkApplication.bean(CategoryRepository.class).findByUserId(userId);
+        categoryId = categories.get(0).getId();
+
+        boolean byWallet = filter.equals("wallet") || filter.equals("all");
+        boolean byDate = filter.equals("dateRange") || filter.equals("all");
+        boolean byAmount = filter.equals("amountRange") || filter.equals("all");
+        if (!byWallet) {
+            walletId = null;
+        }
+        if (byDate) {
+            endDate = LocalDate.now().atStartOfDay();
+            startDate = endDate.minusMonths(6);
+        }
+        if (byAmount) {
+            minAmount = new BigDecimal("100000");
+            maxAmount = new BigDecimal("5000000");
+        }
+
+        // Đi lần lượt qua các trang trong setup để có cursor của trang cần đo; dừng ở trang cuối nếu hết dữ liệu
+        String cursor = null;
+        depth = 0;
+        while (depth < page) {
+            TransactionCursorStatisticResponse response = transactionService.getTransactionsByCursor(
+                    userId, walletId, startDate, endDate, minAmount, maxAmount, cursor, PAGE_SIZE, false);
+            String next = response.getTransactions().getNextCursor();
+            if (next == null) {
+                break;
+            }
+            cursor = next;
+            depth++;
+        }
+        deepCursor = cursor;
+    }
+
+    @Benchmark
+    public List<TransactionResponse> recentListing() {
+        return transactionService.getTransactions(userId, "EXPENSE", categoryId, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public TransactionStatisticResponse offsetPage() {
+        PageRequest pageable = PageRequest.of(depth, PAGE_SIZE, Sort.by(Sort.Direction.DESC, "date", "id"));
+        if (walletId != null) {
+            return transactionService.getTransactionsByWalletIdAndTime(userId, walletId, startDate, endDate, pageable, minAmount, maxAmount);
+        }
+        return transactionService.getTransactionsByTime(userId, startDate, endDate, pageable, minAmount, maxAmount);
+    }
+
+    @Benchmark
+    public TransactionCursorStatisticResponse cursorPage() {
+        return transactionService.getTransactionsByCursor(
+                userId, walletId, startDate, endDate, minAmount, maxAmount, deepCursor, PAGE_SIZE, false);
+    }
+
+    @Benchmark
+    public TransactionCursorStatisticResponse cursorFirstPageWithTotals() {
+        return transactionService.getTransactionsByCursor(
+                userId, walletId, startDate, endDate, minAmount, maxAmount, null, PAGE_SIZE, true);
+    }
+}
@@ -4,11 +4,13 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import com.example.backend.config.AppProperties;
 
 @SpringBootApplication
 @EnableJpaRepositories
 @EnableConfigurationProperties(AppProperties.class)
+@EnableScheduling
 public class BackendApplication {
 
     public static void main(String[] args) {
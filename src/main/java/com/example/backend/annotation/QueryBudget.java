@@ -0,0 +1,14 @@
+package com.example.backend.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Số câu SQL tối đa cho một lần gọi endpoint; ghi đè bằng app.query-budget.limits.<Controller>.<method>
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryBudget {
+
+    int value();
+}
@@ -0,0 +1,99 @@
+package com.example.backend.aspect;
+
+import com.example.backend.annotation.QueryBudget;
+import com.example.backend.exception.QueryBudgetExceededException;
+import com.example.backend.metrics.QueryCounter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// Kiểm tra số câu SQL của các endpoint có @QueryBudget và cảnh báo câu lặp lại nhiều lần (dấu hiệu N+1)
+@Aspect
+@Component
+@Slf4j
+public class QueryBudgetAspect {
+
+    private final QueryCounter queryCounter;
+    private final MeterRegistry meterRegistry;
+    private final Environment environment;
+    private final boolean enabled;
+    private final boolean failOnBreach;
+    private final boolean captureStatements;
+    private final int repeatedStatementThreshold;
+
+    public QueryBudgetAspect(QueryCounter queryCounter,
+                             MeterRegistry meterRegistry,
+                             Environment environment,
+                             @Value("${app.query-budget.enabled:true}") boolean enabled,
+                             @Value("${app.query-budget.fail-on-breach:false}") boolean failOnBreach,
+                             @Value("${app.query-budget.capture-statements:false}") boolean captureStatements,
+                             @Value("${app.query-budget.repeated-statement-threshold:5}") int repeatedStatementThreshold) {
+        this.queryCounter = queryCounter;
+        this.meterRegistry = meterRegistry;
+        this.environment = environment;
+        this.enabled = enabled;
+        this.failOnBreach = failOnBreach;
+        this.captureStatements = captureStatements;
+        this.repeatedStatementThreshold = repeatedStatementThreshold;
+    }
+
+    @Around("@annotation(com.example.backend.annotation.QueryBudget)")
+    public Object enforceQueryBudget(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!enabled) {
+            return joinPoint.proceed();
+        }
+
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        String endpoint = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+        int budget = environment.getProperty("app.query-budget.limits." + endpoint, Integer.class,
+                method.getAnnotation(QueryBudget.class).value());
+
+        long start = queryCounter.current();
+        boolean capturing = captureStatements && queryCounter.startCapture();
+        Object result;
+        Map<String, Integer> statements;
+        try {
+            result = joinPoint.proceed();
+        } finally {
+            statements = capturing ? queryCounter.stopCapture() : Map.of();
+        }
+        long executed = queryCounter.current() - start;
+
+        statements.forEach((sql, count) -> {
+            if (count >= repeatedStatementThreshold) {
+                log.warn("Nghi ngờ N+1 tại {}: câu SQL lặp lại {} lần: {}", endpoint, count, sql);
+            }
+        });
+
+        if (executed > budget) {
+            Counter.builder("query.budget.breaches")
+                    .description("Số lần endpoint vượt ngân sách câu SQL")
+                    .tag("endpoint", endpoint)
+                    .register(meterRegistry)
+                    .increment();
+            String message = String.format("%s thực thi %d câu SQL, vượt ngân sách %d", endpoint, executed, budget);
+            if (!statements.isEmpty()) {
+                log.warn("{}. Các câu SQL:\n{}", message, statements.entrySet().stream()
+                        .map(entry -> entry.getValue() + "x " + entry.getKey())
+                        .collect(Collectors.joining("\n")));
+            } else {
+                log.warn(message);
+            }
+            if (failOnBreach) {
+                throw new QueryBudgetExceededException(message);
+            }
+        }
+        return result;
+    }
+}
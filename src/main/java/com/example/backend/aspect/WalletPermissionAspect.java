@@ -6,13 +6,13 @@ import com.example.backend.exception.BadRequestException;
 import com.example.backend.security.CustomUserDetails;
 import com.example.backend.service.MessageService;
 import com.example.backend.service.WalletPermissionService;
-import com.example.backend.service.WalletService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.expression.Expression;
 import org.springframework.expression.ExpressionParser;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
@@ -20,6 +20,8 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Aspect
 @Component
@@ -28,9 +30,10 @@ import java.lang.reflect.Method;
 public class WalletPermissionAspect {
 
     private final WalletPermissionService walletPermissionService;
-    private final WalletService walletService;
     private final MessageService messageService;
     private final ExpressionParser expressionParser = new SpelExpressionParser();
+    // Biểu thức SpEL của walletId được parse một lần cho mỗi method
+    private final Map<Method, Expression> walletIdExpressions = new ConcurrentHashMap<>();
 
     @Around("@annotation(com.example.backend.annotation.RequireWalletPermission)")
     public Object checkWalletPermission(ProceedingJoinPoint joinPoint) throws Throwable {
@@ -46,13 +49,13 @@ public class WalletPermissionAspect {
         CustomUserDetails currentUser = (CustomUserDetails) authentication.getPrincipal();
         Long userId = currentUser.getId();
 
-        Long walletId = extractWalletId(joinPoint, annotation);
+        Long walletId = extractWalletId(joinPoint, method, annotation);
         if (walletId == null) {
             throw new BadRequestException(messageService.getMessage("wallet.permission.wallet.id.not.found"));
         }
 
         if (annotation.requireOwnership()) {
-            if (!walletService.isWalletOwner(walletId, userId)) {
+            if (!walletPermissionService.isWalletOwner(walletId, userId)) {
                 log.warn("User {} không phải là chủ sở hữu của ví {}.", userId, walletId);
                 throw new BadRequestException(messageService.getMessage("wallet.permission.not.owner"));
             }
@@ -70,7 +73,7 @@ public class WalletPermissionAspect {
         return joinPoint.proceed();
     }
 
-    private Long extractWalletId(ProceedingJoinPoint joinPoint, RequireWalletPermission annotation) {
+    private Long extractWalletId(ProceedingJoinPoint joinPoint, Method method, RequireWalletPermission annotation) {
         String walletIdExpression = annotation.walletId();
         if (walletIdExpression.isEmpty()) {
             throw new BadRequestException(messageService.getMessage("wallet.permission.expression.empty"));
@@ -86,7 +89,8 @@ public class WalletPermissionAspect {
         }
 
         try {
-            Object value = expressionParser.parseExpression(walletIdExpression).getValue(context);
+            Expression expression = walletIdExpressions.computeIfAbsent(method, m -> expressionParser.parseExpression(walletIdExpression));
+            Object value = expression.getValue(context);
             if (value instanceof Long) {
                 return (Long) value;
             } else if (value instanceof Number) {
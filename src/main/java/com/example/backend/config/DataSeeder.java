@@ -12,6 +12,7 @@ import com.example.backend.repository.CategoryRepository;
 import com.example.backend.repository.TransactionRepository;
 import com.example.backend.repository.UserRepository;
 import com.example.backend.repository.WalletRepository;
+import com.example.backend.service.TransactionRollupService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -39,6 +40,7 @@ public class DataSeeder implements CommandLineRunner {
     private final CategoryRepository categoryRepository;
     private final TransactionRepository transactionRepository;
     private final PasswordEncoder passwordEncoder;
+    private final TransactionRollupService transactionRollupService;
 
     private static final String SAMPLE_USER_EMAIL = "ltha221104@gmail.com";
     private final Random random = new Random();
@@ -67,6 +69,9 @@ public class DataSeeder implements CommandLineRunner {
             // 6. Cập nhật lại số dư cuối cùng của các ví vào DB
             walletRepository.saveAll(wallets);
 
+            // 7. Dựng bảng tổng hợp cho dữ liệu vừa tạo
+            transactionRollupService.rebuildForUser(sampleUser.getId());
+
             System.out.println("====== Data Seeding Completed ======");
         } else {
             System.out.println("====== Data already exists. Skipping seeding. ======");
@@ -4,9 +4,12 @@ import com.example.backend.security.CustomUserDetailsService;
 import com.example.backend.security.JwtAuthenticationFilter;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -15,9 +18,14 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
 import org.springframework.web.cors.CorsConfigurationSource;
 
+import java.util.Arrays;
+import java.util.List;
+
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity
@@ -31,6 +39,8 @@ public class SecurityConfig {
     private CorsConfigurationSource corsConfigurationSource;
     @Autowired
     private PasswordEncoder passwordEncoder;
+    @Value("${app.metrics.allowed-addresses}")
+    private String[] metricsAllowedAddresses;
 
     @Bean
     public DaoAuthenticationProvider authenticationProvider() {
@@ -63,8 +73,11 @@ public class SecurityConfig {
                                 "/api/auth/**", // Cho phép tất cả các endpoint trong /api/auth
                                 "/error",
                                 "/uploads/avatars/**",
-                                "/public/**"
+                                "/public/**",
+                                "/actuator/health"
                         ).permitAll()
+                        // Prometheus scrape không mang JWT nên chỉ mở cho các địa chỉ trong danh sách cho phép
+                        .requestMatchers("/actuator/prometheus").access(metricsScrapeAccess())
                         .anyRequest().authenticated()
                 );
 
@@ -73,4 +86,15 @@ public class SecurityConfig {
 
         return http.build();
     }
+
+    // So khớp theo địa chỉ kết nối (IP hoặc CIDR); sau reverse proxy cần bật forward headers để thấy IP thật
+    private AuthorizationManager<RequestAuthorizationContext> metricsScrapeAccess() {
+        List<IpAddressMatcher> matchers = Arrays.stream(metricsAllowedAddresses)
+                .map(String::trim)
+                .filter(address -> !address.isEmpty())
+                .map(IpAddressMatcher::new)
+                .toList();
+        return (authentication, context) -> new AuthorizationDecision(
+                matchers.stream().anyMatch(matcher -> matcher.matches(context.getRequest())));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,324 @@
+package com.example.backend.config;
+
+import com.example.backend.entity.Category;
+import com.example.backend.entity.Transaction;
+import com.example.backend.entity.User;
+import com.example.backend.entity.Wallet;
+import com.example.backend.entity.WalletShare;
+import com.example.backend.enums.Currency;
+import com.example.backend.enums.InvitationStatus;
+import com.example.backend.enums.TransactionType;
+import com.example.backend.enums.UserStatus;
+import com.example.backend.repository.CategoryRepository;
+import com.example.backend.repository.UserRepository;
+import com.example.backend.repository.WalletRepository;
+import com.example.backend.repository.WalletShareRepository;
+import com.example.backend.service.TransactionBulkInsertService;
+import com.example.backend.service.WalletPermissionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+// Sinh dữ liệu lớn cho đo hiệu năng: N người dùng × M ví × K giao dịch mỗi ví.
+// Chỉ chạy với profile "synthetic-data"; cùng seed và end-date cho ra cùng một bộ dữ liệu.
+@Component
+@Profile("synthetic-data")
+@Order(Integer.MAX_VALUE)
+@Slf4j
+public class SyntheticDataGenerator implements ApplicationRunner {
+
+    private static final List<String> EXPENSE_CATEGORIES = List.of(
+            "Ăn uống", "Đi lại", "Mua sắm", "Hóa đơn Điện & Nước", "Giải trí",
+            "Sức khỏe", "Giáo dục", "Du lịch", "Quà tặng", "Giao dịch linh tinh");
+    private static final List<String> INCOME_CATEGORIES = List.of("Lương", "Thưởng", "Thu nhập phụ");
+    private static final List<String> WALLET_NAMES = List.of(
+            "Tiền mặt", "Tài khoản lương", "Ví điện tử", "Thẻ tín dụng", "Quỹ tiết kiệm", "Tài khoản đầu tư");
+
+    private final UserRepository userRepository;
+    private final CategoryRepository categoryRepository;
+    private final WalletRepository walletRepository;
+    private final WalletShareRepository walletShareRepository;
+    private final WalletPermissionService walletPermissionService;
+    private final TransactionBulkInsertService transactionBulkInsertService;
+    private final PasswordEncoder passwordEncoder;
+    private final ConfigurableApplicationContext applicationContext;
+
+    private final int userCount;
+    private final int walletsPerUser;
+    private final int transactionsPerWallet;
+    private final long seed;
+    private final double transferRatio;
+    private final double sharedWalletRatio;
+    private final int months;
+    private final LocalDate endDate;
+    private final boolean exitOnComplete;
+
+    public SyntheticDataGenerator(UserRepository userRepository,
+                                  CategoryRepository categoryRepository,
+                                  WalletRepository walletRepository,
+                                  WalletShareRepository walletShareRepository,
+                                  WalletPermissionService walletPermissionService,
+                                  TransactionBulkInsertService transactionBulkInsertService,
+                                  PasswordEncoder passwordEncoder,
+                                  ConfigurableApplicationContext applicationContext,
+                                  @Value("${app.synthetic-data.users:100}") int userCount,
+                                  @Value("${app.synthetic-data.wallets-per-user:3}") int walletsPerUser,
+                                  @Value("${app.synthetic-data.transactions-per-wallet:1000}") int transactionsPerWallet,
+                                  @Value("${app.synthetic-data.seed:42}") long seed,
+                                  @Value("${app.synthetic-data.transfer-ratio:0.05}") double transferRatio,
+                                  @Value("${app.synthetic-data.shared-wallet-ratio:0.1}") double sharedWalletRatio,
+                                  @Value("${app.synthetic-data.months:24}") int months,
+                                  @Value("${app.synthetic-data.end-date:2025-12-31}") String endDate,
+                                  @Value("${app.synthetic-data.exit-on-complete:true}") boolean exitOnComplete) {
+        this.userRepository = userRepository;
+        this.categoryRepository = categoryRepository;
+        this.walletRepository = walletRepository;
+        this.walletShareRepository = walletShareRepository;
+        this.walletPermissionService = walletPermissionService;
+        this.transactionBulkInsertService = transactionBulkInsertService;
+        this.passwordEncoder = passwordEncoder;
+        this.applicationContext = applicationContext;
+        this.userCount = userCount;
+        this.walletsPerUser = walletsPerUser;
+        this.transactionsPerWallet = transactionsPerWallet;
+        this.seed = seed;
+        this.transferRatio = transferRatio;
+        this.sharedWalletRatio = sharedWalletRatio;
+        this.months = months;
+        this.endDate = LocalDate.parse(endDate);
+        this.exitOnComplete = exitOnComplete;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (userRepository.findByEmail(emailOf(0)).isPresent()) {
+            log.info("Dữ liệu tổng hợp với seed {} đã tồn tại, bỏ qua", seed);
+        } else {
+            generate();
+        }
+        if (exitOnComplete) {
+            System.exit(SpringApplication.exit(applicationContext, () -> 0));
+        }
+    }
+
+    private void generate() {
+        Random random = new Random(seed);
+        long startEpochSecond = endDate.minusMonths(months).atStartOfDay(ZoneOffset.UTC).toEpochSecond();
+        long endEpochSecond = endDate.plusDays(1).atStartOfDay(ZoneOffset.UTC).toEpochSecond();
+        // Mã hóa mật khẩu một lần: BCrypt cho mỗi người dùng sẽ chiếm phần lớn thời gian sinh dữ liệu
+        String passwordHash = passwordEncoder.encode("123456");
+
+        log.info("Sinh dữ liệu tổng hợp: {} người dùng × {} ví × {} giao dịch (seed {})",
+                userCount, walletsPerUser, transactionsPerWallet, seed);
+        long startedAt = System.nanoTime();
+        long totalRows = 0;
+
+        List<User> users = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            User user = userRepository.save(createUser(i, passwordHash));
+            users.add(user);
+
+            List<Category> expenseCategories = createCategories(user, EXPENSE_CATEGORIES);
+            List<Category> incomeCategories = createCategories(user, INCOME_CATEGORIES);
+            List<Wallet> wallets = createWallets(user, random);
+
+            List<Transaction> transactions = createTransactions(user, wallets, expenseCategories, incomeCategories,
+                    random, startEpochSecond, endEpochSecond);
+            totalRows += transactionBulkInsertService.insertAll(transactions);
+            walletRepository.saveAll(wallets);
+
+            if ((i + 1) % 10 == 0 || i + 1 == userCount) {
+                log.info("Đã sinh {}/{} người dùng, {} giao dịch", i + 1, userCount, totalRows);
+            }
+        }
+
+        shareWallets(users, random);
+
+        double seconds = (System.nanoTime() - startedAt) / 1_000_000_000.0;
+        log.info("Hoàn tất sinh {} giao dịch trong {} giây ({} dòng/giây)",
+                totalRows, String.format("%.1f", seconds), String.format("%.0f", totalRows / Math.max(seconds, 0.001)));
+    }
+
+    private User createUser(int index, String passwordHash) {
+        User user = new User();
+        user.setEmail(emailOf(index));
+        user.setUsername("synthetic-" + seed + "-" + index);
+        user.setPassword(passwordHash);
+        user.setFirstName("Người dùng");
+        user.setLastName(String.valueOf(index));
+        user.setStatus(UserStatus.ACTIVE);
+        return user;
+    }
+
+    private List<Category> createCategories(User user, List<String> names) {
+        List<Category> categories = new ArrayList<>();
+        for (String name : names) {
+            categories.add(Category.builder().name(name).user(user).color("#667eea").build());
+        }
+        return categoryRepository.saveAll(categories);
+    }
+
+    private List<Wallet> createWallets(User user, Random random) {
+        List<Wallet> wallets = new ArrayList<>();
+        for (int i = 0; i < walletsPerUser; i++) {
+            Wallet wallet = new Wallet();
+            wallet.setName(WALLET_NAMES.get(i % WALLET_NAMES.size()) + (i >= WALLET_NAMES.size() ? " " + (i + 1) : ""));
+            wallet.setUser(user);
+            wallet.setCurrency(Currency.VND);
+            wallet.setIcon("wallet.json");
+            wallet.setBalance(new BigDecimal(random.nextInt(50_000_000) + 1_000_000));
+            wallets.add(wallet);
+        }
+        wallets = walletRepository.saveAll(wallets);
+        for (Wallet wallet : wallets) {
+            saveShare(wallet, user, user, WalletShare.PermissionLevel.OWNER);
+        }
+        return wallets;
+    }
+
+    // Giao dịch được sinh theo thứ tự thời gian để số dư sau giao dịch khớp với số dư ví
+    private List<Transaction> createTransactions(User user, List<Wallet> wallets, List<Category> expenseCategories,
+                                                 List<Category> incomeCategories, Random random,
+                                                 long startEpochSecond, long endEpochSecond) {
+        int eventCount = wallets.size() * transactionsPerWallet;
+        List<Instant> dates = new ArrayList<>(eventCount);
+        for (int i = 0; i < eventCount; i++) {
+            dates.add(Instant.ofEpochSecond(startEpochSecond + (long) (random.nextDouble() * (endEpochSecond - startEpochSecond))));
+        }
+        dates.sort(Comparator.naturalOrder());
+
+        List<Transaction> transactions = new ArrayList<>(eventCount);
+        for (Instant date : dates) {
+            Wallet wallet = wallets.get(random.nextInt(wallets.size()));
+
+            if (wallets.size() > 1 && random.nextDouble() < transferRatio) {
+                Wallet toWallet = wallets.get(random.nextInt(wallets.size()));
+                if (toWallet != wallet) {
+                    addTransfer(transactions, user, wallet, toWallet, new BigDecimal(random.nextInt(5_000_000) + 100_000), date);
+                    continue;
+                }
+            }
+
+            // 80% chi tiêu; danh mục lệch về vài mục phổ biến như dữ liệu thật
+            boolean expense = random.nextInt(10) < 8;
+            List<Category> categories = expense ? expenseCategories : incomeCategories;
+            Category category = categories.get(skewedIndex(random, categories.size()));
+            BigDecimal amount = expense
+                    ? new BigDecimal(random.nextInt(1_950_001) + 50_000)
+                    : new BigDecimal(random.nextInt(10_000_001) + 2_000_000);
+
+            BigDecimal balanceAfter = expense ? wallet.getBalance().subtract(amount) : wallet.getBalance().add(amount);
+            wallet.setBalance(balanceAfter);
+
+            transactions.add(Transaction.builder()
+                    .user(user)
+                    .wallet(wallet)
+                    .category(category)
+                    .type(expense ? TransactionType.EXPENSE : TransactionType.INCOME)
+                    .amount(amount)
+                    .date(date)
+                    .description((expense ? "Thanh toán cho " : "Nhận tiền ") + category.getName().toLowerCase())
+                    .balanceAfterTransaction(balanceAfter)
+                    .build());
+        }
+        return transactions;
+    }
+
+    // Cùng cấu trúc với WalletTransferService: giao dịch cha TRANSFER và hai giao dịch con
+    private void addTransfer(List<Transaction> transactions, User user, Wallet fromWallet, Wallet toWallet,
+                             BigDecimal amount, Instant date) {
+        fromWallet.setBalance(fromWallet.getBalance().subtract(amount));
+        toWallet.setBalance(toWallet.getBalance().add(amount));
+
+        Transaction parent = Transaction.builder()
+                .user(user)
+                .wallet(fromWallet)
+                .type(TransactionType.TRANSFER)
+                .amount(amount)
+                .description("Chuyển tiền")
+                .fromWalletId(fromWallet.getId())
+                .toWalletId(toWallet.getId())
+                .date(date)
+                .build();
+        transactions.add(parent);
+        transactions.add(Transaction.builder()
+                .parentTransaction(parent)
+                .user(user)
+                .wallet(fromWallet)
+                .type(TransactionType.EXPENSE)
+                .amount(amount.negate())
+                .description(String.format("Chi tiết chuyển tiền đến ví '%s'", toWallet.getName()))
+                .date(date)
+                .build());
+        transactions.add(Transaction.builder()
+                .parentTransaction(parent)
+                .user(user)
+                .wallet(toWallet)
+                .type(TransactionType.INCOME)
+                .amount(amount)
+                .description(String.format("Chi tiết nhận tiền từ ví '%s'", fromWallet.getName()))
+                .date(date)
+                .build());
+    }
+
+    private void shareWallets(List<User> users, Random random) {
+        if (users.size() < 2) {
+            return;
+        }
+        int shares = 0;
+        for (User owner : users) {
+            for (Wallet wallet : walletRepository.findByUserId(owner.getId())) {
+                if (random.nextDouble() >= sharedWalletRatio) {
+                    continue;
+                }
+                User sharedWith = users.get(random.nextInt(users.size()));
+                if (sharedWith.getId().equals(owner.getId())) {
+                    continue;
+                }
+                WalletShare.PermissionLevel level = random.nextBoolean()
+                        ? WalletShare.PermissionLevel.VIEW
+                        : WalletShare.PermissionLevel.EDIT;
+                saveShare(wallet, owner, sharedWith, level);
+                shares++;
+            }
+        }
+        log.info("Đã chia sẻ {} ví", shares);
+    }
+
+    private void saveShare(Wallet wallet, User owner, User sharedWith, WalletShare.PermissionLevel level) {
+        WalletShare share = walletShareRepository.save(WalletShare.builder()
+                .wallet(wallet)
+                .owner(owner)
+                .sharedWithUser(sharedWith)
+                .status(InvitationStatus.ACCEPTED)
+                .permissionLevel(level)
+                .build());
+        walletPermissionService.assignDefaultPermissions(share);
+    }
+
+    // Phân phối lệch: chỉ số nhỏ được chọn nhiều hơn (xác suất giảm dần theo thứ tự danh mục)
+    private int skewedIndex(Random random, int size) {
+        double r = random.nextDouble();
+        return Math.min((int) (r * r * size), size - 1);
+    }
+
+    private String emailOf(int index) {
+        return "synthetic-" + seed + "-" + index + "@example.com";
+    }
+}
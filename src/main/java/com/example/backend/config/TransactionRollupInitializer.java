@@ -0,0 +1,26 @@
+package com.example.backend.config;
+
+import com.example.backend.repository.TransactionRepository;
+import com.example.backend.repository.TransactionRollupRepository;
+import com.example.backend.service.TransactionRollupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class TransactionRollupInitializer implements ApplicationRunner {
+
+    private final TransactionRollupRepository transactionRollupRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionRollupService transactionRollupService;
+
+    // Lần đầu triển khai bảng rollup: dựng lại từ dữ liệu giao dịch hiện có
+    @Override
+    public void run(ApplicationArguments args) {
+        if (transactionRollupRepository.count() == 0 && transactionRepository.count() > 0) {
+            transactionRollupService.rebuildAll();
+        }
+    }
+}
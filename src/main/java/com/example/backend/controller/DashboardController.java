@@ -1,5 +1,6 @@
 package com.example.backend.controller;
 
+import com.example.backend.annotation.QueryBudget;
 import com.example.backend.dto.response.ApiResponse;
 import com.example.backend.dto.response.DashboardDataResponse;
 import com.example.backend.security.CustomUserDetails;
@@ -20,6 +21,7 @@ public class DashboardController {
     private final DashboardService dashboardService;
 
     @GetMapping("/summary")
+    @QueryBudget(15)
     public ResponseEntity<ApiResponse<DashboardDataResponse>> getDashboardSummary(
             @AuthenticationPrincipal CustomUserDetails currentUser,
             @RequestParam(value = "walletId", required = false) Long walletId) {
@@ -2,10 +2,13 @@ package com.example.backend.controller;
 
 import com.example.backend.dto.request.ReportRequest;
 import com.example.backend.dto.response.ReportDataResponse;
+import com.example.backend.dto.response.ReportExportJobResponse;
+import com.example.backend.enums.ReportExportFormat;
 import com.example.backend.service.ExcelService;
 import com.example.backend.service.PDFService;
+import com.example.backend.service.ReportExportJobService;
 import com.example.backend.service.ReportService;
-import com.example.backend.service.EmailService;
+import com.example.backend.service.StreamingPDFService;
 import com.example.backend.service.ReportEmailSettingService;
 import com.example.backend.entity.ReportEmailSetting;
 import com.example.backend.security.CustomUserDetails;
@@ -16,10 +19,12 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/reports")
@@ -30,7 +35,8 @@ public class ReportController {
     private final ReportService reportService;
     private final ExcelService excelService;
     private final PDFService pdfService;
-    private final EmailService emailService;
+    private final StreamingPDFService streamingPDFService;
+    private final ReportExportJobService reportExportJobService;
     private final ReportEmailSettingService settingService;
 
     @GetMapping("/test")
@@ -83,6 +89,29 @@ public class ReportController {
         }
     }
 
+    // Ghi file Excel thẳng ra response theo từng dòng, không dựng toàn bộ workbook trong bộ nhớ
+    @PostMapping("/export/excel/stream")
+    public ResponseEntity<StreamingResponseBody> exportExcelReportStream(
+            @RequestBody ReportRequest request,
+            Authentication authentication) {
+        if (request == null || request.getStartDate() == null || request.getEndDate() == null
+                || request.getStartDate().isAfter(request.getEndDate())) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+        Long userId = userDetails.getId();
+
+        String fileName = generateFileName("BaoCaoTaiChinh", "xlsx");
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"));
+        headers.setContentDispositionFormData("attachment", fileName);
+
+        StreamingResponseBody body = outputStream -> excelService.writeStreamingExcelReport(request, userId, outputStream);
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
     @PostMapping("/export/pdf")
     public ResponseEntity<byte[]> exportPDFReport(
             @RequestBody ReportRequest request,
@@ -115,33 +144,40 @@ public class ReportController {
         }
     }
 
-    @PostMapping("/email/pdf")
-    public ResponseEntity<Void> emailPDFReport(
+    // Dựng PDF bằng iText layout và ghi dần ra response, dùng cho khoảng thời gian lớn
+    @PostMapping("/export/pdf/stream")
+    public ResponseEntity<StreamingResponseBody> exportPDFReportStream(
             @RequestBody ReportRequest request,
             Authentication authentication) {
-        try {
-            if (request.getStartDate() == null || request.getEndDate() == null) {
-                return ResponseEntity.badRequest().build();
-            }
+        if (request == null || request.getStartDate() == null || request.getEndDate() == null
+                || request.getStartDate().isAfter(request.getEndDate())) {
+            return ResponseEntity.badRequest().build();
+        }
 
-            CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
-            Long userId = userDetails.getId();
+        CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+        Long userId = userDetails.getId();
 
-            ReportDataResponse reportData = reportService.generateReportData(request, userId);
-            byte[] pdfBytes = pdfService.generatePDFReport(reportData);
+        String fileName = generateFileName("BaoCaoTaiChinh", "pdf");
 
-            String fileName = generateFileName("BaoCaoTaiChinh", "pdf");
-            String subject = "Báo cáo tài chính của bạn";
-            String body = "Đính kèm là báo cáo tài chính theo khoảng thời gian bạn đã chọn.";
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("application/pdf"));
+        headers.setContentDispositionFormData("attachment", fileName);
 
-            emailService.sendEmailWithAttachment(userDetails.getUsername(), subject, body, pdfBytes, fileName, "application/pdf");
+        StreamingResponseBody body = outputStream -> streamingPDFService.writePDFReport(request, userId, outputStream);
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
 
-            return ResponseEntity.ok().build();
-        } catch (IOException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+    // Gửi email được xử lý nền qua hàng đợi xuất báo cáo, trả về job để theo dõi tiến độ
+    @PostMapping("/email/pdf")
+    public ResponseEntity<ReportExportJobResponse> emailPDFReport(
+            @RequestBody ReportRequest request,
+            Authentication authentication) {
+        if (request.getStartDate() == null || request.getEndDate() == null) {
+            return ResponseEntity.badRequest().build();
         }
+
+        CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+        return submitEmailJob(request, userDetails.getId(), userDetails.getUsername());
     }
 
     @PostMapping("/preview")
@@ -187,34 +223,29 @@ public class ReportController {
     }
 
     @PostMapping("/email/send-now")
-    public ResponseEntity<Void> sendNow(
+    public ResponseEntity<ReportExportJobResponse> sendNow(
             @RequestBody ReportRequest request,
             Authentication authentication) {
-        try {
-            if (request.getStartDate() == null || request.getEndDate() == null) {
-                return ResponseEntity.badRequest().build();
-            }
-            CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
-            Long userId = userDetails.getId();
-
-            ReportDataResponse reportData = reportService.generateReportData(request, userId);
-            byte[] pdfBytes = pdfService.generatePDFReport(reportData);
+        if (request.getStartDate() == null || request.getEndDate() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+        Long userId = userDetails.getId();
 
-            String fileName = generateFileName("BaoCaoTaiChinh", "pdf");
-            String subject = "Báo cáo tài chính của bạn";
-            String body = "Đính kèm là báo cáo tài chính theo khoảng thời gian bạn đã chọn.";
+        String toEmail = settingService.getByUserId(userId)
+                .map(ReportEmailSetting::getTargetEmail)
+                .filter(e -> e != null && !e.isBlank())
+                .orElse(userDetails.getUsername());
 
-            String toEmail = settingService.getByUserId(userId)
-                    .map(ReportEmailSetting::getTargetEmail)
-                    .filter(e -> e != null && !e.isBlank())
-                    .orElse(userDetails.getUsername());
+        return submitEmailJob(request, userId, toEmail);
+    }
 
-            emailService.sendEmailWithAttachment(toEmail, subject, body, pdfBytes, fileName, "application/pdf");
-            return ResponseEntity.ok().build();
-        } catch (IOException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+    private ResponseEntity<ReportExportJobResponse> submitEmailJob(ReportRequest request, Long userId, String toEmail) {
+        try {
+            ReportExportJobResponse job = reportExportJobService.submit(request, userId, ReportExportFormat.PDF, toEmail);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         }
     }
 
@@ -0,0 +1,81 @@
+package com.example.backend.controller;
+
+import com.example.backend.dto.request.ReportRequest;
+import com.example.backend.dto.response.ApiResponse;
+import com.example.backend.dto.response.ReportExportJobResponse;
+import com.example.backend.enums.ReportExportFormat;
+import com.example.backend.security.CustomUserDetails;
+import com.example.backend.service.ReportExportJob;
+import com.example.backend.service.ReportExportJobService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/api/reports/jobs")
+@RequiredArgsConstructor
+public class ReportExportJobController {
+
+    private final ReportExportJobService reportExportJobService;
+
+    @PostMapping
+    public ResponseEntity<ApiResponse<ReportExportJobResponse>> submitJob(
+            @AuthenticationPrincipal CustomUserDetails currentUser,
+            @RequestBody ReportRequest request) {
+        if (request == null || request.getStartDate() == null || request.getEndDate() == null) {
+            return ResponseEntity.badRequest().body(new ApiResponse<>(false, "Ngày bắt đầu và ngày kết thúc không được để trống"));
+        }
+        if (request.getStartDate().isAfter(request.getEndDate())) {
+            return ResponseEntity.badRequest().body(new ApiResponse<>(false, "Ngày bắt đầu không được sau ngày kết thúc"));
+        }
+
+        ReportExportFormat format;
+        try {
+            format = request.getReportType() != null
+                    ? ReportExportFormat.valueOf(request.getReportType().toUpperCase())
+                    : ReportExportFormat.EXCEL;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse<>(false, "Định dạng báo cáo không hợp lệ"));
+        }
+
+        try {
+            ReportExportJobResponse job = reportExportJobService.submit(request, currentUser.getId(), format);
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(new ApiResponse<>(true, "Đã tiếp nhận yêu cầu xuất báo cáo", job));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(new ApiResponse<>(false, "Hệ thống đang bận, vui lòng thử lại sau"));
+        }
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<ApiResponse<ReportExportJobResponse>> getJob(
+            @AuthenticationPrincipal CustomUserDetails currentUser,
+            @PathVariable String jobId) {
+        ReportExportJobResponse job = reportExportJobService.getJob(jobId, currentUser.getId());
+        return ResponseEntity.ok(new ApiResponse<>(true, "Lấy trạng thái xuất báo cáo thành công", job));
+    }
+
+    @GetMapping("/{jobId}/download")
+    public ResponseEntity<Resource> downloadJob(
+            @AuthenticationPrincipal CustomUserDetails currentUser,
+            @PathVariable String jobId) {
+        ReportExportJob job = reportExportJobService.getCompletedJob(jobId, currentUser.getId());
+        Resource resource = reportExportJobService.loadArtifact(job);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(job.getFormat() == ReportExportFormat.EXCEL
+                ? MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
+                : MediaType.APPLICATION_PDF);
+        headers.setContentDispositionFormData("attachment", job.getFileName());
+
+        return new ResponseEntity<>(resource, headers, HttpStatus.OK);
+    }
+}
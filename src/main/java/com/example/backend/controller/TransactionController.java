@@ -1,7 +1,9 @@
 package com.example.backend.controller;
 
+import com.example.backend.annotation.QueryBudget;
 import com.example.backend.dto.request.TransactionRequest;
 import com.example.backend.dto.response.ApiResponse;
+import com.example.backend.dto.response.TransactionCursorStatisticResponse;
 import com.example.backend.dto.response.TransactionResponse;
 import com.example.backend.dto.response.TransactionStatisticResponse;
 import com.example.backend.security.CustomUserDetails;
@@ -38,6 +40,7 @@ public class TransactionController {
     }
 
     @GetMapping
+    @QueryBudget(5)
     public ResponseEntity<ApiResponse<List<TransactionResponse>>> getTransactions(
             @AuthenticationPrincipal CustomUserDetails currentUser,
             @RequestParam(required = false) String type,
@@ -82,6 +85,7 @@ public class TransactionController {
     }
 
     @GetMapping("/statistics")
+    @QueryBudget(6)
     public ResponseEntity<ApiResponse<TransactionStatisticResponse>> getTransactionStatistics(
             @AuthenticationPrincipal CustomUserDetails currentUser,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
@@ -134,6 +138,7 @@ public class TransactionController {
 
 
     @GetMapping("/statistics/wallet")
+    @QueryBudget(6)
     public ResponseEntity<ApiResponse<TransactionStatisticResponse>> getWalletTransactions(
             @AuthenticationPrincipal CustomUserDetails currentUser,
             @RequestParam Long walletId,
@@ -163,4 +168,70 @@ public class TransactionController {
         return ResponseEntity.ok(response);
     }
 
-}
\ No newline at end of file
+    // Phân trang theo cursor: truyền nextCursor của trang trước để lấy trang tiếp theo
+    @GetMapping("/statistics/cursor")
+    @QueryBudget(6)
+    public ResponseEntity<ApiResponse<TransactionCursorStatisticResponse>> getTransactionStatisticsByCursor(
+            @AuthenticationPrincipal CustomUserDetails currentUser,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) BigDecimal minAmount,
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+
+        TransactionCursorStatisticResponse statistics = transactionService.getTransactionsByCursor(
+                currentUser.getId(),
+                null,
+                startDate,
+                endDate,
+                minAmount,
+                maxAmount,
+                cursor,
+                size,
+                includeTotal
+        );
+
+        ApiResponse<TransactionCursorStatisticResponse> response = new ApiResponse<>(
+                true,
+                "Lấy danh sách giao dịch theo thời gian thành công",
+                statistics
+        );
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/statistics/wallet/cursor")
+    @QueryBudget(6)
+    public ResponseEntity<ApiResponse<TransactionCursorStatisticResponse>> getWalletTransactionsByCursor(
+            @AuthenticationPrincipal CustomUserDetails currentUser,
+            @RequestParam Long walletId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) BigDecimal minAmount,
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+
+        TransactionCursorStatisticResponse statistics = transactionService.getTransactionsByCursor(
+                currentUser.getId(),
+                walletId,
+                startDate,
+                endDate,
+                minAmount,
+                maxAmount,
+                cursor,
+                size,
+                includeTotal
+        );
+
+        ApiResponse<TransactionCursorStatisticResponse> response = new ApiResponse<>(
+                true,
+                "Lấy danh sách giao dịch theo thời gian và ví thành công",
+                statistics
+        );
+        return ResponseEntity.ok(response);
+    }
+
+}
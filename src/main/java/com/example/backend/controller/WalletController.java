@@ -1,5 +1,6 @@
 package com.example.backend.controller;
 
+import com.example.backend.annotation.QueryBudget;
 import com.example.backend.annotation.RequireWalletPermission;
 import com.example.backend.dto.request.AddMoneyRequest;
 import com.example.backend.dto.request.AssignPermissionRequest;
@@ -66,6 +67,7 @@ public class WalletController {
     }
 
     @GetMapping
+    @QueryBudget(5)
     public ResponseEntity<ApiResponse<List<WalletResponse>>> getAllWallets(
             @AuthenticationPrincipal CustomUserDetails currentUser) {
         List<WalletResponse> wallets = walletService.getAllWalletsByUserId(currentUser.getId());
@@ -103,6 +105,19 @@ public class WalletController {
         return ResponseEntity.ok(apiResponse);
     }
 
+    @GetMapping("/{walletId}/transactions/cursor")
+    @RequireWalletPermission(value = PermissionType.VIEW_TRANSACTIONS, walletId = "#walletId")
+    @QueryBudget(6)
+    public ResponseEntity<ApiResponse<CursorPageResponse<TransactionResponse>>> getWalletTransactionsByCursor(
+            @PathVariable Long walletId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        CursorPageResponse<TransactionResponse> transactions = walletService.getTransactionsByWalletIdCursor(walletId, cursor, size, includeTotal);
+        ApiResponse<CursorPageResponse<TransactionResponse>> apiResponse = new ApiResponse<>(true, "Lấy lịch sử giao dịch thành công", transactions);
+        return ResponseEntity.ok(apiResponse);
+    }
+
     @GetMapping("/{walletId}/balance-history")
     @RequireWalletPermission(value = PermissionType.VIEW_BALANCE, walletId = "#walletId")
     public ResponseEntity<ApiResponse<List<BalanceHistoryResponse>>> getBalanceHistory(
@@ -122,6 +137,7 @@ public class WalletController {
     }
 
     @GetMapping("/shared-with-me")
+    @QueryBudget(5)
     public ResponseEntity<ApiResponse<List<WalletResponse>>> getSharedWallets(
             @AuthenticationPrincipal CustomUserDetails currentUser) {
         List<WalletResponse> wallets = walletService.getSharedWalletsByUserId(currentUser.getId());
@@ -1,5 +1,6 @@
 package com.example.backend.controller;
 
+import com.example.backend.annotation.QueryBudget;
 import com.example.backend.dto.request.ShareWalletRequest;
 import com.example.backend.dto.response.ApiResponse;
 import com.example.backend.dto.response.ShareWalletResponse;
@@ -77,6 +78,7 @@ public class WalletShareController {
     }
 
     @GetMapping("/shared-with-me")
+    @QueryBudget(5)
     public ResponseEntity<ApiResponse<List<SharedWalletResponse>>> getSharedWallets(
             @AuthenticationPrincipal CustomUserDetails currentUser) {
 
@@ -90,6 +92,7 @@ public class WalletShareController {
     }
 
     @GetMapping("/shared-by-me")
+    @QueryBudget(5)
     public ResponseEntity<ApiResponse<List<ShareWalletResponse>>> getWalletsSharedByMe(
             @AuthenticationPrincipal CustomUserDetails currentUser) {
 
@@ -0,0 +1,8 @@
+package com.example.backend.dto.projection;
+
+import java.math.BigDecimal;
+
+public interface CategoryTotal {
+    String getCategoryName();
+    BigDecimal getTotal();
+}
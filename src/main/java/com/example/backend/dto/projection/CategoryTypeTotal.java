@@ -0,0 +1,11 @@
+package com.example.backend.dto.projection;
+
+import com.example.backend.enums.TransactionType;
+
+import java.math.BigDecimal;
+
+public interface CategoryTypeTotal {
+    Long getCategoryId();
+    TransactionType getType();
+    BigDecimal getTotal();
+}
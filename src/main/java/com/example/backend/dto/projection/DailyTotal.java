@@ -0,0 +1,10 @@
+package com.example.backend.dto.projection;
+
+import java.math.BigDecimal;
+
+public interface DailyTotal {
+    Integer getPeriodYear();
+    Integer getPeriodMonth();
+    Integer getPeriodDay();
+    BigDecimal getTotal();
+}
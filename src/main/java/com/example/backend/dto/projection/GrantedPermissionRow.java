@@ -0,0 +1,8 @@
+package com.example.backend.dto.projection;
+
+import com.example.backend.enums.PermissionType;
+
+public interface GrantedPermissionRow {
+    Long getWalletShareId();
+    PermissionType getPermissionType();
+}
@@ -0,0 +1,13 @@
+package com.example.backend.dto.projection;
+
+import com.example.backend.enums.TransactionType;
+
+import java.math.BigDecimal;
+
+public interface MonthlyTypeTotal {
+    Integer getPeriodYear();
+    Integer getPeriodMonth();
+    TransactionType getType();
+    BigDecimal getTotal();
+    Long getTransactionCount();
+}
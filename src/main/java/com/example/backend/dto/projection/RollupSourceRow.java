@@ -0,0 +1,15 @@
+package com.example.backend.dto.projection;
+
+import com.example.backend.enums.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+public interface RollupSourceRow {
+    Long getUserId();
+    Long getWalletId();
+    Long getCategoryId();
+    TransactionType getType();
+    Instant getDate();
+    BigDecimal getAmount();
+}
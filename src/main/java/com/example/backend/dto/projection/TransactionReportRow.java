@@ -0,0 +1,19 @@
+package com.example.backend.dto.projection;
+
+import com.example.backend.enums.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+public interface TransactionReportRow {
+    Long getId();
+    BigDecimal getAmount();
+    TransactionType getType();
+    String getDescription();
+    Instant getDate();
+    Long getCategoryId();
+    String getCategoryName();
+    Long getWalletId();
+    String getWalletName();
+    BigDecimal getBalanceAfterTransaction();
+}
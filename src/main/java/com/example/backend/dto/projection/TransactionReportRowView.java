@@ -0,0 +1,24 @@
+package com.example.backend.dto.projection;
+
+import com.example.backend.enums.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+// Dòng báo cáo dựng bằng constructor trong truy vấn Criteria; thứ tự tham số khớp với câu SELECT
+@Getter
+@AllArgsConstructor
+public class TransactionReportRowView implements TransactionReportRow {
+    private Long id;
+    private BigDecimal amount;
+    private TransactionType type;
+    private String description;
+    private Instant date;
+    private Long categoryId;
+    private String categoryName;
+    private Long walletId;
+    private String walletName;
+    private BigDecimal balanceAfterTransaction;
+}
@@ -0,0 +1,28 @@
+package com.example.backend.dto.response;
+
+import com.example.backend.enums.ReportExportFormat;
+import com.example.backend.enums.ReportExportJobStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReportExportJobResponse {
+    private String jobId;
+    private ReportExportJobStatus status;
+    private ReportExportFormat format;
+    private long processedRows;
+    private String fileName;
+    private boolean emailDelivery;
+    private String errorMessage;
+    private Instant createdAt;
+    private Instant startedAt;
+    private Instant completedAt;
+    private Instant expiresAt;
+}
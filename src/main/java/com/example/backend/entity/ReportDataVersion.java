@@ -0,0 +1,38 @@
+package com.example.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+// Bộ đếm thay đổi dữ liệu báo cáo theo người dùng và tháng, dùng làm một phần khóa cache báo cáo đã dựng
+// để mọi instance cùng thấy dữ liệu đã đổi mà không cần nhận event
+@Entity
+@Table(name = "report_data_versions",
+        uniqueConstraints = @UniqueConstraint(name = "uk_report_data_version", columnNames = {"user_id", "period_month"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReportDataVersion {
+
+    // Thay đổi ảnh hưởng mọi kỳ (đổi tên ví/danh mục, dựng lại rollup) được đếm ở tháng giả này
+    public static final LocalDate ALL_PERIODS = LocalDate.of(1970, 1, 1);
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    // Ngày đầu tháng theo UTC, cùng quy ước với rollup_date
+    @Column(name = "period_month", nullable = false)
+    private LocalDate periodMonth;
+
+    @Column(name = "version", nullable = false)
+    private Long version;
+}
@@ -1,5 +1,6 @@
 package com.example.backend.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -7,6 +8,7 @@ import lombok.Setter;
 import java.time.LocalDateTime;
 
 @Entity
+// Không có index theo giờ gửi: truy vấn cài đặt đến hạn là OR giữa ba kỳ, được duyệt theo keyset trên khóa chính
 @Table(name = "report_email_settings")
 @Getter
 @Setter
@@ -18,6 +20,7 @@ public class ReportEmailSetting {
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
+    @JsonIgnore
     private User user;
 
     @Column(name = "target_email")
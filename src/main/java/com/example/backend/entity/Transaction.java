@@ -12,15 +12,23 @@ import java.math.BigDecimal;
 import java.time.Instant;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+        @Index(name = "idx_transactions_user_date_id", columnList = "user_id, transaction_date, id"),
+        @Index(name = "idx_transactions_wallet_date_id", columnList = "wallet_id, transaction_date, id"),
+        @Index(name = "idx_transactions_category_date_id", columnList = "category_id, transaction_date, id"),
+        @Index(name = "idx_transactions_user_type_date", columnList = "user_id, transaction_type, transaction_date"),
+        @Index(name = "idx_transactions_user_category_date", columnList = "user_id, category_id, transaction_date")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Transaction {
 
+    // Sequence dạng pooled (MySQL dùng bảng transactions_seq): Hibernate cấp sẵn 50 id mỗi lần, cho phép gom INSERT theo batch
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_seq")
+    @SequenceGenerator(name = "transactions_seq", sequenceName = "transactions_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -34,11 +42,12 @@ public class Transaction {
     @Column(name = "transaction_type", nullable = false)
     private TransactionType type;
 
-    @ManyToOne(fetch = FetchType.LAZY)
+    // optional = false: truy vấn dẫn xuất theo wallet.id/user.id so sánh thẳng khóa ngoại, không LEFT JOIN sang bảng ví/người dùng
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "wallet_id", nullable = false)
     private Wallet wallet;
 
-    @ManyToOne(fetch = FetchType.LAZY)
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
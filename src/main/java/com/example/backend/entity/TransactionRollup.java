@@ -0,0 +1,56 @@
+package com.example.backend.entity;
+
+import com.example.backend.enums.TransactionType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "transaction_rollup",
+        uniqueConstraints = @UniqueConstraint(name = "uk_rollup_key",
+                columnNames = {"user_id", "wallet_id", "category_id", "transaction_type", "rollup_date"}),
+        indexes = {
+                @Index(name = "idx_rollup_wallet_date", columnList = "wallet_id, rollup_date"),
+                @Index(name = "idx_rollup_category_date", columnList = "category_id, rollup_date")
+        })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransactionRollup {
+
+    // Giao dịch không có danh mục được gom vào category_id = 0 để khóa duy nhất không chứa NULL
+    public static final long NO_CATEGORY = 0L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "wallet_id", nullable = false)
+    private Long walletId;
+
+    @Column(name = "category_id", nullable = false)
+    private Long categoryId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "transaction_type", nullable = false)
+    private TransactionType type;
+
+    // Ngày theo UTC của transaction_date
+    @Column(name = "rollup_date", nullable = false)
+    private LocalDate rollupDate;
+
+    @Column(name = "total_amount", nullable = false, precision = 19, scale = 4)
+    private BigDecimal totalAmount;
+
+    @Column(name = "transaction_count", nullable = false)
+    private Long transactionCount;
+}
@@ -1,6 +1,7 @@
 package com.example.backend.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.UpdateTimestamp;
@@ -46,6 +47,7 @@ public class UserSettings {
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "current_wallet_id")
+    @JsonIgnore
     private Wallet currentWallet;
 
     @Column(name = "usd_to_vnd_rate", precision = 15, scale = 4)
@@ -55,6 +57,12 @@ public class UserSettings {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // JSON chỉ trả id ví đang chọn: đọc id từ proxy không cần mở session
+    @JsonProperty("currentWalletId")
+    public Long getCurrentWalletId() {
+        return currentWallet != null ? currentWallet.getId() : null;
+    }
+
     public enum CurrencyFormat {
         dot_separator, comma_separator
     }
@@ -0,0 +1,6 @@
+package com.example.backend.enums;
+
+public enum ReportExportFormat {
+    EXCEL,
+    PDF
+}
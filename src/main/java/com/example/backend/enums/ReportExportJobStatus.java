@@ -0,0 +1,8 @@
+package com.example.backend.enums;
+
+public enum ReportExportJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,15 @@
+package com.example.backend.event;
+
+import java.time.Instant;
+
+// Dữ liệu báo cáo của người dùng đã thay đổi; date == null nghĩa là mọi khoảng thời gian đều bị ảnh hưởng
+public record ReportDataChangedEvent(Long userId, Instant date) {
+
+    public static ReportDataChangedEvent allPeriods(Long userId) {
+        return new ReportDataChangedEvent(userId, null);
+    }
+
+    public boolean affects(Instant start, Instant end) {
+        return date == null || (!date.isBefore(start) && !date.isAfter(end));
+    }
+}
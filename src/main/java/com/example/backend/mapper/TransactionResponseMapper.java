@@ -0,0 +1,114 @@
+package com.example.backend.mapper;
+
+import com.example.backend.dto.projection.TransactionListingRow;
+import com.example.backend.dto.projection.WalletNameRow;
+import com.example.backend.dto.response.TransactionResponse;
+import com.example.backend.entity.Transaction;
+import com.example.backend.enums.TransactionType;
+import com.example.backend.repository.WalletRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Ánh xạ theo trang: tên ví nguồn/đích của mọi giao dịch chuyển tiền trong trang được lấy bằng một truy vấn IN
+@Component
+@RequiredArgsConstructor
+public class TransactionResponseMapper {
+
+    private final WalletRepository walletRepository;
+
+    public TransactionResponse toResponse(Transaction transaction) {
+        return toResponses(List.of(transaction)).get(0);
+    }
+
+    public List<TransactionResponse> toResponses(List<Transaction> transactions) {
+        Set<Long> walletIds = new HashSet<>();
+        for (Transaction transaction : transactions) {
+            collectTransferWalletIds(walletIds, transaction.getType(), transaction.getFromWalletId(), transaction.getToWalletId());
+        }
+        Map<Long, String> walletNames = findWalletNames(walletIds);
+        return transactions.stream()
+                .map(transaction -> toResponse(transaction, walletNames))
+                .collect(Collectors.toList());
+    }
+
+    public Page<TransactionResponse> toResponses(Page<Transaction> transactions) {
+        return new PageImpl<>(toResponses(transactions.getContent()), transactions.getPageable(), transactions.getTotalElements());
+    }
+
+    public List<TransactionResponse> toListingResponses(List<TransactionListingRow> rows) {
+        Set<Long> walletIds = new HashSet<>();
+        for (TransactionListingRow row : rows) {
+            collectTransferWalletIds(walletIds, row.getType(), row.getFromWalletId(), row.getToWalletId());
+        }
+        Map<Long, String> walletNames = findWalletNames(walletIds);
+        return rows.stream()
+                .map(row -> toResponse(row, walletNames))
+                .collect(Collectors.toList());
+    }
+
+    private TransactionResponse toResponse(Transaction transaction, Map<Long, String> walletNames) {
+        TransactionResponse.TransactionResponseBuilder builder = TransactionResponse.builder()
+                .id(transaction.getId())
+                .amount(absoluteAmount(transaction.getAmount()))
+                .type(transaction.getType())
+                .description(transaction.getDescription())
+                .date(transaction.getDate())
+                .categoryId(transaction.getCategory() != null ? transaction.getCategory().getId() : null)
+                .category(transaction.getCategory() != null ? transaction.getCategory().getName() : null)
+                .walletId(transaction.getWallet() != null ? transaction.getWallet().getId() : null)
+                .walletName(transaction.getWallet() != null ? transaction.getWallet().getName() : null);
+        applyTransferWalletNames(builder, transaction.getType(), transaction.getFromWalletId(), transaction.getToWalletId(), walletNames);
+        return builder.build();
+    }
+
+    private TransactionResponse toResponse(TransactionListingRow row, Map<Long, String> walletNames) {
+        TransactionResponse.TransactionResponseBuilder builder = TransactionResponse.builder()
+                .id(row.getId())
+                .amount(absoluteAmount(row.getAmount()))
+                .type(row.getType())
+                .description(row.getDescription())
+                .date(row.getDate())
+                .categoryId(row.getCategoryId())
+                .category(row.getCategoryName())
+                .walletId(row.getWalletId())
+                .walletName(row.getWalletName());
+        applyTransferWalletNames(builder, row.getType(), row.getFromWalletId(), row.getToWalletId(), walletNames);
+        return builder.build();
+    }
+
+    private void applyTransferWalletNames(TransactionResponse.TransactionResponseBuilder builder, TransactionType type,
+                                          Long fromWalletId, Long toWalletId, Map<Long, String> walletNames) {
+        if (type == TransactionType.TRANSFER && fromWalletId != null && toWalletId != null) {
+            builder.fromWalletName(walletNames.get(fromWalletId));
+            builder.toWalletName(walletNames.get(toWalletId));
+        }
+    }
+
+    private void collectTransferWalletIds(Set<Long> walletIds, TransactionType type, Long fromWalletId, Long toWalletId) {
+        if (type == TransactionType.TRANSFER && fromWalletId != null && toWalletId != null) {
+            walletIds.add(fromWalletId);
+            walletIds.add(toWalletId);
+        }
+    }
+
+    private Map<Long, String> findWalletNames(Set<Long> walletIds) {
+        if (walletIds.isEmpty()) {
+            return Map.of();
+        }
+        return walletRepository.findNamesByIdIn(walletIds).stream()
+                .collect(Collectors.toMap(WalletNameRow::getId, WalletNameRow::getName));
+    }
+
+    private BigDecimal absoluteAmount(BigDecimal amount) {
+        return amount == null ? BigDecimal.ZERO : amount.abs();
+    }
+}
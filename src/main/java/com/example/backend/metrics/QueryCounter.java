@@ -0,0 +1,46 @@
+package com.example.backend.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Đếm số câu SQL Hibernate chuẩn bị trên từng thread. Bộ đếm chỉ tăng, người dùng lấy hiệu hai lần đọc
+// nên các phép đo lồng nhau (request, method) không ảnh hưởng lẫn nhau.
+@Component
+public class QueryCounter implements StatementInspector {
+
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+    // Câu SQL và số lần thực thi, chỉ ghi khi đang có phép đo yêu cầu
+    private static final ThreadLocal<Map<String, Integer>> STATEMENTS = new ThreadLocal<>();
+
+    public long current() {
+        return COUNT.get()[0];
+    }
+
+    // Trả về false nếu thread đang ghi cho một phép đo bên ngoài; khi đó phép đo bên trong không ghi riêng
+    public boolean startCapture() {
+        if (STATEMENTS.get() != null) {
+            return false;
+        }
+        STATEMENTS.set(new LinkedHashMap<>());
+        return true;
+    }
+
+    public Map<String, Integer> stopCapture() {
+        Map<String, Integer> statements = STATEMENTS.get();
+        STATEMENTS.remove();
+        return statements != null ? statements : Map.of();
+    }
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        Map<String, Integer> statements = STATEMENTS.get();
+        if (statements != null) {
+            statements.merge(sql, 1, Integer::sum);
+        }
+        return sql;
+    }
+}
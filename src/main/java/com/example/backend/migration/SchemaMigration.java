@@ -0,0 +1,51 @@
+package com.example.backend.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// Bảng do ddl-auto tạo nên migration phải kiểm tra metadata trước khi thay đổi schema:
+// trên database mới, Flyway chạy trước Hibernate nên bảng chưa tồn tại và Hibernate sẽ tự tạo theo entity
+abstract class SchemaMigration extends BaseJavaMigration {
+
+    protected boolean tableExists(Connection connection, String table) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet tables = metaData.getTables(connection.getCatalog(), connection.getSchema(), table, new String[]{"TABLE"})) {
+            return tables.next();
+        }
+    }
+
+    protected boolean indexExists(Connection connection, String table, String index) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet indexes = metaData.getIndexInfo(connection.getCatalog(), connection.getSchema(), table, false, true)) {
+            while (indexes.next()) {
+                if (index.equalsIgnoreCase(indexes.getString("INDEX_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    protected void createIndexIfMissing(Connection connection, String table, String index, String columns) throws SQLException {
+        if (!tableExists(connection, table) || indexExists(connection, table, index)) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE INDEX " + index + " ON " + table + " (" + columns + ")");
+        }
+    }
+
+    protected void dropIndexIfPresent(Connection connection, String table, String index) throws SQLException {
+        if (!tableExists(connection, table) || !indexExists(connection, table, index)) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP INDEX " + index + " ON " + table);
+        }
+    }
+}
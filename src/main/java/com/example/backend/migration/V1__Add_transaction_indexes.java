@@ -0,0 +1,25 @@
+package com.example.backend.migration;
+
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+
+// Index phủ cho các truy vấn trong TransactionRepository; cột cuối cùng khớp với ORDER BY
+public class V1__Add_transaction_indexes extends SchemaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+
+        // Thống kê, phân trang keyset và luồng báo cáo theo người dùng
+        createIndexIfMissing(connection, "transactions", "idx_transactions_user_date_id", "user_id, transaction_date, id");
+        // Lịch sử giao dịch và lịch sử số dư của ví
+        createIndexIfMissing(connection, "transactions", "idx_transactions_wallet_date_id", "wallet_id, transaction_date, id");
+        // Giao dịch theo danh mục, gỡ danh mục khỏi giao dịch
+        createIndexIfMissing(connection, "transactions", "idx_transactions_category_date_id", "category_id, transaction_date, id");
+        // Lọc theo loại giao dịch (chuyển tiền, thu/chi) của người dùng
+        createIndexIfMissing(connection, "transactions", "idx_transactions_user_type_date", "user_id, transaction_type, transaction_date");
+        // Giao dịch theo danh mục trong khoảng ngày của người dùng
+        createIndexIfMissing(connection, "transactions", "idx_transactions_user_category_date", "user_id, category_id, transaction_date");
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.backend.migration;
+
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+// Transaction chuyển từ IDENTITY sang sequence pooled (allocationSize 50). MySQL không có sequence nên
+// Hibernate dùng bảng transactions_seq; giá trị khởi đầu phải vượt id lớn nhất hiện có cộng một lần cấp phát
+public class V2__Create_transactions_sequence extends SchemaMigration {
+
+    private static final int ALLOCATION_SIZE = 50;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        if (!tableExists(connection, "transactions")) {
+            // Database mới: Hibernate tự tạo bảng sequence khi tạo schema
+            return;
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            long nextValue;
+            try (ResultSet maxId = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM transactions")) {
+                maxId.next();
+                nextValue = maxId.getLong(1) + ALLOCATION_SIZE + 1;
+            }
+
+            if (!tableExists(connection, "transactions_seq")) {
+                statement.execute("CREATE TABLE transactions_seq (next_val BIGINT)");
+                statement.execute("INSERT INTO transactions_seq (next_val) VALUES (" + nextValue + ")");
+            } else {
+                statement.execute("UPDATE transactions_seq SET next_val = GREATEST(next_val, " + nextValue + ")");
+            }
+        }
+    }
+}
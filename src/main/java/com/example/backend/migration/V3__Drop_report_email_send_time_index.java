@@ -0,0 +1,13 @@
+package com.example.backend.migration;
+
+import org.flywaydb.core.api.migration.Context;
+
+// findDueSettings lọc bằng OR giữa ba kỳ gửi và phân trang theo id, nên idx_report_email_send_time
+// (send_hour, send_minute) không được dùng mà vẫn phải cập nhật mỗi khi đổi giờ gửi
+public class V3__Drop_report_email_send_time_index extends SchemaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        dropIndexIfPresent(context.getConnection(), "report_email_settings", "idx_report_email_send_time");
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.backend.repository;
+
+import com.example.backend.entity.ReportDataVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+@Repository
+public interface ReportDataVersionRepository extends JpaRepository<ReportDataVersion, Long> {
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+        INSERT INTO report_data_versions (user_id, period_month, version)
+        VALUES (:userId, :periodMonth, 1)
+        ON DUPLICATE KEY UPDATE version = version + 1
+        """, nativeQuery = true)
+    void increment(@Param("userId") Long userId, @Param("periodMonth") LocalDate periodMonth);
+
+    // Các bộ đếm chỉ tăng và không bị xóa, nên tổng của chúng tăng sau mỗi thay đổi trong khoảng tháng
+    @Query("""
+        SELECT COALESCE(SUM(v.version), 0) FROM ReportDataVersion v
+        WHERE v.userId = :userId
+          AND (v.periodMonth = :allPeriods OR v.periodMonth BETWEEN :fromMonth AND :toMonth)
+        """)
+    long sumVersions(
+            @Param("userId") Long userId,
+            @Param("allPeriods") LocalDate allPeriods,
+            @Param("fromMonth") LocalDate fromMonth,
+            @Param("toMonth") LocalDate toMonth
+    );
+}
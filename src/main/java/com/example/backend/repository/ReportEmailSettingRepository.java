@@ -2,10 +2,96 @@ package com.example.backend.repository;
 
 import com.example.backend.entity.ReportEmailSetting;
 import com.example.backend.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public interface ReportEmailSettingRepository extends JpaRepository<ReportEmailSetting, Long> {
     Optional<ReportEmailSetting> findByUser(User user);
+
+    // Cài đặt có kỳ đến hạn nhưng chưa gửi, duyệt theo keyset trên id.
+    // Một kỳ đến hạn khi giờ gửi của kỳ hiện tại (ngày/tuần/tháng) đã qua và mốc đã gửi còn trước đầu kỳ,
+    // nên lần chạy bị bỏ qua hoặc thời gian ngừng hoạt động được gửi bù ở lần chạy kế tiếp.
+    // Cài đặt chưa chọn giờ gửi dùng khung giờ mặc định (defaultTimeReached)
+    @Query("""
+        SELECT s FROM ReportEmailSetting s
+        JOIN FETCH s.user
+        WHERE s.id > :afterId
+          AND (
+               (s.dailyEnabled = true
+                AND (s.lastDailySentAt IS NULL OR s.lastDailySentAt < :dayStart)
+                AND ((s.sendHour IS NOT NULL AND s.sendMinute IS NOT NULL
+                      AND (s.sendHour < :hour OR (s.sendHour = :hour AND s.sendMinute <= :minute)))
+                     OR ((s.sendHour IS NULL OR s.sendMinute IS NULL) AND :defaultTimeReached = true)))
+            OR (s.weeklyEnabled = true AND s.weeklyDayOfWeek IS NOT NULL
+                AND (s.lastWeeklySentAt IS NULL OR s.lastWeeklySentAt < :weekStart)
+                AND (s.weeklyDayOfWeek < :dayOfWeek
+                     OR (s.weeklyDayOfWeek = :dayOfWeek
+                         AND ((s.sendHour IS NOT NULL AND s.sendMinute IS NOT NULL
+                               AND (s.sendHour < :hour OR (s.sendHour = :hour AND s.sendMinute <= :minute)))
+                              OR ((s.sendHour IS NULL OR s.sendMinute IS NULL) AND :defaultTimeReached = true)))))
+            OR (s.monthlyEnabled = true AND s.monthlyDayOfMonth IS NOT NULL
+                AND (s.lastMonthlySentAt IS NULL OR s.lastMonthlySentAt < :monthStart)
+                AND (s.monthlyDayOfMonth < :dayOfMonth
+                     OR ((s.monthlyDayOfMonth = :dayOfMonth OR (:lastDayOfMonth = true AND s.monthlyDayOfMonth > :dayOfMonth))
+                         AND ((s.sendHour IS NOT NULL AND s.sendMinute IS NOT NULL
+                               AND (s.sendHour < :hour OR (s.sendHour = :hour AND s.sendMinute <= :minute)))
+                              OR ((s.sendHour IS NULL OR s.sendMinute IS NULL) AND :defaultTimeReached = true)))))
+          )
+        ORDER BY s.id
+        """)
+    List<ReportEmailSetting> findDueSettings(
+            @Param("dayStart") LocalDateTime dayStart,
+            @Param("weekStart") LocalDateTime weekStart,
+            @Param("monthStart") LocalDateTime monthStart,
+            @Param("dayOfWeek") int dayOfWeek,
+            @Param("dayOfMonth") int dayOfMonth,
+            @Param("lastDayOfMonth") boolean lastDayOfMonth,
+            @Param("hour") int hour,
+            @Param("minute") int minute,
+            @Param("defaultTimeReached") boolean defaultTimeReached,
+            @Param("afterId") Long afterId,
+            Pageable pageable
+    );
+
+    // Chiếm quyền gửi: chỉ một lần chạy cập nhật được mốc đã gửi cho mỗi kỳ
+    @Modifying
+    @Query("""
+        UPDATE ReportEmailSetting s SET s.lastDailySentAt = :sentAt
+        WHERE s.id = :id AND (s.lastDailySentAt IS NULL OR s.lastDailySentAt < :periodStart)
+        """)
+    int claimDaily(@Param("id") Long id, @Param("sentAt") LocalDateTime sentAt, @Param("periodStart") LocalDateTime periodStart);
+
+    @Modifying
+    @Query("""
+        UPDATE ReportEmailSetting s SET s.lastWeeklySentAt = :sentAt
+        WHERE s.id = :id AND (s.lastWeeklySentAt IS NULL OR s.lastWeeklySentAt < :periodStart)
+        """)
+    int claimWeekly(@Param("id") Long id, @Param("sentAt") LocalDateTime sentAt, @Param("periodStart") LocalDateTime periodStart);
+
+    @Modifying
+    @Query("""
+        UPDATE ReportEmailSetting s SET s.lastMonthlySentAt = :sentAt
+        WHERE s.id = :id AND (s.lastMonthlySentAt IS NULL OR s.lastMonthlySentAt < :periodStart)
+        """)
+    int claimMonthly(@Param("id") Long id, @Param("sentAt") LocalDateTime sentAt, @Param("periodStart") LocalDateTime periodStart);
+
+    // Trả lại mốc cũ khi gửi thất bại để lần chạy sau có thể thử lại
+    @Modifying
+    @Query("UPDATE ReportEmailSetting s SET s.lastDailySentAt = :previous WHERE s.id = :id AND s.lastDailySentAt = :sentAt")
+    int releaseDaily(@Param("id") Long id, @Param("sentAt") LocalDateTime sentAt, @Param("previous") LocalDateTime previous);
+
+    @Modifying
+    @Query("UPDATE ReportEmailSetting s SET s.lastWeeklySentAt = :previous WHERE s.id = :id AND s.lastWeeklySentAt = :sentAt")
+    int releaseWeekly(@Param("id") Long id, @Param("sentAt") LocalDateTime sentAt, @Param("previous") LocalDateTime previous);
+
+    @Modifying
+    @Query("UPDATE ReportEmailSetting s SET s.lastMonthlySentAt = :previous WHERE s.id = :id AND s.lastMonthlySentAt = :sentAt")
+    int releaseMonthly(@Param("id") Long id, @Param("sentAt") LocalDateTime sentAt, @Param("previous") LocalDateTime previous);
 }
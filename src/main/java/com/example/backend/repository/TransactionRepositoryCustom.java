@@ -0,0 +1,25 @@
+package com.example.backend.repository;
+
+import com.example.backend.dto.projection.TransactionListingRow;
+import com.example.backend.dto.projection.TransactionReportRow;
+import com.example.backend.entity.Transaction;
+import com.example.backend.enums.TransactionType;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface TransactionRepositoryCustom {
+
+    // Tổng thu trừ chi của các giao dịch khớp điều kiện
+    BigDecimal sumSignedAmount(Specification<Transaction> specification);
+
+    // Danh sách giao dịch mới nhất dạng projection: ví và danh mục được join trong cùng một câu SQL
+    List<TransactionListingRow> findListingRows(Specification<Transaction> specification, int limit);
+
+    // Đọc dần các dòng báo cáo bằng con trỏ JDBC; phải đóng Stream và gọi trong transaction
+    Stream<TransactionReportRow> streamReportRows(Long userId, Instant startDate, Instant endDate, List<Long> walletIds,
+                                                  List<TransactionType> transactionTypes, List<Long> categoryIds);
+}
@@ -0,0 +1,121 @@
+package com.example.backend.repository;
+
+import com.example.backend.dto.projection.TransactionListingRow;
+import com.example.backend.dto.projection.TransactionReportRow;
+import com.example.backend.dto.projection.TransactionReportRowView;
+import com.example.backend.entity.Category;
+import com.example.backend.entity.Transaction;
+import com.example.backend.entity.Wallet;
+import com.example.backend.enums.TransactionType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class TransactionRepositoryCustomImpl implements TransactionRepositoryCustom {
+
+    private static final int REPORT_FETCH_SIZE = 1000;
+    // Connector/J chỉ stream từng dòng (không nạp cả kết quả vào bộ nhớ) khi fetch size là Integer.MIN_VALUE.
+    // Trong lúc stream, connection không chạy được câu SQL khác nên chỉ dùng cho truy vấn báo cáo này
+    private static final int MYSQL_STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public BigDecimal sumSignedAmount(Specification<Transaction> specification) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BigDecimal> query = cb.createQuery(BigDecimal.class);
+        Root<Transaction> root = query.from(Transaction.class);
+
+        Path<BigDecimal> amount = root.get("amount");
+        Expression<BigDecimal> signedAmount = cb.<BigDecimal>selectCase()
+                .when(cb.equal(root.get("type"), TransactionType.INCOME), amount)
+                .when(cb.equal(root.get("type"), TransactionType.EXPENSE), cb.neg(amount))
+                .otherwise(BigDecimal.ZERO);
+        query.select(cb.coalesce(cb.sum(signedAmount), BigDecimal.ZERO));
+
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    @Override
+    public List<TransactionListingRow> findListingRows(Specification<Transaction> specification, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TransactionListingRow> query = cb.createQuery(TransactionListingRow.class);
+        Root<Transaction> root = query.from(Transaction.class);
+        Join<Transaction, Wallet> wallet = root.join("wallet");
+        Join<Transaction, Category> category = root.join("category", JoinType.LEFT);
+
+        query.select(cb.construct(TransactionListingRow.class,
+                root.get("id"), root.get("amount"), root.get("type"), root.get("description"), root.get("date"),
+                category.get("id"), category.get("name"), wallet.get("id"), wallet.get("name"),
+                root.get("fromWalletId"), root.get("toWalletId")));
+
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(cb.desc(root.get("date")), cb.desc(root.get("id")));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public Stream<TransactionReportRow> streamReportRows(Long userId, Instant startDate, Instant endDate, List<Long> walletIds,
+                                                         List<TransactionType> transactionTypes, List<Long> categoryIds) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TransactionReportRowView> query = cb.createQuery(TransactionReportRowView.class);
+        Root<Transaction> root = query.from(Transaction.class);
+        Join<Transaction, Wallet> wallet = root.join("wallet");
+        Join<Transaction, Category> category = root.join("category", JoinType.LEFT);
+
+        query.select(cb.construct(TransactionReportRowView.class,
+                root.get("id"), root.get("amount"), root.get("type"), root.get("description"), root.get("date"),
+                category.get("id"), category.get("name"), wallet.get("id"), wallet.get("name"),
+                root.get("balanceAfterTransaction")));
+
+        Predicate predicate = TransactionSpecifications
+                .report(userId, startDate, endDate, walletIds, transactionTypes, categoryIds)
+                .toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(cb.desc(root.get("date")), cb.desc(root.get("id")));
+
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, reportFetchSize())
+                .setHint(HibernateHints.HINT_CACHEABLE, false)
+                .getResultStream()
+                .map(TransactionReportRow.class::cast);
+    }
+
+    // Fetch size âm là quy ước riêng của MySQL, các driver khác (H2 trong test) từ chối giá trị này
+    private int reportFetchSize() {
+        boolean mysql = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices()
+                .getDialect() instanceof MySQLDialect;
+        return mysql ? MYSQL_STREAMING_FETCH_SIZE : REPORT_FETCH_SIZE;
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.backend.repository;
+
+import com.example.backend.dto.projection.CategoryTotal;
+import com.example.backend.dto.projection.CategoryTypeTotal;
+import com.example.backend.dto.projection.DailyTotal;
+import com.example.backend.dto.projection.MonthlyTypeTotal;
+import com.example.backend.dto.response.CategorySpendingResponse;
+import com.example.backend.entity.TransactionRollup;
+import com.example.backend.enums.TransactionType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TransactionRollupRepository extends JpaRepository<TransactionRollup, Long> {
+
+    @Modifying
+    @Query(value = """
+        INSERT INTO transaction_rollup (user_id, wallet_id, category_id, transaction_type, rollup_date, total_amount, transaction_count)
+        VALUES (:userId, :walletId, :categoryId, :type, :rollupDate, :amount, :count)
+        ON DUPLICATE KEY UPDATE
+            total_amount = total_amount + VALUES(total_amount),
+            transaction_count = transaction_count + VALUES(transaction_count)
+        """, nativeQuery = true)
+    void upsert(
+            @Param("userId") Long userId,
+            @Param("walletId") Long walletId,
+            @Param("categoryId") Long categoryId,
+            @Param("type") String type,
+            @Param("rollupDate") LocalDate rollupDate,
+            @Param("amount") BigDecimal amount,
+            @Param("count") long count
+    );
+
+    List<TransactionRollup> findByCategoryId(Long categoryId);
+
+    @Query("SELECT DISTINCT r.userId FROM TransactionRollup r WHERE r.walletId = :walletId")
+    List<Long> findDistinctUserIdsByWalletId(@Param("walletId") Long walletId);
+
+    @Query("SELECT DISTINCT r.userId FROM TransactionRollup r WHERE r.categoryId = :categoryId")
+    List<Long> findDistinctUserIdsByCategoryId(@Param("categoryId") Long categoryId);
+
+    @Modifying
+    @Query("DELETE FROM TransactionRollup r WHERE r.walletId = :walletId")
+    void deleteByWalletId(@Param("walletId") Long walletId);
+
+    @Modifying
+    @Query("DELETE FROM TransactionRollup r WHERE r.userId = :userId")
+    void deleteByUserId(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("DELETE FROM TransactionRollup r WHERE r.categoryId = :categoryId")
+    void deleteByCategoryId(@Param("categoryId") Long categoryId);
+
+    // Tách riêng bản có ví và không có ví thay cho điều kiện (:walletId IS NULL OR ...),
+    // để bản có ví dùng được idx_rollup_wallet_date
+    @Query("""
+        SELECT YEAR(r.rollupDate) AS periodYear, MONTH(r.rollupDate) AS periodMonth, r.type AS type,
+               SUM(r.totalAmount) AS total, SUM(r.transactionCount) AS transactionCount
+        FROM TransactionRollup r
+        WHERE r.userId = :userId
+          AND r.rollupDate BETWEEN :startDate AND :endDate
+        GROUP BY YEAR(r.rollupDate), MONTH(r.rollupDate), r.type
+        """)
+    List<MonthlyTypeTotal> sumMonthlyTotalsByType(
+            @Param("userId") Long userId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate
+    );
+
+    @Query("""
+        SELECT YEAR(r.rollupDate) AS periodYear, MONTH(r.rollupDate) AS periodMonth, r.type AS type,
+               SUM(r.totalAmount) AS total, SUM(r.transactionCount) AS transactionCount
+        FROM TransactionRollup r
+        WHERE r.walletId = :walletId
+          AND r.userId = :userId
+          AND r.rollupDate BETWEEN :startDate AND :endDate
+        GROUP BY YEAR(r.rollupDate), MONTH(r.rollupDate), r.type
+        """)
+    List<MonthlyTypeTotal> sumMonthlyTotalsByTypeForUserAndWallet(
+            @Param("userId") Long userId,
+            @Param("walletId") Long walletId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate
+    );
+
+    // Theo ví thay vì người tạo giao dịch: gồm cả giao dịch của người được chia sẻ ví
+    @Query("""
+        SELECT YEAR(r.rollupDate) AS periodYear, MONTH(r.rollupDate) AS periodMonth, r.type AS type,
+               SUM(r.totalAmount) AS total, SUM(r.transactionCount) AS transactionCount
+        FROM TransactionRollup r
+        WHERE r.walletId IN :walletIds
+          AND r.rollupDate BETWEEN :startDate AND :endDate
+        GROUP BY YEAR(r.rollupDate), MONTH(r.rollupDate), r.type
+        """)
+    List<MonthlyTypeTotal> sumMonthlyTotalsByTypeForWallets(
+            @Param("walletIds") Collection<Long> walletIds,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate
+    );
+
+    @Query("""
+        SELECT YEAR(r.rollupDate) AS periodYear, MONTH(r.rollupDate) AS periodMonth, DAY(r.rollupDate) AS periodDay,
+               SUM(r.totalAmount) AS total
+        FROM TransactionRollup r
+        WHERE r.userId = :userId
+          AND r.type = :type
+          AND r.rollupDate BETWEEN :startDate AND :endDate
+        GROUP BY YEAR(r.rollupDate), MONTH(r.rollupDate), DAY(r.rollupDate)
+        """)
+    List<DailyTotal> sumDailyTotalsByType(
+            @Param("userId") Long userId,
+            @Param("type") TransactionType type,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate
+    );
+
+    @Query("""
+        SELECT YEAR(r.rollupDate) AS periodYear, MONTH(r.rollupDate) AS periodMonth, DAY(r.rollupDate) AS periodDay,
+               SUM(r.totalAmount) AS total
+        FROM TransactionRollup r
+        WHERE r.walletId = :walletId
+          AND r.userId = :userId
+          AND r.type = :type
+          AND r.rollupDate BETWEEN :startDate AND :endDate
+        GROUP BY YEAR(r.rollupDate), MONTH(r.rollupDate), DAY(r.rollupDate)
+        """)
+    List<DailyTotal> sumDailyTotalsByTypeForUserAndWallet(
+            @Param("userId") Long userId,
+            @Param("walletId") Long walletId,
+            @Param("type") TransactionType type,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate
+    );
+
+    @Query("""
+        SELECT c.name AS categoryName, SUM(r.totalAmount) AS total
+        FROM TransactionRollup r JOIN Category c ON c.id = r.categoryId
+        WHERE r.walletId IN :walletIds
+          AND r.type = com.example.backend.enums.TransactionType.EXPENSE
+          AND r.rollupDate BETWEEN :startDate AND :endDate
+        GROUP BY c.name
+        HAVING SUM(r.transactionCount) > 0
+        ORDER BY SUM(r.totalAmount) DESC
+        """)
+    List<CategoryTotal> sumExpensesByCategoryNameForWallets(
+            @Param("walletIds") Collection<Long> walletIds,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate
+    );
+
+    @Query("SELECT COALESCE(SUM(r.totalAmount), 0) FROM TransactionRollup r WHERE r.userId = :userId AND r.type = :type AND r.rollupDate BETWEEN :startDate AND :endDate")
+    BigDecimal sumAmountByUserIdAndTypeAndDateBetween(
+            @Param("userId") Long userId,
+            @Param("type") TransactionType type,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate
+    );
+
+    @Query("SELECT COALESCE(SUM(r.totalAmount), 0) FROM TransactionRollup r WHERE r.walletId = :walletId AND r.type = :type")
+    BigDecimal sumAmountByWalletIdAndType(@Param("walletId") Long walletId, @Param("type") TransactionType type);
+
+    @Query("SELECT COALESCE(SUM(r.totalAmount), 0) FROM TransactionRollup r WHERE r.walletId = :walletId AND r.type = :type AND r.rollupDate BETWEEN :startDate AND :endDate")
+    BigDecimal sumAmountByWalletIdAndTypeAndDateBetween(
+            @Param("walletId") Long walletId,
+            @Param("type") TransactionType type,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate
+    );
+
+    @Query("SELECT COALESCE(SUM(r.totalAmount), 0) FROM TransactionRollup r WHERE r.categoryId = :categoryId AND r.type = :type AND r.rollupDate BETWEEN :startDate AND :endDate")
+    BigDecimal sumAmountByCategoryIdAndTypeAndDateBetween(
+            @Param("categoryId") Long categoryId,
+            @Param("type") TransactionType type,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate
+    );
+
+    @Query("""
+        SELECT r.categoryId AS categoryId, r.type AS type, SUM(r.totalAmount) AS total
+        FROM TransactionRollup r
+        WHERE r.categoryId IN (SELECT c.id FROM Category c WHERE c.user.id = :userId)
+          AND r.type IN (com.example.backend.enums.TransactionType.EXPENSE, com.example.backend.enums.TransactionType.INCOME)
+          AND r.rollupDate BETWEEN :startDate AND :endDate
+        GROUP BY r.categoryId, r.type
+        """)
+    List<CategoryTypeTotal> sumByCategoryAndTypeForUser(
+            @Param("userId") Long userId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate
+    );
+
+    @Query("SELECT new com.example.backend.dto.response.CategorySpendingResponse(c.name, SUM(r.totalAmount), c.color) " +
+            "FROM TransactionRollup r JOIN Category c ON c.id = r.categoryId " +
+            "WHERE r.walletId = :walletId AND r.type = com.example.backend.enums.TransactionType.EXPENSE AND r.rollupDate BETWEEN :startDate AND :endDate " +
+            "GROUP BY c.id, c.name, c.color " +
+            "HAVING SUM(r.transactionCount) > 0 " +
+            "ORDER BY SUM(r.totalAmount) DESC")
+    List<CategorySpendingResponse> findExpenseByWalletIdAndDateRange(
+            @Param("walletId") Long walletId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate
+    );
+}
@@ -0,0 +1,140 @@
+package com.example.backend.repository;
+
+import com.example.backend.entity.Transaction;
+import com.example.backend.enums.TransactionType;
+import com.example.backend.util.TransactionCursor;
+import jakarta.persistence.criteria.JoinType;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
+
+// Mỗi bộ lọc trả về null khi không có giá trị và Specification.allOf bỏ qua null,
+// nên câu SQL chỉ chứa các điều kiện thực sự được truyền vào
+public final class TransactionSpecifications {
+
+    private TransactionSpecifications() {
+    }
+
+    public static Specification<Transaction> statistics(Long userId, Long walletId, Instant startDate, Instant endDate,
+                                                        BigDecimal minAmount, BigDecimal maxAmount) {
+        return Specification.allOf(
+                belongsToUser(userId),
+                inWallet(walletId),
+                dateFrom(startDate),
+                dateTo(endDate),
+                amountAtLeast(minAmount),
+                amountAtMost(maxAmount));
+    }
+
+    public static Specification<Transaction> report(Long userId, Instant startDate, Instant endDate, Collection<Long> walletIds,
+                                                    Collection<TransactionType> types, Collection<Long> categoryIds) {
+        return Specification.allOf(
+                belongsToUser(userId),
+                dateFrom(startDate),
+                dateTo(endDate),
+                inWallets(walletIds),
+                hasTypes(types),
+                inCategories(categoryIds));
+    }
+
+    public static Specification<Transaction> belongsToUser(Long userId) {
+        return (root, query, cb) -> cb.equal(root.get("user").get("id"), userId);
+    }
+
+    public static Specification<Transaction> inWallet(Long walletId) {
+        if (walletId == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("wallet").get("id"), walletId);
+    }
+
+    public static Specification<Transaction> inWallets(Collection<Long> walletIds) {
+        if (walletIds == null || walletIds.isEmpty()) {
+            return null;
+        }
+        return (root, query, cb) -> root.get("wallet").get("id").in(walletIds);
+    }
+
+    public static Specification<Transaction> hasType(TransactionType type) {
+        if (type == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("type"), type);
+    }
+
+    public static Specification<Transaction> hasTypes(Collection<TransactionType> types) {
+        if (types == null || types.isEmpty()) {
+            return null;
+        }
+        return (root, query, cb) -> root.get("type").in(types);
+    }
+
+    public static Specification<Transaction> inCategories(Collection<Long> categoryIds) {
+        if (categoryIds == null || categoryIds.isEmpty()) {
+            return null;
+        }
+        return (root, query, cb) -> root.get("category").get("id").in(categoryIds);
+    }
+
+    public static Specification<Transaction> inCategory(Long categoryId) {
+        if (categoryId == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("category").get("id"), categoryId);
+    }
+
+    public static Specification<Transaction> hasCategory() {
+        return (root, query, cb) -> cb.isNotNull(root.get("category"));
+    }
+
+    public static Specification<Transaction> dateFrom(Instant startDate) {
+        if (startDate == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("date"), startDate);
+    }
+
+    public static Specification<Transaction> dateTo(Instant endDate) {
+        if (endDate == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("date"), endDate);
+    }
+
+    public static Specification<Transaction> amountAtLeast(BigDecimal minAmount) {
+        if (minAmount == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("amount"), minAmount);
+    }
+
+    public static Specification<Transaction> amountAtMost(BigDecimal maxAmount) {
+        if (maxAmount == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("amount"), maxAmount);
+    }
+
+    // Điều kiện keyset: các dòng đứng sau cursor theo thứ tự (date, id) giảm dần
+    public static Specification<Transaction> before(TransactionCursor cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.or(
+                cb.lessThan(root.get("date"), cursor.date()),
+                cb.and(cb.equal(root.get("date"), cursor.date()), cb.lessThan(root.get("id"), cursor.id())));
+    }
+
+    // Nạp ví và danh mục cùng câu truy vấn; bỏ qua với câu COUNT/SUM vì fetch join không hợp lệ ở đó
+    public static Specification<Transaction> fetchWalletAndCategory() {
+        return (root, query, cb) -> {
+            if (Transaction.class.equals(query.getResultType())) {
+                root.fetch("wallet");
+                root.fetch("category", JoinType.LEFT);
+            }
+            return null;
+        };
+    }
+}
@@ -6,5 +6,5 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import java.util.List;
 
 public interface UserSettingsRepository extends JpaRepository<UserSettings, Long> {
-    List<UserSettings> findByCurrentWalletId(Long walletId);
+    List<UserSettings> findByCurrentWallet_Id(Long walletId);
 }
\ No newline at end of file
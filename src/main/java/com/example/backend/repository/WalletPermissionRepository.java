@@ -1,5 +1,6 @@
 package com.example.backend.repository;
 
+import com.example.backend.dto.projection.GrantedPermissionRow;
 import com.example.backend.entity.WalletPermission;
 import com.example.backend.enums.PermissionType;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -9,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,10 +21,11 @@ public interface WalletPermissionRepository extends JpaRepository<WalletPermissi
 
     boolean existsByWalletShare_SharedWithUser_IdAndWalletShare_Wallet_IdAndPermissionTypeAndIsGrantedTrue(Long userId, Long walletId, PermissionType permissionType);
 
-    @Query("SELECT wp FROM WalletPermission wp " +
-            "WHERE wp.walletShare.id = :walletShareId " +
-            "AND wp.isGranted = true")
-    List<WalletPermission> findByWalletShareIdAndIsGrantedTrue(@Param("walletShareId") Long walletShareId);
+    @Query("SELECT wp.walletShare.id AS walletShareId, wp.permissionType AS permissionType FROM WalletPermission wp " +
+            "WHERE wp.walletShare.id IN :walletShareIds " +
+            "AND wp.isGranted = true " +
+            "ORDER BY wp.id")
+    List<GrantedPermissionRow> findGrantedPermissionsByWalletShareIdIn(@Param("walletShareIds") Collection<Long> walletShareIds);
 
     @Query("SELECT wp FROM WalletPermission wp " +
             "WHERE wp.walletShare.id = :walletShareId " +
@@ -42,6 +45,15 @@ public interface WalletPermissionRepository extends JpaRepository<WalletPermissi
                           @Param("userId") Long userId,
                           @Param("permissionType") PermissionType permissionType);
 
+    @Query("SELECT wp.permissionType FROM WalletPermission wp " +
+            "JOIN wp.walletShare ws " +
+            "WHERE ws.wallet.id = :walletId " +
+            "AND ws.sharedWithUser.id = :userId " +
+            "AND wp.isGranted = true " +
+            "AND ws.status = com.example.backend.enums.InvitationStatus.ACCEPTED")
+    List<PermissionType> findGrantedPermissionTypes(@Param("walletId") Long walletId,
+                                                    @Param("userId") Long userId);
+
     @Query("SELECT wp FROM WalletPermission wp " +
             "JOIN wp.walletShare ws " +
             "WHERE ws.wallet.id = :walletId " +
@@ -1,11 +1,17 @@
 package com.example.backend.repository;
 
+import com.example.backend.dto.projection.WalletNameRow;
 import com.example.backend.entity.Wallet;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,4 +26,27 @@ public interface WalletRepository extends JpaRepository<Wallet, Long> {
 
     @Query("SELECT w FROM Wallet w WHERE w.user.id = :userId AND w.isArchived = false ORDER BY w.createdAt DESC")
     List<Wallet> findAllActiveWalletsByUserIdOrderByCreatedAtDesc(@Param("userId")  Long userId);
+
+    // Khóa các ví theo thứ tự id tăng dần (SELECT ... FOR UPDATE) để mọi giao dịch lấy khóa cùng một thứ tự
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT w FROM Wallet w WHERE w.id IN :ids ORDER BY w.id")
+    List<Wallet> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT w.id AS id, w.name AS name FROM Wallet w WHERE w.id IN :ids")
+    List<WalletNameRow> findNamesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT w.balance FROM Wallet w WHERE w.id = :walletId")
+    BigDecimal findBalanceById(@Param("walletId") Long walletId);
+
+    @Modifying
+    @Query("UPDATE Wallet w SET w.balance = w.balance + :delta, w.version = w.version + 1 WHERE w.id = :walletId")
+    int addToBalance(@Param("walletId") Long walletId, @Param("delta") BigDecimal delta);
+
+    @Modifying
+    @Query("UPDATE Wallet w SET w.balance = w.balance + :delta, w.version = w.version + 1 WHERE w.id = :walletId AND w.balance + :delta >= 0")
+    int addToBalanceIfNotNegative(@Param("walletId") Long walletId, @Param("delta") BigDecimal delta);
+
+    @Modifying
+    @Query("UPDATE Wallet w SET w.balance = w.balance + :delta, w.version = w.version + 1 WHERE w.id = :walletId AND w.balance + :delta <= :maxBalance")
+    int addToBalanceIfNotAbove(@Param("walletId") Long walletId, @Param("delta") BigDecimal delta, @Param("maxBalance") BigDecimal maxBalance);
 }
\ No newline at end of file
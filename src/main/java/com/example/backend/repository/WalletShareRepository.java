@@ -2,6 +2,7 @@ package com.example.backend.repository;
 
 import com.example.backend.entity.WalletShare;
 import com.example.backend.enums.InvitationStatus;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -21,8 +22,11 @@ public interface WalletShareRepository extends JpaRepository<WalletShare, Long>
 
     Optional<WalletShare> findByWalletIdAndSharedWithUser_EmailAndStatus(Long walletId, String email, InvitationStatus status);
 
+    // Nạp sẵn ví và chủ ví: các danh sách ví được chia sẻ đều đọc hai quan hệ này cho từng dòng
+    @EntityGraph(attributePaths = {"wallet", "owner"})
     List<WalletShare> findBySharedWithUserIdAndStatus(Long userId, InvitationStatus status);
 
+    @EntityGraph(attributePaths = {"wallet", "owner", "sharedWithUser"})
     List<WalletShare> findByOwnerId(Long ownerId);
 
     Optional<WalletShare> findByIdAndOwnerId(Long shareId, Long ownerId);
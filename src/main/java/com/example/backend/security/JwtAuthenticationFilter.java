@@ -2,6 +2,7 @@ package com.example.backend.security;
 
 import com.example.backend.util.JwtUtil;
 import com.example.backend.service.JwtBlacklistService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -28,7 +29,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private JwtUtil jwtUtil;
 
     @Autowired
-    private CustomUserDetailsService userDetailsService;
+    private UserDetailsCache userDetailsCache;
 
     @Autowired
     private JwtBlacklistService jwtBlacklistService;
@@ -38,10 +39,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             FilterChain filterChain) throws ServletException, IOException {
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtil.validateToken(jwt) && !jwtBlacklistService.isBlacklisted(jwt)) {
-                String username = jwtUtil.getUsernameFromToken(jwt);
-
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            Claims claims = (jwt != null) ? jwtUtil.parseValidClaims(jwt) : null;
+            if (claims != null && !jwtBlacklistService.isBlacklisted(jwt)) {
+                UserDetails userDetails = userDetailsCache.get(claims.getSubject());
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -0,0 +1,40 @@
+package com.example.backend.security;
+
+import com.example.backend.util.TransactionCallbacks;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+public class UserDetailsCache {
+
+    private final CustomUserDetailsService userDetailsService;
+    private final Cache<String, UserDetails> cache;
+
+    public UserDetailsCache(CustomUserDetailsService userDetailsService,
+                            @Value("${app.security.user-cache.max-size:10000}") long maxSize,
+                            @Value("${app.security.user-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.userDetailsService = userDetailsService;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    // Key là subject của JWT (email). Lỗi khi nạp (không tồn tại, chưa kích hoạt) không được cache.
+    public UserDetails get(String subject) {
+        return cache.get(subject, userDetailsService::loadUserByUsername);
+    }
+
+    public void invalidate(String subject) {
+        if (subject == null) {
+            return;
+        }
+        cache.invalidate(subject);
+        TransactionCallbacks.afterCommit(() -> cache.invalidate(subject));
+    }
+}
@@ -3,11 +3,11 @@ package com.example.backend.service;
 import com.example.backend.dto.response.BudgetStatRespond;
 import com.example.backend.dto.response.TransactionResponse;
 import com.example.backend.entity.Transaction;
-import com.example.backend.entity.Wallet;
 import com.example.backend.enums.TransactionType;
+import com.example.backend.mapper.TransactionResponseMapper;
 import com.example.backend.repository.CategoryRepository;
 import com.example.backend.repository.TransactionRepository;
-import com.example.backend.repository.WalletRepository;
+import com.example.backend.repository.TransactionRollupRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -18,16 +18,13 @@ import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
 import java.time.*;
 
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
-
 @Service
 @RequiredArgsConstructor
 public class BudgetService {
     private final TransactionRepository transactionRepository;
     private final CategoryRepository categoryRepository;
-    private final WalletRepository walletRepository;
+    private final TransactionRollupRepository transactionRollupRepository;
+    private final TransactionResponseMapper transactionResponseMapper;
 
     public BudgetStatRespond getBudgetStat(Long userId, int year, int month, int page, int size) {
         YearMonth yearMonth = YearMonth.of(year, month);
@@ -39,14 +36,14 @@ public class BudgetService {
             totalBudget = BigDecimal.ZERO;
         }
 
-        BigDecimal totalIncome = transactionRepository.sumAmountByTypeAndDateBetween(
-                userId, TransactionType.INCOME, startDay, endDay);
+        BigDecimal totalIncome = transactionRollupRepository.sumAmountByUserIdAndTypeAndDateBetween(
+                userId, TransactionType.INCOME, yearMonth.atDay(1), yearMonth.atEndOfMonth());
         if (totalIncome == null) {
             totalIncome = BigDecimal.ZERO;
         }
 
-        BigDecimal totalExpense = transactionRepository.sumAmountByTypeAndDateBetween(
-                userId, TransactionType.EXPENSE, startDay, endDay);
+        BigDecimal totalExpense = transactionRollupRepository.sumAmountByUserIdAndTypeAndDateBetween(
+                userId, TransactionType.EXPENSE, yearMonth.atDay(1), yearMonth.atEndOfMonth());
         if (totalExpense == null) {
             totalExpense = BigDecimal.ZERO;
         }
@@ -57,7 +54,7 @@ public class BudgetService {
 
         Page<Transaction> transactions =  transactionRepository.findAllByUserIdAndDateBetween(userId, startDay, endDay, pageable);
 
-        Page<TransactionResponse> transactionResponses =  transactions.map(this::mapToTransactionResponse);
+        Page<TransactionResponse> transactionResponses =  transactionResponseMapper.toResponses(transactions);
 
         return BudgetStatRespond.builder()
                 .totalBudget(totalBudget)
@@ -67,34 +64,4 @@ public class BudgetService {
                 .transactions(transactionResponses)
                 .build();
     }
-
-    private TransactionResponse mapToTransactionResponse(Transaction transaction) {
-        BigDecimal amount = transaction.getAmount() == null ? BigDecimal.ZERO : transaction.getAmount().abs();
-
-        TransactionResponse.TransactionResponseBuilder builder = TransactionResponse.builder()
-                .id(transaction.getId())
-                .amount(amount)
-                .type(transaction.getType())
-                .description(transaction.getDescription())
-                .date(transaction.getDate())
-                .categoryId(transaction.getCategory() != null ? transaction.getCategory().getId() : null)
-                .category(transaction.getCategory() != null ? transaction.getCategory().getName() : null)
-                .walletId(transaction.getWallet() != null ? transaction.getWallet().getId() : null)
-                .walletName(transaction.getWallet() != null ? transaction.getWallet().getName() : null);
-
-        if (transaction.getType() == TransactionType.TRANSFER) {
-            Long fromWalletId = transaction.getFromWalletId();
-            Long toWalletId = transaction.getToWalletId();
-
-            if (fromWalletId != null && toWalletId != null) {
-                List<Long> walletIds = List.of(fromWalletId, toWalletId);
-                Map<Long, String> walletNames = walletRepository.findAllById(walletIds).stream()
-                        .collect(Collectors.toMap(Wallet::getId, Wallet::getName));
-
-                builder.fromWalletName(walletNames.get(fromWalletId));
-                builder.toWalletName(walletNames.get(toWalletId));
-            }
-        }
-        return builder.build();
-    }
-}
\ No newline at end of file
+}
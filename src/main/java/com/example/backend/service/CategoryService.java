@@ -1,12 +1,15 @@
 package com.example.backend.service;
 
+import com.example.backend.dto.projection.CategoryTypeTotal;
 import com.example.backend.dto.request.CategoryRequest;
 import com.example.backend.dto.response.CategoryResponse;
 import com.example.backend.entity.Category;
 import com.example.backend.entity.User;
+import com.example.backend.enums.TransactionType;
 import com.example.backend.exception.ResourceNotFoundException;
 import com.example.backend.repository.CategoryRepository;
 import com.example.backend.repository.TransactionRepository;
+import com.example.backend.repository.TransactionRollupRepository;
 import com.example.backend.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.access.AccessDeniedException;
@@ -16,6 +19,8 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.*;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,6 +30,8 @@ public class CategoryService {
     private final CategoryRepository categoryRepository;
     private final UserRepository userRepository;
     private final TransactionRepository transactionRepository;
+    private final TransactionRollupRepository transactionRollupRepository;
+    private final TransactionRollupService transactionRollupService;
 
     public CategoryResponse createCategory(CategoryRequest request, Long userId) {
         User user = userRepository.findById(userId)
@@ -53,6 +60,9 @@ public class CategoryService {
             throw new AccessDeniedException("Bạn không có quyền chỉnh sửa danh mục này.");
         }
 
+        if (!Objects.equals(category.getName(), request.getName())) {
+            transactionRollupService.touchCategory(categoryId);
+        }
         category.setName(request.getName());
         category.setDescription(request.getDescription());
         category.setColor(request.getColor());
@@ -67,8 +77,25 @@ public class CategoryService {
 
     public List<CategoryResponse> getCategories(Long userId) {
         List<Category> categories = categoryRepository.findByUserId(userId);
+        if (categories.isEmpty()) {
+            return List.of();
+        }
+
+        // Tính spent/earned cho tất cả danh mục bằng một truy vấn GROUP BY thay vì 2 truy vấn mỗi danh mục
+        LocalDate today = LocalDate.now();
+        Map<Long, Map<TransactionType, BigDecimal>> totals = transactionRollupRepository
+                .sumByCategoryAndTypeForUser(userId, today.withDayOfMonth(1), today.withDayOfMonth(today.lengthOfMonth()))
+                .stream()
+                .collect(Collectors.groupingBy(CategoryTypeTotal::getCategoryId,
+                        Collectors.toMap(CategoryTypeTotal::getType, CategoryTypeTotal::getTotal)));
+
         return categories.stream()
-                .map(this::mapToCategoryResponse)
+                .map(category -> {
+                    Map<TransactionType, BigDecimal> categoryTotals = totals.getOrDefault(category.getId(), Map.of());
+                    return mapToCategoryResponse(category,
+                            categoryTotals.getOrDefault(TransactionType.EXPENSE, BigDecimal.ZERO),
+                            categoryTotals.getOrDefault(TransactionType.INCOME, BigDecimal.ZERO));
+                })
                 .collect(Collectors.toList());
     }
 
@@ -93,17 +120,22 @@ public class CategoryService {
         }
 
         transactionRepository.setCategoryToNullByCategoryId(categoryId);
+        transactionRollupService.detachCategory(categoryId);
         categoryRepository.delete(category);
     }
 
     private CategoryResponse mapToCategoryResponse(Category category) {
         LocalDate today = LocalDate.now();
-        Instant startOfMonth = today.withDayOfMonth(1).atStartOfDay().toInstant(ZoneOffset.UTC);
-        Instant endOfMonth = today.withDayOfMonth(today.lengthOfMonth()).atTime(LocalTime.MAX).toInstant(ZoneOffset.UTC);
+        LocalDate startOfMonth = today.withDayOfMonth(1);
+        LocalDate endOfMonth = today.withDayOfMonth(today.lengthOfMonth());
+
+        BigDecimal spentAmount = transactionRollupRepository.sumAmountByCategoryIdAndTypeAndDateBetween(category.getId(), TransactionType.EXPENSE, startOfMonth, endOfMonth);
+        BigDecimal earnedAmount = transactionRollupRepository.sumAmountByCategoryIdAndTypeAndDateBetween(category.getId(), TransactionType.INCOME, startOfMonth, endOfMonth);
 
-        BigDecimal spentAmount = transactionRepository.sumExpensesByCategoryIdAndDateRange(category.getId(), startOfMonth, endOfMonth);
-        BigDecimal earnedAmount = transactionRepository.sumIncomesByCategoryIdAndDateRange(category.getId(), startOfMonth, endOfMonth);
+        return mapToCategoryResponse(category, spentAmount, earnedAmount);
+    }
 
+    private CategoryResponse mapToCategoryResponse(Category category, BigDecimal spentAmount, BigDecimal earnedAmount) {
         BigDecimal remainingAmount = null;
         if (category.getBudgetAmount() != null && category.getBudgetAmount().compareTo(BigDecimal.ZERO) > 0) {
             remainingAmount = category.getBudgetAmount().subtract(spentAmount);
@@ -1,10 +1,14 @@
 package com.example.backend.service;
 
+import com.example.backend.dto.projection.CategoryTotal;
+import com.example.backend.dto.projection.DailyTotal;
+import com.example.backend.dto.projection.MonthlyTypeTotal;
 import com.example.backend.dto.response.*;
 import com.example.backend.entity.Transaction;
 import com.example.backend.entity.Wallet;
 import com.example.backend.enums.TransactionType;
 import com.example.backend.repository.TransactionRepository;
+import com.example.backend.repository.TransactionRollupRepository;
 import com.example.backend.repository.WalletRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -17,7 +21,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
-import java.util.Optional;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,38 +30,54 @@ public class DashboardService {
 
     private final WalletRepository walletRepository;
     private final TransactionRepository transactionRepository;
+    private final TransactionRollupRepository transactionRollupRepository;
+
+    private static final int TREND_MONTHS = 9;
+
     private final List<String> categoryColors = List.of("#3b82f6", "#10b981", "#f97316", "#a855f7", "#64748b", "#ef4444", "#eab308");
 
     public DashboardDataResponse getDashboardData(Long userId, Long walletId) {
         YearMonth currentMonth = YearMonth.now();
-        Instant startOfMonth = currentMonth.atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC);
-        Instant endOfMonth = currentMonth.atEndOfMonth().atTime(LocalTime.MAX).toInstant(ZoneOffset.UTC);
+        LocalDate endOfMonth = currentMonth.atEndOfMonth();
 
         List<Wallet> allUserWallets = walletRepository.findByUserId(userId);
         if (allUserWallets.isEmpty() && walletId == null) {
             return createEmptyDashboardData();
         }
 
-        List<Transaction> transactionsThisMonth;
         List<Transaction> recentTransactions;
         List<Wallet> walletsForSummary = (walletId != null)
                 ? walletRepository.findByIdAndUserId(walletId, userId).map(List::of).orElse(List.of())
                 : allUserWallets;
 
         if (walletId != null) {
-            transactionsThisMonth = transactionRepository.findByWalletIdAndDateBetween(walletId, startOfMonth, endOfMonth);
             recentTransactions = transactionRepository.findTop5ByWalletIdOrderByDateDesc(walletId);
         } else {
-            transactionsThisMonth = transactionRepository.findByWallet_UserIdAndDateBetween(userId, startOfMonth, endOfMonth);
             recentTransactions = transactionRepository.findTop5ByWallet_UserIdOrderByDateDesc(userId);
         }
 
-        WalletSummaryResponse summary = calculateSummary(walletsForSummary, allUserWallets.size(), transactionsThisMonth);
+        // Tổng tháng hiện tại và chi theo danh mục tính theo ví: chỉ ví được chọn, hoặc mọi ví người dùng sở hữu
+        // (gồm cả giao dịch do người được chia sẻ tạo trên các ví đó)
+        List<Long> summaryWalletIds = (walletId != null)
+                ? List.of(walletId)
+                : allUserWallets.stream().map(Wallet::getId).collect(Collectors.toList());
+        List<MonthlyTypeTotal> currentMonthTotals = transactionRollupRepository
+                .sumMonthlyTotalsByTypeForWallets(summaryWalletIds, currentMonth.atDay(1), endOfMonth);
+        WalletSummaryResponse summary = calculateSummary(walletsForSummary, allUserWallets.size(), currentMonthTotals);
         List<TransactionResponse> recentTransactionResponses = recentTransactions.stream()
                 .map(this::convertToTransactionResponse)
                 .collect(Collectors.toList());
-        List<CategorySpendingResponse> spendingByCategory = calculateSpendingByCategory(transactionsThisMonth);
-        List<IncomeExpenseTrendResponse> incomeExpenseTrend = getIncomeExpenseTrend(userId, walletId, 9);
+        List<CategorySpendingResponse> spendingByCategory = calculateSpendingByCategory(
+                transactionRollupRepository.sumExpensesByCategoryNameForWallets(summaryWalletIds, currentMonth.atDay(1), endOfMonth));
+
+        // Xu hướng 9 tháng và chi tiêu trong tuần tính theo người tạo giao dịch, như trước đây
+        YearMonth firstTrendMonth = currentMonth.minusMonths(TREND_MONTHS - 1);
+        List<MonthlyTypeTotal> trendTotals = (walletId != null)
+                ? transactionRollupRepository.sumMonthlyTotalsByTypeForUserAndWallet(userId, walletId, firstTrendMonth.atDay(1), endOfMonth)
+                : transactionRollupRepository.sumMonthlyTotalsByType(userId, firstTrendMonth.atDay(1), endOfMonth);
+        Map<YearMonth, List<MonthlyTypeTotal>> monthlyTotals = trendTotals.stream()
+                .collect(Collectors.groupingBy(row -> YearMonth.of(row.getPeriodYear(), row.getPeriodMonth())));
+        List<IncomeExpenseTrendResponse> incomeExpenseTrend = getIncomeExpenseTrend(monthlyTotals, currentMonth, TREND_MONTHS);
         List<ChartDataPointResponse> weeklySpending = getWeeklySpending(userId, walletId);
         List<CategorySpendingResponse> topSpendingCategories = spendingByCategory.stream().limit(3).collect(Collectors.toList());
 
@@ -71,13 +91,16 @@ public class DashboardService {
                 .build();
     }
 
-    private WalletSummaryResponse calculateSummary(List<Wallet> walletsForBalance, int totalWalletCount, List<Transaction> transactions) {
+    private WalletSummaryResponse calculateSummary(List<Wallet> walletsForBalance, int totalWalletCount, List<MonthlyTypeTotal> monthTotals) {
         BigDecimal totalBalance = walletsForBalance.stream()
                 .map(Wallet::getBalance)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
 
-        BigDecimal monthlyIncome = calculateTotalByType(transactions, TransactionType.INCOME);
-        BigDecimal monthlyExpense = calculateTotalByType(transactions, TransactionType.EXPENSE);
+        BigDecimal monthlyIncome = totalByType(monthTotals, TransactionType.INCOME);
+        BigDecimal monthlyExpense = totalByType(monthTotals, TransactionType.EXPENSE);
+        long transactionCount = monthTotals.stream()
+                .mapToLong(MonthlyTypeTotal::getTransactionCount)
+                .sum();
 
         BigDecimal netIncome = monthlyIncome.subtract(monthlyExpense);
         double monthlyGrowth = 0.0;
@@ -91,20 +114,17 @@ public class DashboardService {
                 .monthlyExpense(monthlyExpense)
                 .totalWallets(totalWalletCount)
                 .monthlyGrowth(monthlyGrowth)
-                .totalTransactions(transactions.size())
+                .totalTransactions((int) transactionCount)
                 .build();
     }
 
-    private List<IncomeExpenseTrendResponse> getIncomeExpenseTrend(Long userId, Long walletId, int months) {
+    private List<IncomeExpenseTrendResponse> getIncomeExpenseTrend(Map<YearMonth, List<MonthlyTypeTotal>> monthlyTotals, YearMonth current, int months) {
         List<IncomeExpenseTrendResponse> trend = new ArrayList<>();
-        YearMonth current = YearMonth.now();
-        Locale vietnamese = new Locale("vi", "VN");
         for (int i = 0; i < months; i++) {
             YearMonth month = current.minusMonths(i);
-            Instant start = month.atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC);
-            Instant end = month.atEndOfMonth().atTime(LocalTime.MAX).toInstant(ZoneOffset.UTC);
-            BigDecimal income = transactionRepository.sumAmountByUserAndTypeAndDateBetween(userId, walletId, TransactionType.INCOME, start, end);
-            BigDecimal expense = transactionRepository.sumAmountByUserAndTypeAndDateBetween(userId, walletId, TransactionType.EXPENSE, start, end);
+            List<MonthlyTypeTotal> totals = monthlyTotals.getOrDefault(month, List.of());
+            BigDecimal income = totalByType(totals, TransactionType.INCOME);
+            BigDecimal expense = totalByType(totals, TransactionType.EXPENSE);
             String monthName = "Tháng " + month.getMonthValue();
             trend.add(new IncomeExpenseTrendResponse(monthName, income, expense));
         }
@@ -113,35 +133,36 @@ public class DashboardService {
     }
 
     private List<ChartDataPointResponse> getWeeklySpending(Long userId, Long walletId) {
-        List<ChartDataPointResponse> weeklyData = new ArrayList<>();
         LocalDate today = LocalDate.now();
+        LocalDate firstDay = today.minusDays(6);
+
+        List<DailyTotal> dailyTotals = (walletId != null)
+                ? transactionRollupRepository.sumDailyTotalsByTypeForUserAndWallet(userId, walletId, TransactionType.EXPENSE, firstDay, today)
+                : transactionRollupRepository.sumDailyTotalsByType(userId, TransactionType.EXPENSE, firstDay, today);
+        Map<LocalDate, BigDecimal> dailyExpenses = dailyTotals.stream()
+                .collect(Collectors.toMap(
+                        row -> LocalDate.of(row.getPeriodYear(), row.getPeriodMonth(), row.getPeriodDay()),
+                        DailyTotal::getTotal,
+                        BigDecimal::add));
+
+        List<ChartDataPointResponse> weeklyData = new ArrayList<>();
         Locale vietnamese = new Locale("vi", "VN");
-        for (int i = 0; i < 7; i++) {
-            LocalDate day = today.minusDays(i);
-            Instant start = day.atStartOfDay().toInstant(ZoneOffset.UTC);
-            Instant end = day.atTime(LocalTime.MAX).toInstant(ZoneOffset.UTC);
-            BigDecimal expense = transactionRepository.sumAmountByUserAndTypeAndDateBetween(userId, walletId, TransactionType.EXPENSE, start, end);
+        for (LocalDate day = firstDay; !day.isAfter(today); day = day.plusDays(1)) {
+            BigDecimal expense = dailyExpenses.getOrDefault(day, BigDecimal.ZERO);
             String dayName = day.getDayOfWeek().getDisplayName(TextStyle.SHORT, vietnamese);
             weeklyData.add(new ChartDataPointResponse(dayName, expense));
         }
-        Collections.reverse(weeklyData);
         return weeklyData;
     }
 
-    private List<CategorySpendingResponse> calculateSpendingByCategory(List<Transaction> transactions) {
-        final int[] colorIndex = {0};
-        return transactions.stream()
-                .filter(t -> t.getType() == TransactionType.EXPENSE && t.getCategory() != null)
-                .collect(Collectors.groupingBy(t -> t.getCategory().getName(),
-                        Collectors.reducing(BigDecimal.ZERO, Transaction::getAmount, BigDecimal::add)))
-                .entrySet().stream()
-                .sorted((e1, e2) -> e2.getValue().compareTo(e1.getValue()))
-                .map(entry -> {
-                    String color = categoryColors.get(colorIndex[0] % categoryColors.size());
-                    colorIndex[0]++;
-                    return new CategorySpendingResponse(entry.getKey(), entry.getValue(), color);
-                })
-                .collect(Collectors.toList());
+    private List<CategorySpendingResponse> calculateSpendingByCategory(List<CategoryTotal> categoryTotals) {
+        List<CategorySpendingResponse> spending = new ArrayList<>();
+        for (int i = 0; i < categoryTotals.size(); i++) {
+            CategoryTotal total = categoryTotals.get(i);
+            String color = categoryColors.get(i % categoryColors.size());
+            spending.add(new CategorySpendingResponse(total.getCategoryName(), total.getTotal(), color));
+        }
+        return spending;
     }
 
     private TransactionResponse convertToTransactionResponse(Transaction t) {
@@ -167,10 +188,10 @@ public class DashboardService {
                 .build();
     }
 
-    private BigDecimal calculateTotalByType(List<Transaction> transactions, TransactionType type) {
-        return transactions.stream()
+    private BigDecimal totalByType(List<MonthlyTypeTotal> totals, TransactionType type) {
+        return totals.stream()
                 .filter(t -> t.getType() == type)
-                .map(Transaction::getAmount)
+                .map(MonthlyTypeTotal::getTotal)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
     }
 }
\ No newline at end of file
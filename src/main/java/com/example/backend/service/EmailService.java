@@ -3,6 +3,8 @@ package com.example.backend.service;
 import com.example.backend.entity.User;
 import com.example.backend.entity.Wallet;
 import com.example.backend.entity.WalletShare;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -19,6 +21,7 @@ public class EmailService {
 
     private final JavaMailSender mailSender;
     private final MessageService messageService;
+    private final MeterRegistry meterRegistry;
 
     @Value("${app.mail.from:noreply@finance-management.com}")
     private String fromEmail;
@@ -36,7 +39,7 @@ public class EmailService {
             String emailContent = buildWalletShareInvitationEmailContent(owner, sharedWithUser, wallet, token, customMessage);
             message.setText(emailContent);
 
-            mailSender.send(message);
+            timedSend("wallet_share_invitation", () -> mailSender.send(message));
             log.info("Email mời chia sẻ ví đã được gửi đến: {}", sharedWithUser.getEmail());
         } catch (Exception e) {
             log.error("Lỗi khi gửi email mời chia sẻ ví: {}", e.getMessage(), e);
@@ -78,7 +81,7 @@ public class EmailService {
             String emailContent = buildWalletShareAcceptedEmailContent(walletShare);
             message.setText(emailContent);
 
-            mailSender.send(message);
+            timedSend("wallet_share_accepted", () -> mailSender.send(message));
             log.info("Email thông báo chấp nhận chia sẻ ví đã được gửi đến: {}", walletShare.getOwner().getEmail());
         } catch (Exception e) {
             log.error("Lỗi khi gửi email thông báo chấp nhận chia sẻ ví: {}", e.getMessage(), e);
@@ -116,7 +119,7 @@ public class EmailService {
             String emailContent = buildActivationEmailContent(token);
             message.setText(emailContent);
 
-            mailSender.send(message);
+            timedSend("activation", () -> mailSender.send(message));
             log.info("Email kích hoạt tài khoản đã được gửi đến: {}", email);
         } catch (Exception e) {
             log.error("Lỗi khi gửi email kích hoạt tài khoản: {}", e.getMessage(), e);
@@ -133,7 +136,7 @@ public class EmailService {
             String emailContent = buildPasswordResetEmailContent(token);
             message.setText(emailContent);
 
-            mailSender.send(message);
+            timedSend("password_reset", () -> mailSender.send(message));
             log.info("Email đặt lại mật khẩu đã được gửi đến: {}", email);
         } catch (Exception e) {
             log.error("Lỗi khi gửi email đặt lại mật khẩu: {}", e.getMessage(), e);
@@ -191,11 +194,27 @@ public class EmailService {
                 }, contentType != null ? contentType : "application/octet-stream");
             }
 
-            mailSender.send(mimeMessage);
+            timedSend("attachment", () -> mailSender.send(mimeMessage));
             log.info("Email với tệp đính kèm đã được gửi đến: {}", toEmail);
         } catch (Exception e) {
             log.error("Lỗi khi gửi email kèm tệp đính kèm: {}", e.getMessage(), e);
             throw new RuntimeException("Không thể gửi email với tệp đính kèm", e);
         }
     }
-}
\ No newline at end of file
+
+    // Đo thời gian gửi SMTP theo loại email; các method gọi vẫn tự xử lý lỗi như trước
+    private void timedSend(String type, Runnable send) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        try {
+            send.run();
+            outcome = "success";
+        } finally {
+            sample.stop(Timer.builder("email.send")
+                    .description("Thời gian gửi email qua SMTP")
+                    .tag("type", type)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+}
@@ -1,18 +1,21 @@
 package com.example.backend.service;
 
+import com.example.backend.dto.request.ReportRequest;
 import com.example.backend.dto.response.ReportDataResponse;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
 
 @Service
 @RequiredArgsConstructor
@@ -21,6 +24,22 @@ public class ExcelService {
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
     private static final DateTimeFormatter DATE_ONLY_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
 
+    // Số dòng SXSSF giữ trong bộ nhớ cho mỗi sheet, các dòng cũ hơn được đẩy xuống file tạm
+    private static final int STREAMING_WINDOW_SIZE = 100;
+
+    private static final String[] TRANSACTION_HEADERS = {"ID", "Ngày", "Loại", "Số tiền", "Mô tả", "Danh mục", "Ví", "Số dư sau GD"};
+    private static final String[] CATEGORY_HEADERS = {"Danh mục", "Loại", "Tổng số tiền", "Số giao dịch", "Tỷ lệ %"};
+    private static final String[] WALLET_HEADERS = {"Tên ví", "Thu nhập", "Chi tiêu", "Số dư ròng", "Số giao dịch", "Số dư hiện tại"};
+
+    // Độ rộng cố định (đơn vị ký tự) thay cho autoSizeColumn, vốn không dùng được khi dòng đã bị flush
+    private static final int[] SUMMARY_COLUMN_WIDTHS = {24, 40};
+    private static final int[] TRANSACTION_COLUMN_WIDTHS = {10, 18, 12, 16, 40, 24, 20, 18};
+    private static final int[] CATEGORY_COLUMN_WIDTHS = {24, 12, 18, 14, 10};
+    private static final int[] WALLET_COLUMN_WIDTHS = {24, 18, 18, 18, 14, 18};
+
+    private final ReportService reportService;
+
+    @Timed(value = "report.render", extraTags = {"format", "excel", "mode", "buffered"})
     public byte[] generateExcelReport(ReportDataResponse reportData) throws IOException {
         try (Workbook workbook = new XSSFWorkbook()) {
             // Tạo sheet tổng quan
@@ -42,6 +61,52 @@ public class ExcelService {
         }
     }
 
+    @Timed(value = "report.render", extraTags = {"format", "excel", "mode", "streaming"})
+    public void writeStreamingExcelReport(ReportRequest request, Long userId, OutputStream outputStream) throws IOException {
+        writeStreamingExcelReport(request, userId, outputStream, () -> { });
+    }
+
+    // onRow được gọi sau mỗi dòng giao dịch đã ghi, dùng để báo tiến độ
+    @Timed(value = "report.render", extraTags = {"format", "excel", "mode", "streaming"})
+    public void writeStreamingExcelReport(ReportRequest request, Long userId, OutputStream outputStream,
+                                          Runnable onRow) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(STREAMING_WINDOW_SIZE);
+        workbook.setCompressTempFiles(true);
+        try {
+            // Tạo sheet theo đúng thứ tự hiển thị, nội dung tổng quan được điền sau khi duyệt xong giao dịch
+            Sheet summarySheet = workbook.createSheet("Tổng Quan");
+            Sheet detailSheet = workbook.createSheet("Chi Tiết Giao Dịch");
+            Sheet categorySheet = workbook.createSheet("Thống Kê Theo Danh Mục");
+            Sheet walletSheet = workbook.createSheet("Thống Kê Theo Ví");
+
+            CellStyle headerStyle = createHeaderStyle(workbook);
+            CellStyle dataStyle = createDataStyle(workbook);
+
+            writeHeaderRow(detailSheet, TRANSACTION_HEADERS, headerStyle);
+            int[] rowNum = {1};
+            ReportDataResponse reportData = reportService.streamReport(request, userId,
+                    transaction -> {
+                        writeTransactionRow(detailSheet.createRow(rowNum[0]++), transaction, dataStyle);
+                        onRow.run();
+                    });
+
+            fillSummarySheet(summarySheet, reportData, headerStyle, dataStyle);
+            fillCategoryStatsSheet(categorySheet, reportData, headerStyle, dataStyle);
+            fillWalletStatsSheet(walletSheet, reportData, headerStyle, dataStyle);
+
+            applyColumnWidths(summarySheet, SUMMARY_COLUMN_WIDTHS);
+            applyColumnWidths(detailSheet, TRANSACTION_COLUMN_WIDTHS);
+            applyColumnWidths(categorySheet, CATEGORY_COLUMN_WIDTHS);
+            applyColumnWidths(walletSheet, WALLET_COLUMN_WIDTHS);
+
+            workbook.write(outputStream);
+        } finally {
+            // Xóa các file tạm do SXSSF tạo ra
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
     private void createSummarySheet(Workbook workbook, ReportDataResponse reportData) {
         Sheet sheet = workbook.createSheet("Tổng Quan");
         
@@ -49,6 +114,15 @@ public class ExcelService {
         CellStyle headerStyle = createHeaderStyle(workbook);
         CellStyle dataStyle = createDataStyle(workbook);
         
+        fillSummarySheet(sheet, reportData, headerStyle, dataStyle);
+        
+        // Auto-size columns
+        for (int i = 0; i < 2; i++) {
+            sheet.autoSizeColumn(i);
+        }
+    }
+
+    private void fillSummarySheet(Sheet sheet, ReportDataResponse reportData, CellStyle headerStyle, CellStyle dataStyle) {
         int rowNum = 0;
         
         // Header thông tin báo cáo
@@ -76,11 +150,6 @@ public class ExcelService {
         createInfoRow(sheet, rowNum++, "Tổng chi tiêu:", formatCurrency(reportData.getTotalExpense()), dataStyle);
         createInfoRow(sheet, rowNum++, "Số dư ròng:", formatCurrency(reportData.getNetAmount()), dataStyle);
         createInfoRow(sheet, rowNum++, "Tổng số giao dịch:", String.valueOf(reportData.getTotalTransactions()), dataStyle);
-        
-        // Auto-size columns
-        for (int i = 0; i < 2; i++) {
-            sheet.autoSizeColumn(i);
-        }
     }
 
     private void createTransactionDetailSheet(Workbook workbook, ReportDataResponse reportData) {
@@ -92,57 +161,56 @@ public class ExcelService {
         int rowNum = 0;
         
         // Header row
-        Row headerRow = sheet.createRow(rowNum++);
-        String[] headers = {"ID", "Ngày", "Loại", "Số tiền", "Mô tả", "Danh mục", "Ví", "Số dư sau GD"};
-        
-        for (int i = 0; i < headers.length; i++) {
-            Cell cell = headerRow.createCell(i);
-            cell.setCellValue(headers[i]);
-            cell.setCellStyle(headerStyle);
-        }
+        writeHeaderRow(sheet, TRANSACTION_HEADERS, headerStyle);
+        rowNum++;
         
         // Data rows
         for (ReportDataResponse.TransactionReportData transaction : reportData.getTransactions()) {
-            Row dataRow = sheet.createRow(rowNum++);
-            
-            dataRow.createCell(0).setCellValue(transaction.getId());
-            dataRow.createCell(1).setCellValue(convertInstantToLocalDateTime(transaction.getDate()).format(DATE_FORMATTER));
-            dataRow.createCell(2).setCellValue(transaction.getType().toString());
-            dataRow.createCell(3).setCellValue(transaction.getAmount().doubleValue());
-            dataRow.createCell(4).setCellValue(transaction.getDescription());
-            dataRow.createCell(5).setCellValue(transaction.getCategoryName());
-            dataRow.createCell(6).setCellValue(transaction.getWalletName());
-            dataRow.createCell(7).setCellValue(transaction.getBalanceAfterTransaction().doubleValue());
-            
-            // Apply data style to all cells
-            for (int i = 0; i < 8; i++) {
-                dataRow.getCell(i).setCellStyle(dataStyle);
-            }
+            writeTransactionRow(sheet.createRow(rowNum++), transaction, dataStyle);
         }
         
         // Auto-size columns
-        for (int i = 0; i < headers.length; i++) {
+        for (int i = 0; i < TRANSACTION_HEADERS.length; i++) {
             sheet.autoSizeColumn(i);
         }
     }
 
+    private void writeTransactionRow(Row dataRow, ReportDataResponse.TransactionReportData transaction, CellStyle dataStyle) {
+        dataRow.createCell(0).setCellValue(transaction.getId());
+        dataRow.createCell(1).setCellValue(convertInstantToLocalDateTime(transaction.getDate()).format(DATE_FORMATTER));
+        dataRow.createCell(2).setCellValue(transaction.getType().toString());
+        dataRow.createCell(3).setCellValue(transaction.getAmount().doubleValue());
+        dataRow.createCell(4).setCellValue(transaction.getDescription());
+        dataRow.createCell(5).setCellValue(transaction.getCategoryName());
+        dataRow.createCell(6).setCellValue(transaction.getWalletName());
+        dataRow.createCell(7).setCellValue(transaction.getBalanceAfterTransaction().doubleValue());
+        
+        // Apply data style to all cells
+        for (int i = 0; i < 8; i++) {
+            dataRow.getCell(i).setCellStyle(dataStyle);
+        }
+    }
+
     private void createCategoryStatsSheet(Workbook workbook, ReportDataResponse reportData) {
         Sheet sheet = workbook.createSheet("Thống Kê Theo Danh Mục");
         
         CellStyle headerStyle = createHeaderStyle(workbook);
         CellStyle dataStyle = createDataStyle(workbook);
         
+        fillCategoryStatsSheet(sheet, reportData, headerStyle, dataStyle);
+        
+        // Auto-size columns
+        for (int i = 0; i < CATEGORY_HEADERS.length; i++) {
+            sheet.autoSizeColumn(i);
+        }
+    }
+
+    private void fillCategoryStatsSheet(Sheet sheet, ReportDataResponse reportData, CellStyle headerStyle, CellStyle dataStyle) {
         int rowNum = 0;
         
         // Header row
-        Row headerRow = sheet.createRow(rowNum++);
-        String[] headers = {"Danh mục", "Loại", "Tổng số tiền", "Số giao dịch", "Tỷ lệ %"};
-        
-        for (int i = 0; i < headers.length; i++) {
-            Cell cell = headerRow.createCell(i);
-            cell.setCellValue(headers[i]);
-            cell.setCellStyle(headerStyle);
-        }
+        writeHeaderRow(sheet, CATEGORY_HEADERS, headerStyle);
+        rowNum++;
         
         // Data rows
         for (ReportDataResponse.CategoryReportData category : reportData.getCategoryStats()) {
@@ -159,11 +227,6 @@ public class ExcelService {
                 dataRow.getCell(i).setCellStyle(dataStyle);
             }
         }
-        
-        // Auto-size columns
-        for (int i = 0; i < headers.length; i++) {
-            sheet.autoSizeColumn(i);
-        }
     }
 
     private void createWalletStatsSheet(Workbook workbook, ReportDataResponse reportData) {
@@ -172,17 +235,20 @@ public class ExcelService {
         CellStyle headerStyle = createHeaderStyle(workbook);
         CellStyle dataStyle = createDataStyle(workbook);
         
+        fillWalletStatsSheet(sheet, reportData, headerStyle, dataStyle);
+        
+        // Auto-size columns
+        for (int i = 0; i < WALLET_HEADERS.length; i++) {
+            sheet.autoSizeColumn(i);
+        }
+    }
+
+    private void fillWalletStatsSheet(Sheet sheet, ReportDataResponse reportData, CellStyle headerStyle, CellStyle dataStyle) {
         int rowNum = 0;
         
         // Header row
-        Row headerRow = sheet.createRow(rowNum++);
-        String[] headers = {"Tên ví", "Thu nhập", "Chi tiêu", "Số dư ròng", "Số giao dịch", "Số dư hiện tại"};
-        
-        for (int i = 0; i < headers.length; i++) {
-            Cell cell = headerRow.createCell(i);
-            cell.setCellValue(headers[i]);
-            cell.setCellStyle(headerStyle);
-        }
+        writeHeaderRow(sheet, WALLET_HEADERS, headerStyle);
+        rowNum++;
         
         // Data rows
         for (ReportDataResponse.WalletReportData wallet : reportData.getWalletStats()) {
@@ -193,17 +259,32 @@ public class ExcelService {
             dataRow.createCell(2).setCellValue(wallet.getTotalExpense().doubleValue());
             dataRow.createCell(3).setCellValue(wallet.getNetAmount().doubleValue());
             dataRow.createCell(4).setCellValue(wallet.getTransactionCount());
-            dataRow.createCell(5).setCellValue(wallet.getCurrentBalance().doubleValue());
+            // Báo cáo kỳ đã đóng không có số dư hiện tại
+            if (wallet.getCurrentBalance() != null) {
+                dataRow.createCell(5).setCellValue(wallet.getCurrentBalance().doubleValue());
+            } else {
+                dataRow.createCell(5).setCellValue("-");
+            }
             
             // Apply data style to all cells
             for (int i = 0; i < 6; i++) {
                 dataRow.getCell(i).setCellStyle(dataStyle);
             }
         }
-        
-        // Auto-size columns
+    }
+
+    private void writeHeaderRow(Sheet sheet, String[] headers, CellStyle headerStyle) {
+        Row headerRow = sheet.createRow(0);
         for (int i = 0; i < headers.length; i++) {
-            sheet.autoSizeColumn(i);
+            Cell cell = headerRow.createCell(i);
+            cell.setCellValue(headers[i]);
+            cell.setCellStyle(headerStyle);
+        }
+    }
+
+    private void applyColumnWidths(Sheet sheet, int[] widths) {
+        for (int i = 0; i < widths.length; i++) {
+            sheet.setColumnWidth(i, widths[i] * 256);
         }
     }
 
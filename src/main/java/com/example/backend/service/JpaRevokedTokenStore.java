@@ -0,0 +1,49 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.RevokedToken;
+import com.example.backend.repository.RevokedTokenRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.jwt.revocation.persistence.enabled", havingValue = "true", matchIfMissing = true)
+public class JpaRevokedTokenStore implements RevokedTokenStore {
+
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    @Override
+    public void save(String tokenDigest, Instant expiresAt) {
+        if (revokedTokenRepository.existsByTokenDigest(tokenDigest)) {
+            return;
+        }
+        try {
+            revokedTokenRepository.save(RevokedToken.builder()
+                    .tokenDigest(tokenDigest)
+                    .expiresAt(expiresAt)
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            // Instance khác vừa ghi cùng token: bỏ qua
+        }
+    }
+
+    @Override
+    public List<Entry> findUnexpired(long afterId, Instant now, int limit) {
+        return revokedTokenRepository.findByIdGreaterThanAndExpiresAtAfterOrderByIdAsc(afterId, now, PageRequest.of(0, limit))
+                .stream()
+                .map(t -> new Entry(t.getId(), t.getTokenDigest(), t.getExpiresAt()))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public int deleteExpired(Instant now) {
+        return revokedTokenRepository.deleteExpired(now);
+    }
+}
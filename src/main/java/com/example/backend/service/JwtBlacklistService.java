@@ -1,31 +1,150 @@
 package com.example.backend.service;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 @Service
+@Slf4j
 public class JwtBlacklistService {
 
-    private final Map<String, Long> blacklistedTokenToExpiryEpochMs = new ConcurrentHashMap<>();
+    private static final int SYNC_BATCH_SIZE = 1000;
+
+    // digest -> thời điểm hết hạn (epoch ms)
+    private final Map<String, Long> revokedDigests = new ConcurrentHashMap<>();
+    // Bánh xe hết hạn: chỉ số bucket -> các digest hết hạn trong bucket đó
+    private final Map<Long, Set<String>> expiryBuckets = new ConcurrentHashMap<>();
+
+    private final RevokedTokenStore store;
+    private final Timer sweepTimer;
+    private final long bucketMs;
+    private volatile long lastSweptBucket;
+
+    public JwtBlacklistService(ObjectProvider<RevokedTokenStore> storeProvider,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.jwt.revocation.bucket-ms:60000}") long bucketMs) {
+        this.store = storeProvider.getIfAvailable();
+        this.bucketMs = bucketMs;
+        this.lastSweptBucket = bucketOf(System.currentTimeMillis()) - 1;
+        Gauge.builder("jwt.revocation.entries", revokedDigests, Map::size)
+                .description("Số token bị thu hồi đang được giữ trong bộ nhớ")
+                .register(meterRegistry);
+        this.sweepTimer = Timer.builder("jwt.revocation.sweep")
+                .description("Thời gian quét các token thu hồi đã hết hạn")
+                .register(meterRegistry);
+    }
 
     public void blacklistToken(String token, long expiryEpochMs) {
-        blacklistedTokenToExpiryEpochMs.put(token, expiryEpochMs);
+        String digest = digest(token);
+        revokeLocally(digest, expiryEpochMs);
+        if (store != null) {
+            store.save(digest, Instant.ofEpochMilli(expiryEpochMs));
+        }
     }
 
     public boolean isBlacklisted(String token) {
-        Long expiry = blacklistedTokenToExpiryEpochMs.get(token);
+        String digest = digest(token);
+        Long expiry = revokedDigests.get(digest);
         if (expiry == null) {
             return false;
         }
-        if (expiry < Instant.now().toEpochMilli()) {
-            blacklistedTokenToExpiryEpochMs.remove(token);
+        if (expiry < System.currentTimeMillis()) {
+            revokedDigests.remove(digest);
             return false;
         }
         return true;
     }
-}
 
+    // Mỗi lần quét chỉ duyệt các bucket đã qua, không duyệt toàn bộ map
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.sweep-interval-ms:60000}")
+    public void sweepExpired() {
+        sweepTimer.record(() -> {
+            long currentBucket = bucketOf(System.currentTimeMillis());
+            for (long bucket = lastSweptBucket + 1; bucket < currentBucket; bucket++) {
+                Set<String> digests = expiryBuckets.remove(bucket);
+                if (digests != null) {
+                    digests.forEach(revokedDigests::remove);
+                }
+            }
+            lastSweptBucket = Math.max(lastSweptBucket, currentBucket - 1);
+        });
+        if (store != null) {
+            try {
+                store.deleteExpired(Instant.now());
+            } catch (RuntimeException e) {
+                log.warn("Không thể xóa token thu hồi đã hết hạn trong DB: {}", e.getMessage());
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadPersistedRevocations() {
+        syncFromStore();
+    }
 
+    // Kéo các token bị thu hồi bởi instance khác. Mỗi lần đọc lại toàn bộ bản ghi chưa hết hạn thay vì theo mốc id:
+    // id tự tăng được cấp lúc INSERT nhưng commit có thể lệch thứ tự, mốc id sẽ bỏ sót vĩnh viễn bản ghi commit trễ.
+    // Bảng chỉ giữ token chưa hết hạn nên số dòng bị giới hạn bởi số lần đăng xuất trong một vòng đời token
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.sync-interval-ms:10000}")
+    public void syncFromStore() {
+        if (store == null) {
+            return;
+        }
+        try {
+            Instant now = Instant.now();
+            long afterId = 0;
+            List<RevokedTokenStore.Entry> entries;
+            do {
+                entries = store.findUnexpired(afterId, now, SYNC_BATCH_SIZE);
+                for (RevokedTokenStore.Entry entry : entries) {
+                    revokeLocally(entry.tokenDigest(), entry.expiresAt().toEpochMilli());
+                    afterId = entry.id();
+                }
+            } while (entries.size() == SYNC_BATCH_SIZE);
+        } catch (RuntimeException e) {
+            log.warn("Không thể đồng bộ danh sách token thu hồi: {}", e.getMessage());
+        }
+    }
+
+    private void revokeLocally(String digest, long expiryEpochMs) {
+        if (expiryEpochMs < System.currentTimeMillis()) {
+            return;
+        }
+        if (revokedDigests.putIfAbsent(digest, expiryEpochMs) == null) {
+            // Token hết hạn trong bucket k sẽ bị xóa khi bucket k đã trôi qua hoàn toàn
+            long bucket = Math.max(bucketOf(expiryEpochMs), lastSweptBucket + 1);
+            expiryBuckets.computeIfAbsent(bucket, b -> ConcurrentHashMap.newKeySet()).add(digest);
+        }
+    }
+
+    private long bucketOf(long epochMs) {
+        return epochMs / bucketMs;
+    }
+
+    // 128 bit đầu của SHA-256: đủ chống trùng mà chỉ tốn 32 ký tự thay vì cả chuỗi JWT
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 không khả dụng", e);
+        }
+    }
+}
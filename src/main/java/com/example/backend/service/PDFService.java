@@ -2,6 +2,7 @@ package com.example.backend.service;
 
 import com.example.backend.dto.response.ReportDataResponse;
 import com.itextpdf.html2pdf.HtmlConverter;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -20,6 +21,7 @@ public class PDFService {
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
     private static final DateTimeFormatter DATE_ONLY_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
 
+    @Timed(value = "report.render", extraTags = {"format", "pdf", "mode", "buffered"})
     public byte[] generatePDFReport(ReportDataResponse reportData) throws IOException {
         String htmlContent = generateHTMLContent(reportData);
         
@@ -174,7 +176,7 @@ public class PDFService {
                 formatCurrency(wallet.getTotalExpense()),
                 formatCurrency(wallet.getNetAmount()),
                 wallet.getTransactionCount(),
-                formatCurrency(wallet.getCurrentBalance())
+                formatBalance(wallet.getCurrentBalance())
             ));
         }
 
@@ -326,6 +328,11 @@ public class PDFService {
         return String.format("%,.0f VND", amount.doubleValue());
     }
 
+    // Báo cáo kỳ đã đóng không có số dư hiện tại
+    private String formatBalance(java.math.BigDecimal balance) {
+        return balance != null ? formatCurrency(balance) : "-";
+    }
+
     private LocalDateTime convertInstantToLocalDateTime(Instant instant) {
         return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
     }
@@ -0,0 +1,35 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.ReportDataVersion;
+import com.example.backend.event.ReportDataChangedEvent;
+import com.example.backend.repository.ReportDataVersionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+@Service
+@RequiredArgsConstructor
+public class ReportDataVersionService {
+
+    private final ReportDataVersionRepository reportDataVersionRepository;
+
+    // Ghi trong chính transaction đã thay đổi dữ liệu: phiên bản mới hiện ra cùng lúc với dữ liệu mới
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onReportDataChanged(ReportDataChangedEvent event) {
+        LocalDate periodMonth = event.date() != null ? monthOf(event.date()) : ReportDataVersion.ALL_PERIODS;
+        reportDataVersionRepository.increment(event.userId(), periodMonth);
+    }
+
+    public long currentVersion(Long userId, Instant start, Instant end) {
+        return reportDataVersionRepository.sumVersions(userId, ReportDataVersion.ALL_PERIODS, monthOf(start), monthOf(end));
+    }
+
+    private static LocalDate monthOf(Instant instant) {
+        return TransactionRollupService.toRollupDate(instant).withDayOfMonth(1);
+    }
+}
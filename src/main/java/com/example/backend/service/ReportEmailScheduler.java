@@ -1,86 +1,299 @@
 package com.example.backend.service;
 
 import com.example.backend.dto.request.ReportRequest;
-import com.example.backend.dto.response.ReportDataResponse;
 import com.example.backend.entity.ReportEmailSetting;
-import com.example.backend.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
+import com.example.backend.enums.ReportExportFormat;
+import com.example.backend.enums.ReportPeriod;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class ReportEmailScheduler {
 
     private final ReportService reportService;
     private final PDFService pdfService;
     private final EmailService emailService;
-    private final UserRepository userRepository;
     private final ReportEmailSettingService settingService;
+    private final ReportRenderCache reportRenderCache;
+    // Đọc dữ liệu báo cáo với thời hạn transaction: Hibernate đặt query timeout JDBC theo thời gian còn lại,
+    // vì truy vấn đang chờ DB không dừng khi watchdog ngắt thread
+    private final TransactionTemplate reportQueryTemplate;
 
-    @Value("${app.report.email.enabled:false}")
-    private boolean reportEmailEnabled;
+    private final boolean reportEmailEnabled;
+    private final int pageSize;
+    private final long jobTimeoutMs;
+    private final int defaultSendHour;
+    private final int defaultSendMinute;
 
-    @Value("${app.report.email.cron:0 0 8 * * *}")
-    private String cronExpression;
+    private final ThreadPoolExecutor executor;
+    // Hủy từng job khi vượt quá thời hạn tính từ lúc job bắt đầu chạy
+    private final ScheduledThreadPoolExecutor watchdog;
+    // Chặn hai lần chạy chồng lên nhau trong cùng một instance
+    private final AtomicBoolean running = new AtomicBoolean(false);
 
-    @Scheduled(cron = "${app.report.email.cron:0 0/5 * * * *}")
+    private final Timer runTimer;
+    private final Counter skippedRuns;
+    private final Counter sentJobs;
+    private final Counter failedJobs;
+    private final Counter timedOutJobs;
+    private final Counter duplicateJobs;
+
+    public ReportEmailScheduler(ReportService reportService,
+                                PDFService pdfService,
+                                EmailService emailService,
+                                ReportEmailSettingService settingService,
+                                ReportRenderCache reportRenderCache,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.report.email.enabled:false}") boolean reportEmailEnabled,
+                                @Value("${app.report.email.pool-size:4}") int poolSize,
+                                @Value("${app.report.email.page-size:200}") int pageSize,
+                                @Value("${app.report.email.job-timeout-ms:120000}") long jobTimeoutMs,
+                                @Value("${app.report.email.default-send-hour:8}") int defaultSendHour,
+                                @Value("${app.report.email.default-send-minute:0}") int defaultSendMinute) {
+        this.reportService = reportService;
+        this.pdfService = pdfService;
+        this.emailService = emailService;
+        this.settingService = settingService;
+        this.reportRenderCache = reportRenderCache;
+        this.reportQueryTemplate = new TransactionTemplate(transactionManager);
+        this.reportQueryTemplate.setReadOnly(true);
+        this.reportQueryTemplate.setTimeout((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(jobTimeoutMs)));
+        this.reportEmailEnabled = reportEmailEnabled;
+        this.pageSize = pageSize;
+        this.jobTimeoutMs = jobTimeoutMs;
+        this.defaultSendHour = defaultSendHour;
+        this.defaultSendMinute = defaultSendMinute;
+
+        // Mỗi cài đặt sinh tối đa một job cho mỗi kỳ, nên hàng đợi đủ chứa trọn một trang
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(pageSize * ReportPeriod.values().length),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "report-email-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.watchdog = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "report-email-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.watchdog.setRemoveOnCancelPolicy(true);
+
+        this.runTimer = Timer.builder("report.email.run")
+                .description("Thời gian một lần chạy scheduler gửi báo cáo")
+                .register(meterRegistry);
+        this.skippedRuns = Counter.builder("report.email.run.skipped")
+                .description("Số lần chạy bị bỏ qua vì lần chạy trước chưa kết thúc")
+                .register(meterRegistry);
+        this.sentJobs = jobCounter(meterRegistry, "sent");
+        this.failedJobs = jobCounter(meterRegistry, "failed");
+        this.timedOutJobs = jobCounter(meterRegistry, "timeout");
+        this.duplicateJobs = jobCounter(meterRegistry, "duplicate");
+    }
+
+    @Scheduled(cron = "${app.report.email.cron:0 * * * * *}")
     public void dispatchReports() {
         if (!reportEmailEnabled) {
             return;
         }
+        if (!running.compareAndSet(false, true)) {
+            skippedRuns.increment();
+            log.warn("Lần gửi báo cáo trước chưa kết thúc, bỏ qua lần chạy này");
+            return;
+        }
+        Timer.Sample sample = Timer.start();
         try {
-            userRepository.findAll().forEach(user -> {
-                try {
-                    ReportEmailSetting setting = settingService.getByUserId(user.getId()).orElse(null);
-                    if (setting == null) {
-                        return; // Chưa cài đặt
-                    }
-
-                    LocalDateTime now = LocalDateTime.now();
-                    if (setting.getSendHour() != null && setting.getSendMinute() != null) {
-                        if (!(now.getHour() == setting.getSendHour() && now.getMinute() == setting.getSendMinute())) {
-                            return; // Không phải thời gian gửi
-                        }
-                    }
-
-                    // Daily
-                    if (setting.isDailyEnabled()) {
-                        LocalDateTime start = now.minusDays(1).withHour(0).withMinute(0).withSecond(0).withNano(0);
-                        LocalDateTime end = now.minusDays(1).withHour(23).withMinute(59).withSecond(59).withNano(0);
-                        sendReport(user.getId(), setting.getTargetEmail() != null ? setting.getTargetEmail() : user.getEmail(), start, end,
-                                "Báo cáo tài chính ngày " + start.toLocalDate(),
-                                "Đính kèm là báo cáo tài chính ngày " + start.toLocalDate() + ".");
-                    }
-
-                    // Weekly
-                    if (setting.isWeeklyEnabled() && setting.getWeeklyDayOfWeek() != null && now.getDayOfWeek().getValue() == setting.getWeeklyDayOfWeek()) {
-                        LocalDateTime start = now.minusWeeks(1).withHour(0).withMinute(0).withSecond(0).withNano(0);
-                        LocalDateTime end = now.minusDays(1).withHour(23).withMinute(59).withSecond(59).withNano(0);
-                        sendReport(user.getId(), setting.getTargetEmail() != null ? setting.getTargetEmail() : user.getEmail(), start, end,
-                                "Báo cáo tài chính tuần qua",
-                                "Đính kèm là báo cáo tài chính tuần qua.");
-                    }
-
-                    // Monthly
-                    if (setting.isMonthlyEnabled() && setting.getMonthlyDayOfMonth() != null && now.getDayOfMonth() == setting.getMonthlyDayOfMonth()) {
-                        LocalDateTime start = now.minusMonths(1).withDayOfMonth(1).withHour(0).withMinute(0).withSecond(0).withNano(0);
-                        LocalDateTime end = start.plusMonths(1).minusDays(1).withHour(23).withMinute(59).withSecond(59).withNano(0);
-                        sendReport(user.getId(), setting.getTargetEmail() != null ? setting.getTargetEmail() : user.getEmail(), start, end,
-                                "Báo cáo tài chính tháng",
-                                "Đính kèm là báo cáo tài chính tháng.");
-                    }
-                } catch (Exception e) {
-                    log.error("Lỗi khi gửi báo cáo cho user {}: {}", user.getId(), e.getMessage(), e);
-                }
-            });
+            dispatchDueReports(LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES));
         } catch (Exception ex) {
             log.error("Lỗi scheduler gửi báo cáo: {}", ex.getMessage(), ex);
+        } finally {
+            sample.stop(runTimer);
+            running.set(false);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        watchdog.shutdownNow();
+    }
+
+    private void dispatchDueReports(LocalDateTime slot) {
+        // Cài đặt chưa chọn giờ gửi được gửi từ khung giờ mặc định trở đi
+        boolean defaultTimeReached = isTimeReached(defaultSendHour, defaultSendMinute, slot);
+
+        Long afterId = 0L;
+        List<ReportEmailSetting> page;
+        do {
+            page = settingService.findDueSettings(slot, defaultTimeReached, afterId, pageSize);
+
+            List<ReportJob> jobs = new ArrayList<>();
+            for (ReportEmailSetting setting : page) {
+                jobs.addAll(collectJobs(setting, slot));
+            }
+            runJobs(jobs, slot);
+
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == pageSize && !Thread.currentThread().isInterrupted());
+    }
+
+    private List<ReportJob> collectJobs(ReportEmailSetting setting, LocalDateTime now) {
+        List<ReportJob> jobs = new ArrayList<>();
+        Long userId = setting.getUser().getId();
+        String toEmail = setting.getTargetEmail() != null ? setting.getTargetEmail() : setting.getUser().getEmail();
+        LocalDate today = now.toLocalDate();
+        boolean timeReached = setting.getSendHour() != null && setting.getSendMinute() != null
+                ? isTimeReached(setting.getSendHour(), setting.getSendMinute(), now)
+                : isTimeReached(defaultSendHour, defaultSendMinute, now);
+
+        // Daily: báo cáo ngày hôm qua, gửi từ giờ gửi của hôm nay
+        if (setting.isDailyEnabled() && timeReached
+                && isPending(setting.getLastDailySentAt(), ReportPeriod.DAILY, today)) {
+            LocalDateTime start = today.minusDays(1).atStartOfDay();
+            LocalDateTime end = today.minusDays(1).atTime(23, 59, 59);
+            jobs.add(new ReportJob(setting.getId(), userId, toEmail, ReportPeriod.DAILY, setting.getLastDailySentAt(), start, end,
+                    "Báo cáo tài chính ngày " + start.toLocalDate(),
+                    "Đính kèm là báo cáo tài chính ngày " + start.toLocalDate() + "."));
+        }
+
+        // Weekly: báo cáo 7 ngày trước ngày gửi của tuần này, gửi bù nếu ngày gửi đã qua
+        Integer weeklyDay = setting.getWeeklyDayOfWeek();
+        if (setting.isWeeklyEnabled() && weeklyDay != null
+                && (weeklyDay < today.getDayOfWeek().getValue() || (weeklyDay == today.getDayOfWeek().getValue() && timeReached))
+                && isPending(setting.getLastWeeklySentAt(), ReportPeriod.WEEKLY, today)) {
+            LocalDate sendDate = settingService.periodStart(ReportPeriod.WEEKLY, today).toLocalDate().plusDays(weeklyDay - 1);
+            LocalDateTime start = sendDate.minusWeeks(1).atStartOfDay();
+            LocalDateTime end = sendDate.minusDays(1).atTime(23, 59, 59);
+            jobs.add(new ReportJob(setting.getId(), userId, toEmail, ReportPeriod.WEEKLY, setting.getLastWeeklySentAt(), start, end,
+                    "Báo cáo tài chính tuần qua",
+                    "Đính kèm là báo cáo tài chính tuần qua."));
+        }
+
+        // Monthly: báo cáo tháng trước; ngày gửi vượt quá số ngày của tháng thì gửi vào ngày cuối tháng
+        if (setting.isMonthlyEnabled() && setting.getMonthlyDayOfMonth() != null) {
+            int sendDay = Math.min(setting.getMonthlyDayOfMonth(), today.lengthOfMonth());
+            if ((sendDay < today.getDayOfMonth() || (sendDay == today.getDayOfMonth() && timeReached))
+                    && isPending(setting.getLastMonthlySentAt(), ReportPeriod.MONTHLY, today)) {
+                LocalDateTime start = today.minusMonths(1).withDayOfMonth(1).atStartOfDay();
+                LocalDateTime end = today.withDayOfMonth(1).minusDays(1).atTime(23, 59, 59);
+                jobs.add(new ReportJob(setting.getId(), userId, toEmail, ReportPeriod.MONTHLY, setting.getLastMonthlySentAt(), start, end,
+                        "Báo cáo tài chính tháng",
+                        "Đính kèm là báo cáo tài chính tháng."));
+            }
+        }
+        return jobs;
+    }
+
+    private boolean isPending(LocalDateTime lastSentAt, ReportPeriod period, LocalDate today) {
+        return lastSentAt == null || lastSentAt.isBefore(settingService.periodStart(period, today));
+    }
+
+    private static boolean isTimeReached(int hour, int minute, LocalDateTime now) {
+        return hour < now.getHour() || (hour == now.getHour() && minute <= now.getMinute());
+    }
+
+    private void runJobs(List<ReportJob> jobs, LocalDateTime slot) {
+        List<Future<?>> futures = new ArrayList<>(jobs.size());
+        for (ReportJob job : jobs) {
+            try {
+                futures.add(executor.submit(() -> executeWithDeadline(job, slot)));
+            } catch (RejectedExecutionException e) {
+                failedJobs.increment();
+                log.error("Không thể xếp hàng gửi báo cáo {} cho user {}", job.period(), job.userId());
+            }
+        }
+
+        // Thời hạn được áp riêng cho từng job từ lúc job bắt đầu chạy, ở đây chỉ chờ cả trang xong
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                log.error("Lỗi khi gửi báo cáo: {}", e.getCause().getMessage(), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(pending -> pending.cancel(true));
+                return;
+            }
+        }
+    }
+
+    private void executeWithDeadline(ReportJob job, LocalDateTime slot) {
+        Thread worker = Thread.currentThread();
+        JobDeadline deadline = new JobDeadline();
+        ScheduledFuture<?> watchdogTask = watchdog.schedule(() -> {
+            synchronized (deadline) {
+                if (!deadline.finished) {
+                    deadline.expired = true;
+                    timedOutJobs.increment();
+                    log.warn("Gửi báo cáo {} cho user {} vượt quá {} ms, đã hủy", job.period(), job.userId(), jobTimeoutMs);
+                    worker.interrupt();
+                }
+            }
+        }, jobTimeoutMs, TimeUnit.MILLISECONDS);
+        try {
+            execute(job, slot);
+        } finally {
+            watchdogTask.cancel(false);
+            synchronized (deadline) {
+                deadline.finished = true;
+                // Xóa cờ ngắt của watchdog để không ảnh hưởng job kế tiếp trên cùng thread
+                if (deadline.expired) {
+                    Thread.interrupted();
+                }
+            }
+        }
+    }
+
+    private void execute(ReportJob job, LocalDateTime slot) {
+        // Mốc đã gửi được ghi trước khi gửi: lần chạy chồng lấn hoặc instance khác sẽ không gửi lại
+        if (!settingService.claimSend(job.settingId(), job.period(), slot)) {
+            duplicateJobs.increment();
+            return;
+        }
+        try {
+            sendReport(job.userId(), job.toEmail(), job.start(), job.end(), job.subject(), job.body());
+            sentJobs.increment();
+        } catch (Exception e) {
+            failedJobs.increment();
+            log.error("Lỗi khi gửi báo cáo cho user {}: {}", job.userId(), e.getMessage(), e);
+            // Job bị hủy vẫn phải trả lại mốc đã gửi, nên bỏ cờ ngắt trước khi ghi vào DB
+            boolean interrupted = Thread.interrupted();
+            settingService.releaseSend(job.settingId(), job.period(), slot, job.previousSentAt());
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
         }
     }
 
@@ -91,9 +304,27 @@ public class ReportEmailScheduler {
         request.setReportType("PDF");
         request.setReportFormat("DETAILED");
 
-        ReportDataResponse data = reportService.generateReportData(request, userId);
-        byte[] pdf = pdfService.generatePDFReport(data);
+        // Kỳ đã đóng nên báo cáo giống nhau giữa các lần gửi có thể lấy lại từ cache
+        byte[] pdf = reportRenderCache.getOrRender(userId, request, ReportExportFormat.PDF,
+                () -> pdfService.generatePDFReport(
+                        reportQueryTemplate.execute(status -> reportService.generateReportData(request, userId))));
         String fileName = "BaoCaoTaiChinh_" + start.toLocalDate() + "_" + end.toLocalDate() + ".pdf";
         emailService.sendEmailWithAttachment(toEmail, subject, body, pdf, fileName, "application/pdf");
     }
+
+    private static Counter jobCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("report.email.jobs")
+                .description("Số báo cáo email theo kết quả xử lý")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static final class JobDeadline {
+        private boolean finished;
+        private boolean expired;
+    }
+
+    private record ReportJob(Long settingId, Long userId, String toEmail, ReportPeriod period, LocalDateTime previousSentAt,
+                             LocalDateTime start, LocalDateTime end, String subject, String body) {
+    }
 }
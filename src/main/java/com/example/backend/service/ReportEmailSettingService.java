@@ -2,12 +2,19 @@ package com.example.backend.service;
 
 import com.example.backend.entity.ReportEmailSetting;
 import com.example.backend.entity.User;
+import com.example.backend.enums.ReportPeriod;
 import com.example.backend.repository.ReportEmailSettingRepository;
 import com.example.backend.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -38,4 +45,51 @@ public class ReportEmailSettingService {
         setting.setMonthlyDayOfMonth(payload.getMonthlyDayOfMonth());
         return settingRepository.save(setting);
     }
+
+    @Transactional(readOnly = true)
+    public List<ReportEmailSetting> findDueSettings(LocalDateTime now, boolean defaultTimeReached, Long afterId, int pageSize) {
+        LocalDate today = now.toLocalDate();
+        return settingRepository.findDueSettings(
+                periodStart(ReportPeriod.DAILY, today),
+                periodStart(ReportPeriod.WEEKLY, today),
+                periodStart(ReportPeriod.MONTHLY, today),
+                today.getDayOfWeek().getValue(),
+                today.getDayOfMonth(),
+                today.getDayOfMonth() == today.lengthOfMonth(),
+                now.getHour(),
+                now.getMinute(),
+                defaultTimeReached,
+                afterId,
+                PageRequest.of(0, pageSize));
+    }
+
+    // Đầu kỳ chứa ngày đã cho: đầu ngày, thứ Hai của tuần hoặc ngày 1 của tháng
+    public LocalDateTime periodStart(ReportPeriod period, LocalDate date) {
+        return switch (period) {
+            case DAILY -> date.atStartOfDay();
+            case WEEKLY -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).atStartOfDay();
+            case MONTHLY -> date.withDayOfMonth(1).atStartOfDay();
+        };
+    }
+
+    // Trả về true nếu lần chạy này giành được quyền gửi báo cáo của kỳ
+    @Transactional
+    public boolean claimSend(Long settingId, ReportPeriod period, LocalDateTime sentAt) {
+        LocalDateTime periodStart = periodStart(period, sentAt.toLocalDate());
+        int updated = switch (period) {
+            case DAILY -> settingRepository.claimDaily(settingId, sentAt, periodStart);
+            case WEEKLY -> settingRepository.claimWeekly(settingId, sentAt, periodStart);
+            case MONTHLY -> settingRepository.claimMonthly(settingId, sentAt, periodStart);
+        };
+        return updated == 1;
+    }
+
+    @Transactional
+    public void releaseSend(Long settingId, ReportPeriod period, LocalDateTime sentAt, LocalDateTime previous) {
+        switch (period) {
+            case DAILY -> settingRepository.releaseDaily(settingId, sentAt, previous);
+            case WEEKLY -> settingRepository.releaseWeekly(settingId, sentAt, previous);
+            case MONTHLY -> settingRepository.releaseMonthly(settingId, sentAt, previous);
+        }
+    }
 }
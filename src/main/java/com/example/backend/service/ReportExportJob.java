@@ -0,0 +1,68 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.request.ReportRequest;
+import com.example.backend.enums.ReportExportFormat;
+import com.example.backend.enums.ReportExportJobStatus;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Getter
+public class ReportExportJob {
+
+    private final String id = UUID.randomUUID().toString();
+    private final Long userId;
+    private final ReportRequest request;
+    private final ReportExportFormat format;
+    private final String emailTo;
+    private final String dedupeKey;
+    private final String fileName;
+    private final Instant createdAt = Instant.now();
+    private final AtomicLong processedRows = new AtomicLong();
+
+    private volatile ReportExportJobStatus status = ReportExportJobStatus.QUEUED;
+    private volatile String storedFileName;
+    private volatile String errorMessage;
+    private volatile Instant startedAt;
+    private volatile Instant completedAt;
+    private volatile Instant expiresAt;
+
+    ReportExportJob(Long userId, ReportRequest request, ReportExportFormat format, String emailTo,
+                    String dedupeKey, String fileName) {
+        this.userId = userId;
+        this.request = request;
+        this.format = format;
+        this.emailTo = emailTo;
+        this.dedupeKey = dedupeKey;
+        this.fileName = fileName;
+    }
+
+    void markRunning() {
+        this.startedAt = Instant.now();
+        this.status = ReportExportJobStatus.RUNNING;
+    }
+
+    void markCompleted(String storedFileName, Instant expiresAt) {
+        this.storedFileName = storedFileName;
+        this.completedAt = Instant.now();
+        this.expiresAt = expiresAt;
+        this.status = ReportExportJobStatus.COMPLETED;
+    }
+
+    void markFailed(String errorMessage, Instant expiresAt) {
+        this.errorMessage = errorMessage;
+        this.completedAt = Instant.now();
+        this.expiresAt = expiresAt;
+        this.status = ReportExportJobStatus.FAILED;
+    }
+
+    void incrementProcessedRows() {
+        processedRows.incrementAndGet();
+    }
+
+    boolean isExpired(Instant now) {
+        return expiresAt != null && expiresAt.isBefore(now);
+    }
+}
@@ -0,0 +1,257 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.request.ReportRequest;
+import com.example.backend.dto.response.ReportDataResponse;
+import com.example.backend.dto.response.ReportExportJobResponse;
+import com.example.backend.enums.ReportExportFormat;
+import com.example.backend.enums.ReportExportJobStatus;
+import com.example.backend.exception.BadRequestException;
+import com.example.backend.exception.ResourceNotFoundException;
+import com.example.backend.service.filestorage.FileStorageService;
+import com.example.backend.util.ReportRequestKeys;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+@Slf4j
+public class ReportExportJobService {
+
+    private static final String EMAIL_SUBJECT = "Báo cáo tài chính của bạn";
+    private static final String EMAIL_BODY = "Đính kèm là báo cáo tài chính theo khoảng thời gian bạn đã chọn.";
+
+    private final Map<String, ReportExportJob> jobs = new ConcurrentHashMap<>();
+    // Tác vụ đang chờ hoặc đang chạy theo khóa yêu cầu, để gộp các yêu cầu giống hệt nhau
+    private final Map<String, ReportExportJob> activeJobsByKey = new ConcurrentHashMap<>();
+
+    private final ReportService reportService;
+    private final ExcelService excelService;
+    private final StreamingPDFService streamingPDFService;
+    private final PDFService pdfService;
+    private final EmailService emailService;
+    private final FileStorageService fileStorageService;
+    private final ReportRenderCache reportRenderCache;
+    private final ThreadPoolExecutor executor;
+    private final Duration artifactTtl;
+
+    public ReportExportJobService(ReportService reportService,
+                                  ExcelService excelService,
+                                  StreamingPDFService streamingPDFService,
+                                  PDFService pdfService,
+                                  EmailService emailService,
+                                  FileStorageService fileStorageService,
+                                  ReportRenderCache reportRenderCache,
+                                  @Value("${app.report.export.pool-size:2}") int poolSize,
+                                  @Value("${app.report.export.queue-capacity:20}") int queueCapacity,
+                                  @Value("${app.report.export.artifact-ttl-minutes:60}") long artifactTtlMinutes) {
+        this.reportService = reportService;
+        this.excelService = excelService;
+        this.streamingPDFService = streamingPDFService;
+        this.pdfService = pdfService;
+        this.emailService = emailService;
+        this.fileStorageService = fileStorageService;
+        this.reportRenderCache = reportRenderCache;
+        this.artifactTtl = Duration.ofMinutes(artifactTtlMinutes);
+
+        // Hàng đợi có giới hạn: khi đầy, yêu cầu mới bị từ chối thay vì dồn ứ bộ nhớ
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "report-export-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public ReportExportJobResponse submit(ReportRequest request, Long userId, ReportExportFormat format) {
+        return submit(request, userId, format, null);
+    }
+
+    // Ném RejectedExecutionException khi hàng đợi đã đầy
+    public ReportExportJobResponse submit(ReportRequest request, Long userId, ReportExportFormat format, String emailTo) {
+        String dedupeKey = dedupeKey(request, userId, format, emailTo);
+        ReportExportJob[] created = new ReportExportJob[1];
+        ReportExportJob job = activeJobsByKey.computeIfAbsent(dedupeKey, key -> {
+            created[0] = new ReportExportJob(userId, request, format, emailTo, key,
+                    generateFileName(format));
+            return created[0];
+        });
+
+        if (created[0] == null) {
+            // Đã có tác vụ giống hệt đang chờ hoặc đang chạy
+            return toResponse(job);
+        }
+
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            activeJobsByKey.remove(dedupeKey, job);
+            throw e;
+        }
+        return toResponse(job);
+    }
+
+    public ReportExportJobResponse getJob(String jobId, Long userId) {
+        return toResponse(findOwnedJob(jobId, userId));
+    }
+
+    public ReportExportJob getCompletedJob(String jobId, Long userId) {
+        ReportExportJob job = findOwnedJob(jobId, userId);
+        if (job.getStatus() != ReportExportJobStatus.COMPLETED) {
+            throw new BadRequestException("Báo cáo chưa sẵn sàng để tải xuống");
+        }
+        return job;
+    }
+
+    public Resource loadArtifact(ReportExportJob job) {
+        return fileStorageService.loadReportAsResource(job.getStoredFileName());
+    }
+
+    // Xóa tác vụ và file báo cáo đã quá hạn lưu giữ
+    @Scheduled(fixedDelayString = "${app.report.export.cleanup-interval-ms:300000}")
+    public void cleanupExpired() {
+        Instant now = Instant.now();
+        jobs.values().removeIf(job -> {
+            if (!job.isExpired(now)) {
+                return false;
+            }
+            if (job.getStoredFileName() != null) {
+                try {
+                    fileStorageService.deleteReport(job.getStoredFileName());
+                } catch (RuntimeException e) {
+                    log.warn("Không thể xóa file báo cáo {}: {}", job.getStoredFileName(), e.getMessage());
+                }
+            }
+            return true;
+        });
+
+        try {
+            int orphans = fileStorageService.deleteReportsOlderThan(now.minus(artifactTtl));
+            if (orphans > 0) {
+                log.info("Đã xóa {} file báo cáo quá hạn", orphans);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Lỗi khi dọn thư mục báo cáo: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(ReportExportJob job) {
+        job.markRunning();
+        String storedFileName = fileStorageService.newReportFileName(extensionOf(job.getFormat()));
+        try {
+            try (OutputStream outputStream = new BufferedOutputStream(
+                    Files.newOutputStream(fileStorageService.resolveReportFile(storedFileName)))) {
+                if (job.getEmailTo() != null) {
+                    renderAndEmail(job, outputStream);
+                } else if (job.getFormat() == ReportExportFormat.EXCEL) {
+                    excelService.writeStreamingExcelReport(job.getRequest(), job.getUserId(), outputStream,
+                            job::incrementProcessedRows);
+                } else {
+                    streamingPDFService.writePDFReport(job.getRequest(), job.getUserId(), outputStream,
+                            job::incrementProcessedRows);
+                }
+            }
+            job.markCompleted(storedFileName, Instant.now().plus(artifactTtl));
+        } catch (Exception e) {
+            log.error("Lỗi khi xuất báo cáo (job {}, user {}): {}", job.getId(), job.getUserId(), e.getMessage(), e);
+            try {
+                fileStorageService.deleteReport(storedFileName);
+            } catch (RuntimeException ignored) {
+                // File sẽ được dọn ở lần cleanup kế tiếp
+            }
+            job.markFailed(e.getMessage(), Instant.now().plus(artifactTtl));
+        } finally {
+            activeJobsByKey.remove(job.getDedupeKey(), job);
+        }
+    }
+
+    // Gửi email dùng lại mẫu PDF dạng HTML như các endpoint email trước đây
+    private void renderAndEmail(ReportExportJob job, OutputStream outputStream) throws Exception {
+        byte[] pdfBytes = reportRenderCache.getOrRender(job.getUserId(), job.getRequest(), ReportExportFormat.PDF, () -> {
+            List<ReportDataResponse.TransactionReportData> transactions = new ArrayList<>();
+            ReportDataResponse reportData = reportService.streamReport(job.getRequest(), job.getUserId(), row -> {
+                transactions.add(row);
+                job.incrementProcessedRows();
+            });
+            reportData.setTransactions(transactions);
+            return pdfService.generatePDFReport(reportData);
+        });
+
+        outputStream.write(pdfBytes);
+        emailService.sendEmailWithAttachment(job.getEmailTo(), EMAIL_SUBJECT, EMAIL_BODY, pdfBytes,
+                job.getFileName(), "application/pdf");
+    }
+
+    private ReportExportJob findOwnedJob(String jobId, Long userId) {
+        ReportExportJob job = jobs.get(jobId);
+        if (job == null || !job.getUserId().equals(userId)) {
+            throw new ResourceNotFoundException("Không tìm thấy tác vụ xuất báo cáo");
+        }
+        return job;
+    }
+
+    private ReportExportJobResponse toResponse(ReportExportJob job) {
+        return ReportExportJobResponse.builder()
+                .jobId(job.getId())
+                .status(job.getStatus())
+                .format(job.getFormat())
+                .processedRows(job.getProcessedRows().get())
+                .fileName(job.getFileName())
+                .emailDelivery(job.getEmailTo() != null)
+                .errorMessage(job.getErrorMessage())
+                .createdAt(job.getCreatedAt())
+                .startedAt(job.getStartedAt())
+                .completedAt(job.getCompletedAt())
+                .expiresAt(job.getExpiresAt())
+                .build();
+    }
+
+    private String dedupeKey(ReportRequest request, Long userId, ReportExportFormat format, String emailTo) {
+        return String.join("|",
+                String.valueOf(userId),
+                format.name(),
+                Objects.toString(emailTo, ""),
+                ReportRequestKeys.canonical(request));
+    }
+
+    private String extensionOf(ReportExportFormat format) {
+        return format == ReportExportFormat.EXCEL ? "xlsx" : "pdf";
+    }
+
+    private String generateFileName(ReportExportFormat format) {
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+        return String.format("BaoCaoTaiChinh_%s.%s", timestamp, extensionOf(format));
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.request.ReportRequest;
+import com.example.backend.enums.ReportExportFormat;
+import com.example.backend.event.ReportDataChangedEvent;
+import com.example.backend.service.filestorage.FileStorageService;
+import com.example.backend.util.ReportRequestKeys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Cache nằm trong bộ nhớ của từng instance, nhưng khóa chứa phiên bản dữ liệu lưu trong DB (report_data_versions):
+// thay đổi ghi ở instance nào thì mọi instance cũng đổi khóa ngay sau commit, không phải chờ TTL
+@Service
+@Slf4j
+public class ReportRenderCache {
+
+    private final Map<String, CachedRender> entries = new ConcurrentHashMap<>();
+
+    private final FileStorageService fileStorageService;
+    private final ReportDataVersionService reportDataVersionService;
+    private final boolean enabled;
+    private final int maxEntries;
+    private final Duration ttl;
+    private final Counter hits;
+    private final Counter misses;
+
+    public ReportRenderCache(FileStorageService fileStorageService,
+                             ReportDataVersionService reportDataVersionService,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.report.render-cache.enabled:true}") boolean enabled,
+                             @Value("${app.report.render-cache.max-entries:1000}") int maxEntries,
+                             @Value("${app.report.render-cache.ttl-minutes:60}") long ttlMinutes) {
+        this.fileStorageService = fileStorageService;
+        this.reportDataVersionService = reportDataVersionService;
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+        this.hits = Counter.builder("report.render.cache")
+                .description("Số lần lấy báo cáo đã dựng từ cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("report.render.cache")
+                .description("Số lần lấy báo cáo đã dựng từ cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("report.render.cache.entries", entries, Map::size)
+                .description("Số báo cáo đang được giữ trong cache")
+                .register(meterRegistry);
+    }
+
+    @FunctionalInterface
+    public interface Renderer {
+        byte[] render() throws Exception;
+    }
+
+    // Chỉ cache kỳ đã đóng (kết thúc trước hiện tại); kỳ đang mở luôn được dựng lại
+    public byte[] getOrRender(Long userId, ReportRequest request, ReportExportFormat format, Renderer renderer) throws Exception {
+        if (!enabled || !request.getEndDate().isBefore(LocalDateTime.now())) {
+            return renderer.render();
+        }
+
+        Instant start = request.getStartDate().atZone(ZoneId.systemDefault()).toInstant();
+        Instant end = request.getEndDate().atZone(ZoneId.systemDefault()).toInstant();
+        // Đọc phiên bản trước khi dựng: dữ liệu commit trong lúc dựng đã làm tăng phiên bản nên không dùng lại khóa này
+        String key = cacheKey(userId, request, format, reportDataVersionService.currentVersion(userId, start, end));
+
+        CachedRender cached = entries.get(key);
+        if (cached != null && cached.expiresAt().isAfter(Instant.now())) {
+            try {
+                byte[] bytes = Files.readAllBytes(fileStorageService.resolveReportFile(cached.storedFileName()));
+                hits.increment();
+                return bytes;
+            } catch (IOException e) {
+                // File đã bị dọn khỏi thư mục báo cáo: coi như cache miss
+                entries.remove(key, cached);
+            }
+        }
+
+        misses.increment();
+        byte[] bytes = renderer.render();
+        store(key, userId, start, end, format, bytes);
+        return bytes;
+    }
+
+    // Mục có phiên bản cũ không bao giờ được đọc lại; instance nhận event xóa sớm để giải phóng file
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReportDataChanged(ReportDataChangedEvent event) {
+        entries.entrySet().removeIf(entry -> {
+            CachedRender cached = entry.getValue();
+            if (!cached.userId().equals(event.userId()) || !event.affects(cached.start(), cached.end())) {
+                return false;
+            }
+            deleteQuietly(cached.storedFileName());
+            return true;
+        });
+    }
+
+    private void store(String key, Long userId, Instant start, Instant end, ReportExportFormat format, byte[] bytes) {
+        String storedFileName = "cache-" + key + (format == ReportExportFormat.EXCEL ? ".xlsx" : ".pdf");
+        try {
+            Files.write(fileStorageService.resolveReportFile(storedFileName), bytes);
+        } catch (IOException e) {
+            log.warn("Không thể lưu báo cáo vào cache: {}", e.getMessage());
+            return;
+        }
+
+        entries.put(key, new CachedRender(userId, start, end, storedFileName, Instant.now().plus(ttl)));
+        evictOverflow();
+    }
+
+    // Vượt giới hạn thì bỏ các mục sắp hết hạn nhất
+    private void evictOverflow() {
+        int overflow = entries.size() - maxEntries;
+        if (overflow <= 0) {
+            return;
+        }
+        entries.entrySet().stream()
+                .sorted(Comparator.comparing(entry -> entry.getValue().expiresAt()))
+                .limit(overflow)
+                .toList()
+                .forEach(entry -> {
+                    if (entries.remove(entry.getKey(), entry.getValue())) {
+                        deleteQuietly(entry.getValue().storedFileName());
+                    }
+                });
+    }
+
+    private void deleteQuietly(String storedFileName) {
+        try {
+            fileStorageService.deleteReport(storedFileName);
+        } catch (RuntimeException e) {
+            log.warn("Không thể xóa file cache báo cáo {}: {}", storedFileName, e.getMessage());
+        }
+    }
+
+    // Khóa nội dung: cùng người dùng, định dạng, bộ lọc và phiên bản dữ liệu cho ra cùng một khóa
+    private String cacheKey(Long userId, ReportRequest request, ReportExportFormat format, long dataVersion) {
+        String source = userId + "|" + format.name() + "|" + ReportRequestKeys.canonical(request) + "|" + dataVersion;
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(source.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 không khả dụng", e);
+        }
+    }
+
+    private record CachedRender(Long userId, Instant start, Instant end, String storedFileName, Instant expiresAt) {
+    }
+}
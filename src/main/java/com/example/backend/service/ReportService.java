@@ -1,9 +1,8 @@
 package com.example.backend.service;
 
+import com.example.backend.dto.projection.TransactionReportRow;
 import com.example.backend.dto.request.ReportRequest;
 import com.example.backend.dto.response.ReportDataResponse;
-import com.example.backend.entity.Category;
-import com.example.backend.entity.Transaction;
 import com.example.backend.entity.User;
 import com.example.backend.entity.Wallet;
 import com.example.backend.enums.TransactionType;
@@ -12,6 +11,7 @@ import com.example.backend.repository.UserRepository;
 import com.example.backend.repository.WalletRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -19,7 +19,9 @@ import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -29,36 +31,54 @@ public class ReportService {
     private final UserRepository userRepository;
     private final WalletRepository walletRepository;
 
+    @Transactional(readOnly = true)
     public ReportDataResponse generateReportData(ReportRequest request, Long userId) {
+        List<ReportDataResponse.TransactionReportData> transactionData = new ArrayList<>();
+        ReportDataResponse report = streamReport(request, userId, transactionData::add);
+        report.setTransactions(transactionData);
+        return report;
+    }
+
+    // Đọc giao dịch qua con trỏ, đẩy từng dòng ra rowSink và chỉ giữ lại phần thống kê trong bộ nhớ
+    @Transactional(readOnly = true)
+    public ReportDataResponse streamReport(ReportRequest request, Long userId,
+                                           Consumer<ReportDataResponse.TransactionReportData> rowSink) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy người dùng: " + userId));
 
         // Lấy danh sách ví của người dùng
         List<Wallet> userWallets = walletRepository.findByUserId(userId);
-        
+
         // Lọc theo ví nếu có
-        List<Long> walletIds = request.getWalletIds() != null && !request.getWalletIds().isEmpty() 
-            ? request.getWalletIds() 
+        List<Long> walletIds = request.getWalletIds() != null && !request.getWalletIds().isEmpty()
+            ? request.getWalletIds()
             : userWallets.stream().map(Wallet::getId).collect(Collectors.toList());
 
-        // Lấy tất cả giao dịch trong khoảng thời gian
-        List<Transaction> transactions = getFilteredTransactions(userId, request, walletIds);
-
-        // Tính toán thống kê
-        BigDecimal totalIncome = calculateTotalByType(transactions, TransactionType.INCOME);
-        BigDecimal totalExpense = calculateTotalByType(transactions, TransactionType.EXPENSE);
-        BigDecimal netAmount = totalIncome.subtract(totalExpense);
-
-        // Tạo dữ liệu chi tiết giao dịch
-        List<ReportDataResponse.TransactionReportData> transactionData = transactions.stream()
-                .map(this::mapToTransactionReportData)
-                .collect(Collectors.toList());
+        Instant startDate = request.getStartDate().atZone(ZoneId.systemDefault()).toInstant();
+        Instant endDate = request.getEndDate().atZone(ZoneId.systemDefault()).toInstant();
 
-        // Tạo thống kê theo danh mục
-        List<ReportDataResponse.CategoryReportData> categoryStats = generateCategoryStats(transactions, totalIncome, totalExpense);
+        ReportAccumulator accumulator = new ReportAccumulator();
+        try (Stream<TransactionReportRow> rows = transactionRepository.streamReportRows(
+                userId,
+                startDate,
+                endDate,
+                walletIds,
+                request.getTransactionTypes(),
+                request.getCategoryIds()
+        )) {
+            rows.forEach(row -> {
+                ReportDataResponse.TransactionReportData data = mapToTransactionReportData(row);
+                accumulator.add(data, row.getCategoryId(), row.getWalletId());
+                rowSink.accept(data);
+            });
+        }
 
-        // Tạo thống kê theo ví
-        List<ReportDataResponse.WalletReportData> walletStats = generateWalletStats(transactions, userWallets);
+        BigDecimal totalIncome = accumulator.totalIncome;
+        BigDecimal totalExpense = accumulator.totalExpense;
+        BigDecimal netAmount = totalIncome.subtract(totalExpense);
+        // Số dư hiện tại không thuộc về kỳ đã đóng: báo cáo kỳ đã đóng chỉ phụ thuộc dữ liệu trong kỳ
+        // nên bản đã dựng (ReportRenderCache) không bị cũ khi số dư thay đổi về sau
+        boolean closedPeriod = request.getEndDate().isBefore(LocalDateTime.now());
 
         return ReportDataResponse.builder()
                 .reportTitle("Báo Cáo Tài Chính")
@@ -70,113 +90,121 @@ public class ReportService {
                 .totalIncome(totalIncome)
                 .totalExpense(totalExpense)
                 .netAmount(netAmount)
-                .totalTransactions(transactions.size())
-                .transactions(transactionData)
-                .categoryStats(categoryStats)
-                .walletStats(walletStats)
+                .totalTransactions(accumulator.transactionCount)
+                .transactions(new ArrayList<>())
+                .categoryStats(accumulator.categoryStats())
+                .walletStats(accumulator.walletStats(userWallets, !closedPeriod))
                 .build();
     }
 
-    private List<Transaction> getFilteredTransactions(Long userId, ReportRequest request, List<Long> walletIds) {
-        // Convert LocalDateTime to Instant
-        Instant startDate = request.getStartDate().atZone(ZoneId.systemDefault()).toInstant();
-        Instant endDate = request.getEndDate().atZone(ZoneId.systemDefault()).toInstant();
-        
-        // Tạo query để lấy giao dịch với các điều kiện lọc
-        return transactionRepository.findByUserIdAndDateRangeAndFilters(
-                userId,
-                startDate,
-                endDate,
-                walletIds,
-                request.getTransactionTypes(),
-                request.getCategoryIds()
-        );
-    }
-
-    private BigDecimal calculateTotalByType(List<Transaction> transactions, TransactionType type) {
-        return transactions.stream()
-                .filter(t -> t.getType() == type)
-                .map(Transaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-    }
-
-    private ReportDataResponse.TransactionReportData mapToTransactionReportData(Transaction transaction) {
+    private ReportDataResponse.TransactionReportData mapToTransactionReportData(TransactionReportRow row) {
         return ReportDataResponse.TransactionReportData.builder()
-                .id(transaction.getId())
-                .amount(transaction.getAmount())
-                .type(transaction.getType())
-                .description(transaction.getDescription())
-                .date(transaction.getDate())
-                .categoryName(transaction.getCategory() != null ? transaction.getCategory().getName() : "Không có danh mục")
-                .walletName(transaction.getWallet().getName())
-                .balanceAfterTransaction(transaction.getBalanceAfterTransaction())
+                .id(row.getId())
+                .amount(row.getAmount())
+                .type(row.getType())
+                .description(row.getDescription())
+                .date(row.getDate())
+                .categoryName(row.getCategoryName() != null ? row.getCategoryName() : "Không có danh mục")
+                .walletName(row.getWalletName())
+                .balanceAfterTransaction(row.getBalanceAfterTransaction())
                 .build();
     }
 
-    private List<ReportDataResponse.CategoryReportData> generateCategoryStats(List<Transaction> transactions, 
-                                                                             BigDecimal totalIncome, 
-                                                                             BigDecimal totalExpense) {
-        Map<Long, List<Transaction>> transactionsByCategory = transactions.stream()
-                .filter(t -> t.getCategory() != null)
-                .collect(Collectors.groupingBy(t -> t.getCategory().getId()));
-
-        List<ReportDataResponse.CategoryReportData> categoryStats = new ArrayList<>();
-
-        for (Map.Entry<Long, List<Transaction>> entry : transactionsByCategory.entrySet()) {
-            Long categoryId = entry.getKey();
-            List<Transaction> categoryTransactions = entry.getValue();
-            
-            Category category = categoryTransactions.get(0).getCategory();
-            BigDecimal totalAmount = categoryTransactions.stream()
-                    .map(Transaction::getAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-            
-            TransactionType type = categoryTransactions.get(0).getType();
-            BigDecimal totalForType = type == TransactionType.INCOME ? totalIncome : totalExpense;
-            BigDecimal percentage = totalForType.compareTo(BigDecimal.ZERO) > 0 
-                ? totalAmount.divide(totalForType, 4, RoundingMode.HALF_UP).multiply(new BigDecimal("100"))
-                : BigDecimal.ZERO;
-
-            categoryStats.add(ReportDataResponse.CategoryReportData.builder()
-                    .categoryId(categoryId)
-                    .categoryName(category.getName())
-                    .totalAmount(totalAmount)
-                    .transactionCount(categoryTransactions.size())
-                    .type(type)
-                    .percentage(percentage)
-                    .build());
+    // Cộng dồn thống kê trong một lần duyệt, kết quả giống hệt cách tính trên toàn bộ danh sách trước đây
+    private static class ReportAccumulator {
+
+        private BigDecimal totalIncome = BigDecimal.ZERO;
+        private BigDecimal totalExpense = BigDecimal.ZERO;
+        private int transactionCount;
+        private final Map<Long, CategoryTotals> categories = new LinkedHashMap<>();
+        private final Map<Long, WalletTotals> wallets = new HashMap<>();
+
+        void add(ReportDataResponse.TransactionReportData row, Long categoryId, Long walletId) {
+            transactionCount++;
+            if (row.getType() == TransactionType.INCOME) {
+                totalIncome = totalIncome.add(row.getAmount());
+            } else if (row.getType() == TransactionType.EXPENSE) {
+                totalExpense = totalExpense.add(row.getAmount());
+            }
+
+            if (categoryId != null) {
+                // Tên và loại danh mục lấy theo giao dịch đầu tiên gặp được
+                CategoryTotals category = categories.computeIfAbsent(categoryId,
+                        id -> new CategoryTotals(row.getCategoryName(), row.getType()));
+                category.total = category.total.add(row.getAmount());
+                category.count++;
+            }
+
+            WalletTotals wallet = wallets.computeIfAbsent(walletId, id -> new WalletTotals());
+            if (row.getType() == TransactionType.INCOME) {
+                wallet.income = wallet.income.add(row.getAmount());
+            } else if (row.getType() == TransactionType.EXPENSE) {
+                wallet.expense = wallet.expense.add(row.getAmount());
+            }
+            wallet.count++;
+        }
+
+        List<ReportDataResponse.CategoryReportData> categoryStats() {
+            List<ReportDataResponse.CategoryReportData> categoryStats = new ArrayList<>();
+
+            for (Map.Entry<Long, CategoryTotals> entry : categories.entrySet()) {
+                CategoryTotals category = entry.getValue();
+                BigDecimal totalForType = category.type == TransactionType.INCOME ? totalIncome : totalExpense;
+                BigDecimal percentage = totalForType.compareTo(BigDecimal.ZERO) > 0
+                    ? category.total.divide(totalForType, 4, RoundingMode.HALF_UP).multiply(new BigDecimal("100"))
+                    : BigDecimal.ZERO;
+
+                categoryStats.add(ReportDataResponse.CategoryReportData.builder()
+                        .categoryId(entry.getKey())
+                        .categoryName(category.name)
+                        .totalAmount(category.total)
+                        .transactionCount(category.count)
+                        .type(category.type)
+                        .percentage(percentage)
+                        .build());
+            }
+
+            return categoryStats.stream()
+                    .sorted((a, b) -> b.getTotalAmount().compareTo(a.getTotalAmount()))
+                    .collect(Collectors.toList());
         }
 
-        return categoryStats.stream()
-                .sorted((a, b) -> b.getTotalAmount().compareTo(a.getTotalAmount()))
-                .collect(Collectors.toList());
+        List<ReportDataResponse.WalletReportData> walletStats(List<Wallet> userWallets, boolean includeCurrentBalance) {
+            List<ReportDataResponse.WalletReportData> walletStats = new ArrayList<>();
+
+            for (Wallet wallet : userWallets) {
+                WalletTotals totals = wallets.getOrDefault(wallet.getId(), new WalletTotals());
+
+                walletStats.add(ReportDataResponse.WalletReportData.builder()
+                        .walletId(wallet.getId())
+                        .walletName(wallet.getName())
+                        .totalIncome(totals.income)
+                        .totalExpense(totals.expense)
+                        .netAmount(totals.income.subtract(totals.expense))
+                        .transactionCount(totals.count)
+                        .currentBalance(includeCurrentBalance ? wallet.getBalance() : null)
+                        .build());
+            }
+
+            return walletStats;
+        }
     }
 
-    private List<ReportDataResponse.WalletReportData> generateWalletStats(List<Transaction> transactions, 
-                                                                         List<Wallet> wallets) {
-        Map<Long, List<Transaction>> transactionsByWallet = transactions.stream()
-                .collect(Collectors.groupingBy(t -> t.getWallet().getId()));
-
-        List<ReportDataResponse.WalletReportData> walletStats = new ArrayList<>();
-
-        for (Wallet wallet : wallets) {
-            List<Transaction> walletTransactions = transactionsByWallet.getOrDefault(wallet.getId(), new ArrayList<>());
-            
-            BigDecimal walletIncome = calculateTotalByType(walletTransactions, TransactionType.INCOME);
-            BigDecimal walletExpense = calculateTotalByType(walletTransactions, TransactionType.EXPENSE);
-            BigDecimal walletNetAmount = walletIncome.subtract(walletExpense);
-
-            walletStats.add(ReportDataResponse.WalletReportData.builder()
-                    .walletId(wallet.getId())
-                    .walletName(wallet.getName())
-                    .totalIncome(walletIncome)
-                    .totalExpense(walletExpense)
-                    .netAmount(walletNetAmount)
-                    .transactionCount(walletTransactions.size())
-                    .currentBalance(wallet.getBalance())
-                    .build());
+    private static class CategoryTotals {
+        private final String name;
+        private final TransactionType type;
+        private BigDecimal total = BigDecimal.ZERO;
+        private int count;
+
+        CategoryTotals(String name, TransactionType type) {
+            this.name = name;
+            this.type = type;
         }
+    }
 
-        return walletStats;
+    private static class WalletTotals {
+        private BigDecimal income = BigDecimal.ZERO;
+        private BigDecimal expense = BigDecimal.ZERO;
+        private int count;
     }
 }
@@ -0,0 +1,18 @@
+package com.example.backend.service;
+
+import java.time.Instant;
+import java.util.List;
+
+// Nơi lưu bền danh sách token bị thu hồi, dùng chung giữa các instance
+public interface RevokedTokenStore {
+
+    void save(String tokenDigest, Instant expiresAt);
+
+    // Một trang các bản ghi chưa hết hạn có id > afterId, theo thứ tự id tăng dần (chỉ để phân trang)
+    List<Entry> findUnexpired(long afterId, Instant now, int limit);
+
+    int deleteExpired(Instant now);
+
+    record Entry(long id, String tokenDigest, Instant expiresAt) {
+    }
+}
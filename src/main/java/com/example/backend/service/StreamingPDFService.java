@@ -0,0 +1,213 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.request.ReportRequest;
+import com.example.backend.dto.response.ReportDataResponse;
+import com.itextpdf.html2pdf.resolver.font.DefaultFontProvider;
+import com.itextpdf.kernel.colors.Color;
+import com.itextpdf.kernel.colors.DeviceRgb;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.Cell;
+import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.layout.element.Table;
+import com.itextpdf.layout.font.FontProvider;
+import com.itextpdf.layout.properties.TextAlignment;
+import com.itextpdf.layout.properties.UnitValue;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+@Service
+@RequiredArgsConstructor
+public class StreamingPDFService {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+    private static final DateTimeFormatter DATE_ONLY_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    // Số dòng giữa hai lần flush bảng lớn; các dòng đã flush được ghi ra trang và giải phóng khỏi bộ nhớ
+    private static final int TABLE_FLUSH_INTERVAL = 100;
+
+    // Font Noto đi kèm html2pdf có đủ glyph tiếng Việt, khác với font chuẩn Helvetica
+    private static final String[] FONT_FAMILIES = {"Noto Sans", "sans-serif"};
+
+    private static final Color HEADER_BACKGROUND = new DeviceRgb(0xF8, 0xF9, 0xFA);
+    private static final Color TITLE_COLOR = new DeviceRgb(0x66, 0x7E, 0xEA);
+
+    private static final String[] TRANSACTION_HEADERS = {"Ngày", "Loại", "Số tiền", "Mô tả", "Danh mục", "Ví"};
+    private static final float[] TRANSACTION_COLUMN_WIDTHS = {14, 10, 16, 28, 16, 16};
+
+    private final ReportService reportService;
+
+    // Dựng PDF trực tiếp bằng iText layout: bảng giao dịch được ghi dần theo từng lô,
+    // phần tổng quan đặt cuối tài liệu vì chỉ có sau khi duyệt hết giao dịch
+    @Timed(value = "report.render", extraTags = {"format", "pdf", "mode", "streaming"})
+    public void writePDFReport(ReportRequest request, Long userId, OutputStream outputStream) {
+        writePDFReport(request, userId, outputStream, () -> { });
+    }
+
+    // onRow được gọi sau mỗi dòng giao dịch đã ghi, dùng để báo tiến độ
+    @Timed(value = "report.render", extraTags = {"format", "pdf", "mode", "streaming"})
+    public void writePDFReport(ReportRequest request, Long userId, OutputStream outputStream, Runnable onRow) {
+        PdfWriter writer = new PdfWriter(outputStream);
+        // Không đóng stream của người gọi (response hoặc file đính kèm)
+        writer.setCloseStream(false);
+
+        try (Document document = new Document(new PdfDocument(writer), PageSize.A4)) {
+            document.setFontProvider(createFontProvider());
+            document.setFontFamily(FONT_FAMILIES);
+            document.setFontSize(9);
+
+            document.add(new Paragraph("Báo Cáo Tài Chính")
+                    .setFontSize(20)
+                    .setBold()
+                    .setFontColor(TITLE_COLOR)
+                    .setTextAlignment(TextAlignment.CENTER));
+            document.add(new Paragraph(String.format("Từ ngày %s đến ngày %s",
+                    request.getStartDate().format(DATE_ONLY_FORMATTER),
+                    request.getEndDate().format(DATE_ONLY_FORMATTER)))
+                    .setTextAlignment(TextAlignment.CENTER));
+
+            document.add(sectionTitle("Chi Tiết Giao Dịch"));
+
+            Table transactionTable = new Table(UnitValue.createPercentArray(TRANSACTION_COLUMN_WIDTHS), true)
+                    .setWidth(UnitValue.createPercentValue(100));
+            for (String header : TRANSACTION_HEADERS) {
+                transactionTable.addHeaderCell(headerCell(header));
+            }
+            document.add(transactionTable);
+
+            int[] rowCount = {0};
+            ReportDataResponse reportData = reportService.streamReport(request, userId, transaction -> {
+                transactionTable.addCell(dataCell(convertInstantToLocalDateTime(transaction.getDate()).format(DATE_FORMATTER)));
+                transactionTable.addCell(dataCell(transaction.getType().toString()));
+                transactionTable.addCell(dataCell(formatCurrency(transaction.getAmount())));
+                transactionTable.addCell(dataCell(transaction.getDescription()));
+                transactionTable.addCell(dataCell(transaction.getCategoryName()));
+                transactionTable.addCell(dataCell(transaction.getWalletName()));
+                if (++rowCount[0] % TABLE_FLUSH_INTERVAL == 0) {
+                    transactionTable.flush();
+                }
+                onRow.run();
+            });
+            transactionTable.complete();
+
+            if (rowCount[0] == 0) {
+                document.add(new Paragraph("Không có giao dịch"));
+            }
+
+            addSummarySection(document, reportData);
+            addCategoryStatsSection(document, reportData);
+            addWalletStatsSection(document, reportData);
+        }
+    }
+
+    private void addSummarySection(Document document, ReportDataResponse reportData) {
+        document.add(sectionTitle("Tổng Quan Tài Chính"));
+
+        Table table = new Table(UnitValue.createPercentArray(new float[]{40, 60}))
+                .setWidth(UnitValue.createPercentValue(100));
+        addInfoRow(table, "Người dùng:", reportData.getUserName());
+        addInfoRow(table, "Email:", reportData.getUserEmail());
+        addInfoRow(table, "Ngày tạo:", reportData.getGeneratedAt().format(DATE_FORMATTER));
+        addInfoRow(table, "Tổng thu nhập:", formatCurrency(reportData.getTotalIncome()));
+        addInfoRow(table, "Tổng chi tiêu:", formatCurrency(reportData.getTotalExpense()));
+        addInfoRow(table, "Số dư ròng:", formatCurrency(reportData.getNetAmount()));
+        addInfoRow(table, "Tổng giao dịch:", String.valueOf(reportData.getTotalTransactions()));
+        document.add(table);
+    }
+
+    private void addCategoryStatsSection(Document document, ReportDataResponse reportData) {
+        document.add(sectionTitle("Thống Kê Theo Danh Mục"));
+        if (reportData.getCategoryStats().isEmpty()) {
+            document.add(new Paragraph("Không có dữ liệu"));
+            return;
+        }
+
+        Table table = new Table(UnitValue.createPercentArray(new float[]{30, 15, 25, 15, 15}))
+                .setWidth(UnitValue.createPercentValue(100));
+        for (String header : new String[]{"Danh mục", "Loại", "Tổng tiền", "Số GD", "Tỷ lệ %"}) {
+            table.addHeaderCell(headerCell(header));
+        }
+        for (ReportDataResponse.CategoryReportData category : reportData.getCategoryStats()) {
+            table.addCell(dataCell(category.getCategoryName()));
+            table.addCell(dataCell(category.getType().toString()));
+            table.addCell(dataCell(formatCurrency(category.getTotalAmount())));
+            table.addCell(dataCell(String.valueOf(category.getTransactionCount())));
+            table.addCell(dataCell(String.format("%.2f%%", category.getPercentage().doubleValue())));
+        }
+        document.add(table);
+    }
+
+    private void addWalletStatsSection(Document document, ReportDataResponse reportData) {
+        document.add(sectionTitle("Thống Kê Theo Ví"));
+        if (reportData.getWalletStats().isEmpty()) {
+            document.add(new Paragraph("Không có dữ liệu"));
+            return;
+        }
+
+        Table table = new Table(UnitValue.createPercentArray(new float[]{20, 16, 16, 16, 12, 20}))
+                .setWidth(UnitValue.createPercentValue(100));
+        for (String header : new String[]{"Tên ví", "Thu nhập", "Chi tiêu", "Số dư ròng", "Số GD", "Số dư hiện tại"}) {
+            table.addHeaderCell(headerCell(header));
+        }
+        for (ReportDataResponse.WalletReportData wallet : reportData.getWalletStats()) {
+            table.addCell(dataCell(wallet.getWalletName()));
+            table.addCell(dataCell(formatCurrency(wallet.getTotalIncome())));
+            table.addCell(dataCell(formatCurrency(wallet.getTotalExpense())));
+            table.addCell(dataCell(formatCurrency(wallet.getNetAmount())));
+            table.addCell(dataCell(String.valueOf(wallet.getTransactionCount())));
+            table.addCell(dataCell(formatBalance(wallet.getCurrentBalance())));
+        }
+        document.add(table);
+    }
+
+    private void addInfoRow(Table table, String label, String value) {
+        table.addCell(dataCell(label).setBold());
+        table.addCell(dataCell(value));
+    }
+
+    private Paragraph sectionTitle(String title) {
+        return new Paragraph(title)
+                .setFontSize(14)
+                .setBold()
+                .setMarginTop(16);
+    }
+
+    private Cell headerCell(String text) {
+        return new Cell()
+                .add(new Paragraph(text))
+                .setBold()
+                .setBackgroundColor(HEADER_BACKGROUND);
+    }
+
+    private Cell dataCell(String text) {
+        return new Cell().add(new Paragraph(text != null ? text : ""));
+    }
+
+    private FontProvider createFontProvider() {
+        // Chỉ nạp font đi kèm thư viện, không quét font hệ thống
+        return new DefaultFontProvider(false, true, false);
+    }
+
+    private String formatCurrency(BigDecimal amount) {
+        return String.format("%,.0f VND", amount.doubleValue());
+    }
+
+    // Báo cáo kỳ đã đóng không có số dư hiện tại
+    private String formatBalance(BigDecimal balance) {
+        return balance != null ? formatCurrency(balance) : "-";
+    }
+
+    private LocalDateTime convertInstantToLocalDateTime(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+}
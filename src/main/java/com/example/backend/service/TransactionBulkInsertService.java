@@ -0,0 +1,49 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.Transaction;
+import com.example.backend.repository.TransactionRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Service
+@Slf4j
+public class TransactionBulkInsertService {
+
+    private final TransactionRepository transactionRepository;
+    private final TransactionRollupService transactionRollupService;
+    private final int batchSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public TransactionBulkInsertService(TransactionRepository transactionRepository,
+                                        TransactionRollupService transactionRollupService,
+                                        @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+        this.transactionRepository = transactionRepository;
+        this.transactionRollupService = transactionRollupService;
+        this.batchSize = batchSize;
+    }
+
+    // Chèn theo từng lô bằng JDBC batch và cập nhật rollup theo lô.
+    // Persistence context được flush và clear sau mỗi lô để bộ nhớ không tăng theo số dòng,
+    // nên người gọi không nên dùng tiếp các entity đã được quản lý trước khi gọi.
+    // Không cập nhật số dư ví: dùng cho dữ liệu nhập sẵn có balanceAfterTransaction.
+    @Transactional
+    public int insertAll(List<Transaction> transactions) {
+        for (int from = 0; from < transactions.size(); from += batchSize) {
+            List<Transaction> chunk = transactions.subList(from, Math.min(from + batchSize, transactions.size()));
+            transactionRepository.saveAll(chunk);
+            transactionRollupService.recordAll(chunk);
+            entityManager.flush();
+            entityManager.clear();
+        }
+        log.debug("Đã chèn {} giao dịch theo lô {}", transactions.size(), batchSize);
+        return transactions.size();
+    }
+}
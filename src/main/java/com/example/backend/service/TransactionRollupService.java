@@ -0,0 +1,157 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.projection.RollupSourceRow;
+import com.example.backend.entity.Transaction;
+import com.example.backend.entity.TransactionRollup;
+import com.example.backend.enums.TransactionType;
+import com.example.backend.event.ReportDataChangedEvent;
+import com.example.backend.repository.TransactionRepository;
+import com.example.backend.repository.TransactionRollupRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TransactionRollupService {
+
+    private final TransactionRollupRepository transactionRollupRepository;
+    private final TransactionRepository transactionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public static LocalDate toRollupDate(Instant date) {
+        return date.atZone(ZoneOffset.UTC).toLocalDate();
+    }
+
+    // Gọi trong cùng transaction với thao tác ghi giao dịch
+    @Transactional
+    public void record(Transaction transaction) {
+        apply(transaction, transaction.getAmount(), 1);
+    }
+
+    // Ghi nhiều giao dịch: gộp theo khóa rollup để mỗi khóa chỉ cần một câu upsert
+    @Transactional
+    public void recordAll(Collection<Transaction> transactions) {
+        Map<RollupKey, BigDecimal> amounts = new HashMap<>();
+        Map<RollupKey, Long> counts = new HashMap<>();
+        Map<Long, Set<Instant>> datesByUser = new HashMap<>();
+        for (Transaction transaction : transactions) {
+            Long userId = transaction.getUser().getId();
+            RollupKey key = new RollupKey(userId, transaction.getWallet().getId(),
+                    transaction.getCategory() != null ? transaction.getCategory().getId() : TransactionRollup.NO_CATEGORY,
+                    transaction.getType(), toRollupDate(transaction.getDate()));
+            amounts.merge(key, transaction.getAmount(), BigDecimal::add);
+            counts.merge(key, 1L, Long::sum);
+            datesByUser.computeIfAbsent(userId, id -> new HashSet<>()).add(transaction.getDate());
+        }
+
+        amounts.forEach((key, amount) -> transactionRollupRepository.upsert(key.userId(), key.walletId(), key.categoryId(),
+                key.type().name(), key.rollupDate(), amount, counts.get(key)));
+
+        // Cùng một thời điểm (ví dụ ba bản ghi của một lần chuyển tiền) thì báo đúng ngày, còn lại báo mọi kỳ
+        datesByUser.forEach((userId, dates) -> eventPublisher.publishEvent(dates.size() == 1
+                ? new ReportDataChangedEvent(userId, dates.iterator().next())
+                : ReportDataChangedEvent.allPeriods(userId)));
+    }
+
+    // Gọi trước khi giao dịch bị sửa hoặc xóa, khi các giá trị cũ vẫn còn nguyên
+    @Transactional
+    public void revert(Transaction transaction) {
+        apply(transaction, transaction.getAmount().negate(), -1);
+    }
+
+    @Transactional
+    public void removeWallet(Long walletId) {
+        touchWallet(walletId);
+        transactionRollupRepository.deleteByWalletId(walletId);
+    }
+
+    // Tên ví hoặc danh mục thay đổi: báo cáo đã dựng của những người có giao dịch liên quan không còn đúng.
+    // Không để readOnly vì event làm tăng phiên bản dữ liệu báo cáo trong cùng transaction
+    @Transactional
+    public void touchWallet(Long walletId) {
+        transactionRollupRepository.findDistinctUserIdsByWalletId(walletId)
+                .forEach(userId -> eventPublisher.publishEvent(ReportDataChangedEvent.allPeriods(userId)));
+    }
+
+    @Transactional
+    public void touchCategory(Long categoryId) {
+        transactionRollupRepository.findDistinctUserIdsByCategoryId(categoryId)
+                .forEach(userId -> eventPublisher.publishEvent(ReportDataChangedEvent.allPeriods(userId)));
+    }
+
+    // Danh mục bị xóa: giao dịch chuyển về "không danh mục" nên dồn rollup sang category_id = 0
+    @Transactional
+    public void detachCategory(Long categoryId) {
+        touchCategory(categoryId);
+        List<TransactionRollup> rows = transactionRollupRepository.findByCategoryId(categoryId);
+        for (TransactionRollup row : rows) {
+            transactionRollupRepository.upsert(row.getUserId(), row.getWalletId(), TransactionRollup.NO_CATEGORY,
+                    row.getType().name(), row.getRollupDate(), row.getTotalAmount(), row.getTransactionCount());
+        }
+        transactionRollupRepository.deleteByCategoryId(categoryId);
+    }
+
+    @Transactional
+    public void rebuildForUser(Long userId) {
+        Map<RollupKey, TransactionRollup> rollups = new HashMap<>();
+        for (RollupSourceRow row : transactionRepository.findRollupSourceByUserId(userId)) {
+            RollupKey key = new RollupKey(userId, row.getWalletId(),
+                    row.getCategoryId() != null ? row.getCategoryId() : TransactionRollup.NO_CATEGORY,
+                    row.getType(), toRollupDate(row.getDate()));
+            TransactionRollup rollup = rollups.computeIfAbsent(key, k -> TransactionRollup.builder()
+                    .userId(userId)
+                    .walletId(k.walletId())
+                    .categoryId(k.categoryId())
+                    .type(k.type())
+                    .rollupDate(k.rollupDate())
+                    .totalAmount(BigDecimal.ZERO)
+                    .transactionCount(0L)
+                    .build());
+            rollup.setTotalAmount(rollup.getTotalAmount().add(row.getAmount()));
+            rollup.setTransactionCount(rollup.getTransactionCount() + 1);
+        }
+
+        transactionRollupRepository.deleteByUserId(userId);
+        transactionRollupRepository.saveAll(rollups.values());
+        eventPublisher.publishEvent(ReportDataChangedEvent.allPeriods(userId));
+    }
+
+    @Transactional
+    public void rebuildAll() {
+        List<Long> userIds = transactionRepository.findDistinctUserIds();
+        log.info("Rebuilding transaction rollup for {} users", userIds.size());
+        transactionRollupRepository.deleteAllInBatch();
+        userIds.forEach(this::rebuildForUser);
+    }
+
+    private void apply(Transaction transaction, BigDecimal amount, long count) {
+        Long categoryId = transaction.getCategory() != null ? transaction.getCategory().getId() : TransactionRollup.NO_CATEGORY;
+        transactionRollupRepository.upsert(
+                transaction.getUser().getId(),
+                transaction.getWallet().getId(),
+                categoryId,
+                transaction.getType().name(),
+                toRollupDate(transaction.getDate()),
+                amount,
+                count);
+        eventPublisher.publishEvent(new ReportDataChangedEvent(transaction.getUser().getId(), transaction.getDate()));
+    }
+
+    private record RollupKey(Long userId, Long walletId, Long categoryId, TransactionType type, LocalDate rollupDate) {
+    }
+}
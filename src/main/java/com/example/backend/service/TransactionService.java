@@ -1,6 +1,8 @@
 package com.example.backend.service;
 
+import com.example.backend.dto.projection.TransactionListingRow;
 import com.example.backend.dto.request.TransactionRequest;
+import com.example.backend.dto.response.TransactionCursorStatisticResponse;
 import com.example.backend.dto.response.TransactionResponse;
 import com.example.backend.dto.response.TransactionStatisticResponse;
 import com.example.backend.entity.Category;
@@ -10,25 +12,25 @@ import com.example.backend.entity.Wallet;
 import com.example.backend.enums.TransactionType;
 import com.example.backend.exception.BadRequestException;
 import com.example.backend.exception.ResourceNotFoundException;
+import com.example.backend.mapper.TransactionResponseMapper;
 import com.example.backend.repository.CategoryRepository;
 import com.example.backend.repository.TransactionRepository;
+import com.example.backend.repository.TransactionRollupRepository;
+import com.example.backend.repository.TransactionSpecifications;
 import com.example.backend.repository.UserRepository;
 import com.example.backend.repository.WalletRepository;
+import com.example.backend.util.TransactionCursor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.*;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -38,12 +40,19 @@ public class TransactionService {
     private final WalletRepository walletRepository;
     private final UserRepository userRepository;
     private final CategoryRepository categoryRepository;
+    private final TransactionRollupRepository transactionRollupRepository;
     private final NotificationService notificationService;
+    private final TransactionRollupService transactionRollupService;
+    private final WalletBalanceService walletBalanceService;
+    private final TransactionResponseMapper transactionResponseMapper;
     // reverted: keep dependencies minimal
     // no-op
 
-    @Transactional
     public TransactionResponse createTransaction(TransactionRequest request, Long userId) {
+        return walletBalanceService.executeWithRetry(() -> doCreateTransaction(request, userId));
+    }
+
+    private TransactionResponse doCreateTransaction(TransactionRequest request, Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy người dùng: " + userId));
 
@@ -56,21 +65,18 @@ public class TransactionService {
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy danh mục: " + request.getCategoryId()));
 
         BigDecimal amount = request.getAmount();
-        BigDecimal newBalance;
 
         if (request.getType() == TransactionType.INCOME) {
-            newBalance = wallet.getBalance().add(amount);
+            walletBalanceService.adjust(wallet.getId(), amount);
         } else if (request.getType() == TransactionType.EXPENSE) {
-            newBalance = wallet.getBalance().subtract(amount);
-            if (newBalance.compareTo(BigDecimal.ZERO) < 0) {
+            if (!walletBalanceService.tryDebit(wallet.getId(), amount)) {
                 throw new BadRequestException("Số dư không đủ.");
             }
         } else {
             throw new BadRequestException("Loại giao dịch không hợp lệ.");
         }
 
-        wallet.setBalance(newBalance);
-        walletRepository.save(wallet);
+        BigDecimal newBalance = walletBalanceService.getBalance(wallet.getId());
 
         Transaction transaction = Transaction.builder()
                 .amount(amount)
@@ -84,44 +90,45 @@ public class TransactionService {
                 .build();
 
         Transaction savedTransaction = transactionRepository.save(transaction);
+        transactionRollupService.record(savedTransaction);
 
         boolean budgetExceeded = checkBudgetAndCreateNotification(user, category);
 
-        TransactionResponse response = mapToTransactionResponse(savedTransaction);
+        TransactionResponse response = transactionResponseMapper.toResponse(savedTransaction);
         response.setBudgetExceeded(budgetExceeded);
 
         return response;
     }
 
     public List<TransactionResponse> getTransactions(Long userId, String type, Long categoryId, LocalDate date, int limit) {
-        Pageable pageable = PageRequest.of(0, limit, Sort.by(Sort.Direction.DESC, "date", "id"));
-        List<Transaction> transactions;
-
-        Instant startOfDay = (date != null) ? date.atStartOfDay(ZoneOffset.UTC).toInstant() : null;
-        Instant endOfDay = (date != null) ? date.atTime(LocalTime.MAX).atZone(ZoneOffset.UTC).toInstant() : null;
-
-        if (startOfDay != null && categoryId != null) {
-            transactions = transactionRepository.findByUser_IdAndCategoryIdAndDateBetweenOrderByDateDescIdDesc(userId, categoryId, startOfDay, endOfDay, pageable);
-        } else if (startOfDay != null) {
-            transactions = transactionRepository.findByUser_IdAndDateBetweenOrderByDateDescIdDesc(userId, startOfDay, endOfDay, pageable);
-        } else if (categoryId != null) {
-            transactions = transactionRepository.findByWallet_User_IdAndCategoryId(userId, categoryId, pageable);
-        } else if ("transfer".equalsIgnoreCase(type)) {
-            transactions = transactionRepository.findTransferTransactionsByUserId(userId, pageable);
-        } else if (type != null && !type.isBlank()) {
-            transactions = transactionRepository.findByWallet_User_IdAndType(userId, TransactionType.valueOf(type.toUpperCase()), pageable);
-        } else {
-            List<TransactionType> types = List.of(TransactionType.INCOME, TransactionType.EXPENSE);
-            transactions = transactionRepository.findByWallet_User_IdAndTypeInAndCategoryIsNotNull(userId, types, pageable);
+        // Lọc theo user_id của giao dịch thay vì join qua wallet.user
+        Specification<Transaction> filters = Specification.allOf(
+                TransactionSpecifications.belongsToUser(userId),
+                TransactionSpecifications.inCategory(categoryId));
+
+        if (date != null) {
+            Instant startOfDay = date.atStartOfDay(ZoneOffset.UTC).toInstant();
+            Instant endOfDay = date.atTime(LocalTime.MAX).atZone(ZoneOffset.UTC).toInstant();
+            filters = filters.and(TransactionSpecifications.dateFrom(startOfDay))
+                    .and(TransactionSpecifications.dateTo(endOfDay));
+        } else if (categoryId == null) {
+            if (type != null && !type.isBlank()) {
+                filters = filters.and(TransactionSpecifications.hasType(TransactionType.valueOf(type.toUpperCase())));
+            } else {
+                filters = filters.and(TransactionSpecifications.hasTypes(List.of(TransactionType.INCOME, TransactionType.EXPENSE)))
+                        .and(TransactionSpecifications.hasCategory());
+            }
         }
 
-        return transactions.stream()
-                .map(this::mapToTransactionResponse)
-                .collect(Collectors.toList());
+        List<TransactionListingRow> rows = transactionRepository.findListingRows(filters, limit);
+        return transactionResponseMapper.toListingResponses(rows);
     }
 
-    @Transactional
     public TransactionResponse updateTransaction(Long transactionId, TransactionRequest request, Long userId) {
+        return walletBalanceService.executeWithRetry(() -> doUpdateTransaction(transactionId, request, userId));
+    }
+
+    private TransactionResponse doUpdateTransaction(Long transactionId, TransactionRequest request, Long userId) {
         Transaction transaction = transactionRepository.findById(transactionId)
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy giao dịch: " + transactionId));
 
@@ -129,35 +136,32 @@ public class TransactionService {
 
         // Revert: bỏ kiểm tra quyền phòng vệ theo yêu cầu khôi phục
 
+        transactionRollupService.revert(transaction);
+
         Wallet oldWallet = transaction.getWallet();
         BigDecimal oldAmount = transaction.getAmount();
         TransactionType oldType = transaction.getType();
         Category oldCategory = transaction.getCategory();
 
         if (oldType == TransactionType.INCOME) {
-            oldWallet.setBalance(oldWallet.getBalance().subtract(oldAmount));
+            walletBalanceService.adjust(oldWallet.getId(), oldAmount.negate());
         } else { // EXPENSE
-            oldWallet.setBalance(oldWallet.getBalance().add(oldAmount));
+            walletBalanceService.adjust(oldWallet.getId(), oldAmount);
         }
 
         Wallet newWallet = walletRepository.findById(request.getWalletId())
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy ví mới: " + request.getWalletId()));
 
-        if (!Objects.equals(oldWallet.getId(), newWallet.getId())) {
-            walletRepository.save(oldWallet);
-        }
-
         Category newCategory = categoryRepository.findById(request.getCategoryId())
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy danh mục mới: " + request.getCategoryId()));
 
         BigDecimal newAmount = request.getAmount();
         TransactionType newType = request.getType();
         if (newType == TransactionType.INCOME) {
-            newWallet.setBalance(newWallet.getBalance().add(newAmount));
+            walletBalanceService.adjust(newWallet.getId(), newAmount);
         } else { // EXPENSE
-            newWallet.setBalance(newWallet.getBalance().subtract(newAmount));
+            walletBalanceService.adjust(newWallet.getId(), newAmount.negate());
         }
-        walletRepository.save(newWallet);
 
         transaction.setAmount(newAmount);
         transaction.setType(newType);
@@ -167,20 +171,24 @@ public class TransactionService {
         transaction.setDate(request.getDate());
 
         Transaction updatedTransaction = transactionRepository.save(transaction);
+        transactionRollupService.record(updatedTransaction);
 
         boolean budgetExceeded = checkBudgetAndCreateNotification(user, newCategory);
         if(!Objects.equals(oldCategory.getId(), newCategory.getId())) {
             checkBudgetAndCreateNotification(user, oldCategory);
         }
 
-        TransactionResponse response = mapToTransactionResponse(updatedTransaction);
+        TransactionResponse response = transactionResponseMapper.toResponse(updatedTransaction);
         response.setBudgetExceeded(budgetExceeded);
 
         return response;
     }
 
-    @Transactional
     public void deleteTransaction(Long transactionId, Long userId) {
+        walletBalanceService.executeWithRetry(() -> doDeleteTransaction(transactionId, userId));
+    }
+
+    private void doDeleteTransaction(Long transactionId, Long userId) {
         Transaction transaction = transactionRepository.findById(transactionId)
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy giao dịch: " + transactionId));
 
@@ -192,12 +200,12 @@ public class TransactionService {
         User user = transaction.getUser();
 
         if (transaction.getType() == TransactionType.INCOME) {
-            wallet.setBalance(wallet.getBalance().subtract(amount));
+            walletBalanceService.adjust(wallet.getId(), amount.negate());
         } else { // EXPENSE
-            wallet.setBalance(wallet.getBalance().add(amount));
+            walletBalanceService.adjust(wallet.getId(), amount);
         }
 
-        walletRepository.save(wallet);
+        transactionRollupService.revert(transaction);
         transactionRepository.delete(transaction);
 
         if (category != null) {
@@ -208,10 +216,8 @@ public class TransactionService {
     private boolean checkBudgetAndCreateNotification(User user, Category category) {
         if (category != null && category.getBudgetAmount() != null && category.getBudgetAmount().compareTo(BigDecimal.ZERO) > 0) {
             YearMonth currentMonth = YearMonth.now();
-            Instant startDate = currentMonth.atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC);
-            Instant endDate = currentMonth.atEndOfMonth().atTime(23, 59, 59).toInstant(ZoneOffset.UTC);
-
-            BigDecimal totalSpent = transactionRepository.sumExpensesByCategoryIdAndDateRange(category.getId(), startDate, endDate);
+            BigDecimal totalSpent = transactionRollupRepository.sumAmountByCategoryIdAndTypeAndDateBetween(
+                    category.getId(), TransactionType.EXPENSE, currentMonth.atDay(1), currentMonth.atEndOfMonth());
 
             if (totalSpent != null && totalSpent.compareTo(category.getBudgetAmount()) >= 0) {
                 notificationService.createBudgetExceededNotification(user, category.getName());
@@ -221,36 +227,6 @@ public class TransactionService {
         return false;
     }
 
-    private TransactionResponse mapToTransactionResponse(Transaction transaction) {
-        BigDecimal amount = transaction.getAmount() == null ? BigDecimal.ZERO : transaction.getAmount().abs();
-
-        TransactionResponse.TransactionResponseBuilder builder = TransactionResponse.builder()
-                .id(transaction.getId())
-                .amount(amount)
-                .type(transaction.getType())
-                .description(transaction.getDescription())
-                .date(transaction.getDate())
-                .categoryId(transaction.getCategory() != null ? transaction.getCategory().getId() : null)
-                .category(transaction.getCategory() != null ? transaction.getCategory().getName() : null)
-                .walletId(transaction.getWallet() != null ? transaction.getWallet().getId() : null)
-                .walletName(transaction.getWallet() != null ? transaction.getWallet().getName() : null);
-
-        if (transaction.getType() == TransactionType.TRANSFER) {
-            Long fromWalletId = transaction.getFromWalletId();
-            Long toWalletId = transaction.getToWalletId();
-
-            if (fromWalletId != null && toWalletId != null) {
-                List<Long> walletIds = List.of(fromWalletId, toWalletId);
-                Map<Long, String> walletNames = walletRepository.findAllById(walletIds).stream()
-                        .collect(Collectors.toMap(Wallet::getId, Wallet::getName));
-
-                builder.fromWalletName(walletNames.get(fromWalletId));
-                builder.toWalletName(walletNames.get(toWalletId));
-            }
-        }
-        return builder.build();
-    }
-
     public List<TransactionResponse> getTransactionsByCategoryId(Long categoryId, Long userId) {
         Category category = categoryRepository.findById(categoryId)
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy danh mục với ID: " + categoryId));
@@ -259,12 +235,10 @@ public class TransactionService {
         }
 
         List<Transaction> transactions = transactionRepository.findByCategoryIdOrderByDateDescIdDesc(categoryId);
-        return transactions.stream()
-                .map(this::mapToTransactionResponse)
-                .collect(Collectors.toList());
+        return transactionResponseMapper.toResponses(transactions);
     }
 
-    private TransactionStatisticResponse getTransactionStatistics(Long userId, Long walletId, LocalDateTime startDateTime, LocalDateTime endDateTime, Pageable pageable, BigDecimal minAmount, BigDecimal maxAmount) {
+    private void checkStatisticsWalletAccess(Long userId, Long walletId) {
         if (walletId != null) {
             Wallet wallet = walletRepository.findById(walletId)
                     .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy ví với ID: " + walletId));
@@ -272,18 +246,19 @@ public class TransactionService {
                 throw new AccessDeniedException("Bạn không có quyền truy cập ví này.");
             }
         }
+    }
+
+    private TransactionStatisticResponse getTransactionStatistics(Long userId, Long walletId, LocalDateTime startDateTime, LocalDateTime endDateTime, Pageable pageable, BigDecimal minAmount, BigDecimal maxAmount) {
+        checkStatisticsWalletAccess(userId, walletId);
 
         Instant startDate = (startDateTime != null) ? startDateTime.toInstant(ZoneOffset.UTC) : null;
         Instant endDate = (endDateTime != null) ? endDateTime.toInstant(ZoneOffset.UTC) : null;
 
-        Page<Transaction> transactionsPage = transactionRepository.getTransactionStatistics(userId, walletId, startDate, endDate, minAmount, maxAmount, pageable);
-        BigDecimal totalAmount = transactionRepository.sumAmountForStatistics(userId, walletId, startDate, endDate, minAmount, maxAmount);
-
-        if (totalAmount == null) {
-            totalAmount = BigDecimal.ZERO;
-        }
+        Specification<Transaction> filters = TransactionSpecifications.statistics(userId, walletId, startDate, endDate, minAmount, maxAmount);
+        Page<Transaction> transactionsPage = transactionRepository.findAll(filters.and(TransactionSpecifications.fetchWalletAndCategory()), pageable);
+        BigDecimal totalAmount = transactionRepository.sumSignedAmount(filters);
 
-        Page<TransactionResponse> transactionResponsesPage = transactionsPage.map(this::mapToTransactionResponse);
+        Page<TransactionResponse> transactionResponsesPage = transactionResponseMapper.toResponses(transactionsPage);
 
         return new TransactionStatisticResponse(transactionResponsesPage, totalAmount);
     }
@@ -309,4 +284,33 @@ public class TransactionService {
     public TransactionStatisticResponse getTransactionsByWalletIdAndTime(Long userId, Long walletId, LocalDateTime startDate, LocalDateTime endDate, Pageable pageable, BigDecimal minAmount, BigDecimal maxAmount) {
         return getTransactionStatistics(userId, walletId, startDate, endDate, pageable, minAmount, maxAmount);
     }
-}
\ No newline at end of file
+
+    // Phân trang keyset: chi phí mỗi trang không phụ thuộc độ sâu; tổng số và tổng tiền chỉ tính khi includeTotal
+    public TransactionCursorStatisticResponse getTransactionsByCursor(Long userId, Long walletId, LocalDateTime startDateTime, LocalDateTime endDateTime,
+                                                                      BigDecimal minAmount, BigDecimal maxAmount,
+                                                                      String cursor, int size, boolean includeTotal) {
+        checkStatisticsWalletAccess(userId, walletId);
+
+        Instant startDate = (startDateTime != null) ? startDateTime.toInstant(ZoneOffset.UTC) : null;
+        Instant endDate = (endDateTime != null) ? endDateTime.toInstant(ZoneOffset.UTC) : null;
+        TransactionCursor position = TransactionCursor.decode(cursor);
+        int pageSize = TransactionCursor.clampSize(size);
+
+        Specification<Transaction> filters = TransactionSpecifications.statistics(userId, walletId, startDate, endDate, minAmount, maxAmount);
+        List<Transaction> rows = transactionRepository.findBy(
+                filters.and(TransactionSpecifications.before(position)).and(TransactionSpecifications.fetchWalletAndCategory()),
+                query -> query.sortBy(TransactionCursor.ORDER).limit(pageSize + 1).all());
+
+        Long totalElements = null;
+        BigDecimal totalAmount = null;
+        if (includeTotal) {
+            totalElements = transactionRepository.count(filters);
+            totalAmount = transactionRepository.sumSignedAmount(filters);
+        }
+
+        return TransactionCursorStatisticResponse.builder()
+                .transactions(TransactionCursor.toPage(rows, pageSize, transactionResponseMapper::toResponses, totalElements))
+                .totalAmount(totalAmount)
+                .build();
+    }
+}
@@ -14,6 +14,7 @@ import com.example.backend.repository.UserRepository;
 import com.example.backend.repository.UserSettingsRepository;
 import com.example.backend.repository.VerificationTokenRepository;
 import com.example.backend.security.CustomUserDetails;
+import com.example.backend.security.UserDetailsCache;
 import com.example.backend.service.filestorage.FileStorageService;
 import com.example.backend.util.JwtUtil;
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -73,6 +74,8 @@ public class UserService {
     private FileStorageService fileStorageService;
     @Autowired
     private WebClient.Builder webClientBuilder;
+    @Autowired
+    private UserDetailsCache userDetailsCache;
 
     // Lấy giá trị từ application.properties
     @Value("${spring.security.oauth2.client.registration.google.client-id}")
@@ -141,6 +144,7 @@ public class UserService {
         User user = verificationToken.getUser();
         user.setStatus(UserStatus.ACTIVE);
         userRepository.save(user);
+        userDetailsCache.invalidate(user.getEmail());
 
         verificationToken.setUsed(true);
         verificationTokenRepository.save(verificationToken);
@@ -167,6 +171,7 @@ public class UserService {
         User user = verificationToken.getUser();
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        userDetailsCache.invalidate(user.getEmail());
 
         verificationToken.setUsed(true);
         verificationTokenRepository.save(verificationToken);
@@ -179,12 +184,16 @@ public class UserService {
         }
         currentUser.setPassword(passwordEncoder.encode(request.getNewPassword()));
         userRepository.save(currentUser);
+        userDetailsCache.invalidate(currentUser.getEmail());
     }
 
     public UserResponse updateProfile(UpdateProfileRequest request) {
         User currentUser = getCurrentUser();
+        String previousEmail = currentUser.getEmail();
         userMapper.updateUserFromRequest(request, currentUser);
         User updatedUser = userRepository.save(currentUser);
+        userDetailsCache.invalidate(previousEmail);
+        userDetailsCache.invalidate(updatedUser.getEmail());
         return userMapper.toUserResponse(updatedUser);
     }
 
@@ -210,6 +219,7 @@ public class UserService {
         User currentUser = getCurrentUser();
         currentUser.setStatus(UserStatus.DELETED);
         userRepository.save(currentUser);
+        userDetailsCache.invalidate(currentUser.getEmail());
     }
 
     private User getCurrentUser() {
@@ -325,7 +335,9 @@ public class UserService {
             existingUser.setFirstName(userInfo.getGivenName());
             existingUser.setLastName(userInfo.getFamilyName());
             existingUser.setAvatarUrl(userInfo.getPicture());
-            return userRepository.save(existingUser);
+            User savedUser = userRepository.save(existingUser);
+            userDetailsCache.invalidate(savedUser.getEmail());
+            return savedUser;
         } else {
             // Tạo user mới
             User newUser = new User();
@@ -0,0 +1,85 @@
+package com.example.backend.service;
+
+import com.example.backend.repository.WalletRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WalletBalanceService {
+
+    private final WalletRepository walletRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.wallet.balance.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${app.wallet.balance.retry-backoff-ms:50}")
+    private long retryBackoffMs;
+
+    // Chạy action trong một transaction mới, thử lại khi xung đột version/khóa (deadlock, optimistic lock)
+    public <T> T executeWithRetry(Supplier<T> action) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // Đã nằm trong transaction của caller: không thể thử lại riêng phần này
+            return action.get();
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> action.get());
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                log.warn("Wallet balance conflict, retrying (attempt {}/{}): {}", attempt, maxAttempts, e.getMessage());
+                backoff(attempt);
+            }
+        }
+    }
+
+    public void executeWithRetry(Runnable action) {
+        executeWithRetry(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    // Các thao tác dưới đây là UPDATE nguyên tử trên DB: không đọc-sửa-ghi số dư trong Java.
+    // Entity Wallet đang được quản lý không bị sửa nên Hibernate không ghi đè số dư cũ lên DB.
+
+    public void adjust(Long walletId, BigDecimal delta) {
+        walletRepository.addToBalance(walletId, delta);
+    }
+
+    public boolean tryDebit(Long walletId, BigDecimal amount) {
+        return walletRepository.addToBalanceIfNotNegative(walletId, amount.negate()) > 0;
+    }
+
+    public boolean tryCredit(Long walletId, BigDecimal amount, BigDecimal maxBalance) {
+        return walletRepository.addToBalanceIfNotAbove(walletId, amount, maxBalance) > 0;
+    }
+
+    public BigDecimal getBalance(Long walletId) {
+        return walletRepository.findBalanceById(walletId);
+    }
+
+    private void backoff(int attempt) {
+        long delay = retryBackoffMs * attempt + ThreadLocalRandom.current().nextLong(retryBackoffMs + 1);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Bị gián đoạn khi chờ thử lại giao dịch ví", e);
+        }
+    }
+}
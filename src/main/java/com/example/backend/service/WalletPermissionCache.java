@@ -0,0 +1,72 @@
+package com.example.backend.service;
+
+import com.example.backend.enums.PermissionType;
+import com.example.backend.repository.WalletPermissionRepository;
+import com.example.backend.repository.WalletRepository;
+import com.example.backend.util.TransactionCallbacks;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+@Component
+public class WalletPermissionCache {
+
+    private final WalletRepository walletRepository;
+    private final WalletPermissionRepository walletPermissionRepository;
+    private final Cache<Key, WalletAccess> cache;
+
+    public WalletPermissionCache(WalletRepository walletRepository,
+                                 WalletPermissionRepository walletPermissionRepository,
+                                 @Value("${app.permission.cache.max-size:10000}") long maxSize,
+                                 @Value("${app.permission.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.walletRepository = walletRepository;
+        this.walletPermissionRepository = walletPermissionRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    public WalletAccess get(Long walletId, Long userId) {
+        return cache.get(new Key(walletId, userId), this::load);
+    }
+
+    // Xóa ngay và xóa lại sau commit: tránh request song song nạp lại dữ liệu cũ trước khi transaction commit
+    public void invalidate(Long walletId, Long userId) {
+        Key key = new Key(walletId, userId);
+        cache.invalidate(key);
+        TransactionCallbacks.afterCommit(() -> cache.invalidate(key));
+    }
+
+    public void invalidateWallet(Long walletId) {
+        Runnable evict = () -> cache.asMap().keySet().removeIf(key -> key.walletId().equals(walletId));
+        evict.run();
+        TransactionCallbacks.afterCommit(evict);
+    }
+
+    private WalletAccess load(Key key) {
+        boolean owner = walletRepository.existsByIdAndUserId(key.walletId(), key.userId());
+        EnumSet<PermissionType> permissions = EnumSet.noneOf(PermissionType.class);
+        if (!owner) {
+            List<PermissionType> granted = walletPermissionRepository.findGrantedPermissionTypes(key.walletId(), key.userId());
+            permissions.addAll(granted);
+        }
+        return new WalletAccess(owner, permissions);
+    }
+
+    private record Key(Long walletId, Long userId) {
+    }
+
+    public record WalletAccess(boolean owner, Set<PermissionType> permissions) {
+
+        public boolean hasPermission(PermissionType permissionType) {
+            return owner || permissions.contains(permissionType);
+        }
+    }
+}
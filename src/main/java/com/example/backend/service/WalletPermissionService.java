@@ -1,5 +1,6 @@
 package com.example.backend.service;
 
+import com.example.backend.dto.projection.GrantedPermissionRow;
 import com.example.backend.dto.request.AssignPermissionRequest;
 import com.example.backend.dto.response.PermissionResponse;
 import com.example.backend.dto.response.UserWalletPermissionsResponse;
@@ -21,6 +22,7 @@ import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -31,6 +33,7 @@ public class WalletPermissionService {
     private final WalletPermissionRepository walletPermissionRepository;
     private final WalletShareRepository walletShareRepository;
     private final WalletService walletService;
+    private final WalletPermissionCache walletPermissionCache;
 
 
     @Transactional
@@ -59,6 +62,7 @@ public class WalletPermissionService {
                 .collect(Collectors.toList());
 
         List<WalletPermission> savedPermissions = walletPermissionRepository.saveAll(permissions);
+        walletPermissionCache.invalidate(walletId, userId);
 
         log.info("Đã gán {} quyền cho user {} với ví {} bởi user {}",
                 permissions.size(), userId, walletId, ownerId);
@@ -78,18 +82,23 @@ public class WalletPermissionService {
 
     public List<UserWalletPermissionsResponse> getUserWalletPermissions(Long userId) {
         List<WalletShare> walletShares = walletShareRepository.findBySharedWithUserIdAndStatus(userId, InvitationStatus.ACCEPTED);
+        if (walletShares.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // Quyền của mọi lượt chia sẻ được lấy bằng một truy vấn thay vì một truy vấn cho mỗi ví
+        Map<Long, List<PermissionType>> permissionsByShareId = walletPermissionRepository
+                .findGrantedPermissionsByWalletShareIdIn(walletShares.stream().map(WalletShare::getId).toList())
+                .stream()
+                .collect(Collectors.groupingBy(GrantedPermissionRow::getWalletShareId,
+                        Collectors.mapping(GrantedPermissionRow::getPermissionType, Collectors.toList())));
 
         return walletShares.stream()
                 .map(ws -> {
-                    List<WalletPermission> permissions = walletPermissionRepository
-                            .findByWalletShareIdAndIsGrantedTrue(ws.getId());
-
-                    List<PermissionType> permissionTypes = permissions.stream()
-                            .map(WalletPermission::getPermissionType)
-                            .collect(Collectors.toList());
+                    List<PermissionType> permissionTypes = permissionsByShareId.getOrDefault(ws.getId(), List.of());
 
-                    List<String> displayNames = permissions.stream()
-                            .map(p -> p.getPermissionType().getDisplayName())
+                    List<String> displayNames = permissionTypes.stream()
+                            .map(PermissionType::getDisplayName)
                             .collect(Collectors.toList());
 
                     User owner = ws.getOwner();
@@ -122,16 +131,18 @@ public class WalletPermissionService {
 
         permission.setIsGranted(false);
         walletPermissionRepository.save(permission);
+        walletPermissionCache.invalidate(walletId, userId);
 
         log.info("Đã thu hồi quyền {} của user {} với ví {} bởi user {}",
                 permissionType.getDisplayName(), userId, walletId, ownerId);
     }
 
     public boolean hasPermission(Long walletId, Long userId, PermissionType permissionType) {
-        if (walletService.isWalletOwner(walletId, userId)) {
-            return true;
-        }
-        return walletPermissionRepository.hasPermission(walletId, userId, permissionType);
+        return walletPermissionCache.get(walletId, userId).hasPermission(permissionType);
+    }
+
+    public boolean isWalletOwner(Long walletId, Long userId) {
+        return walletPermissionCache.get(walletId, userId).owner();
     }
 
     @Transactional
@@ -155,6 +166,7 @@ public class WalletPermissionService {
                 .collect(Collectors.toList());
 
         walletPermissionRepository.saveAll(permissions);
+        walletPermissionCache.invalidate(walletShare.getWallet().getId(), walletShare.getSharedWithUser().getId());
 
         log.info("Đã gán {} quyền mặc định cho wallet share {}",
                 permissions.size(), walletShare.getId());
@@ -12,9 +12,11 @@ import com.example.backend.exception.BadRequestException;
 import com.example.backend.exception.ResourceNotFoundException;
 import com.example.backend.mapper.WalletMapper;
 import com.example.backend.repository.*;
+import com.example.backend.util.TransactionCursor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -39,6 +41,10 @@ public class WalletService {
     private final UserSettingsRepository userSettingsRepository;
     private final TransactionRepository transactionRepository;
     private final WalletPermissionRepository walletPermissionRepository;
+    private final TransactionRollupRepository transactionRollupRepository;
+    private final TransactionRollupService transactionRollupService;
+    private final WalletBalanceService walletBalanceService;
+    private final WalletPermissionCache walletPermissionCache;
 
     @Transactional
     public WalletResponse createWallet(CreateWalletRequest request, Long userId) {
@@ -53,8 +59,11 @@ public class WalletService {
         return walletMapper.toWalletResponse(savedWallet);
     }
 
-    @Transactional
     public TransactionResponse addMoney(Long walletId, AddMoneyRequest request, Long userId) {
+        return walletBalanceService.executeWithRetry(() -> doAddMoney(walletId, request, userId));
+    }
+
+    private TransactionResponse doAddMoney(Long walletId, AddMoneyRequest request, Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with id: " + userId));
 
@@ -63,17 +72,14 @@ public class WalletService {
 
         checkIfWalletIsArchived(wallet);
 
-        BigDecimal newBalance = wallet.getBalance().add(request.getAmount());
-
-        // Kiểm tra giới hạn số dư ví tối đa 999 tỉ
+        // Kiểm tra giới hạn số dư ví tối đa 999 tỉ ngay trong câu UPDATE
         BigDecimal maxBalance = new BigDecimal("999000000000");
-        if (newBalance.compareTo(maxBalance) > 0) {
+        if (!walletBalanceService.tryCredit(walletId, request.getAmount(), maxBalance)) {
+            BigDecimal rejectedBalance = walletBalanceService.getBalance(walletId).add(request.getAmount());
             throw new BadRequestException(String.format("Số dư ví sau khi nạp sẽ là %s VND, vượt quá giới hạn %s VND (999 tỉ)",
-                newBalance.toPlainString(), maxBalance.toPlainString()));
+                rejectedBalance.toPlainString(), maxBalance.toPlainString()));
         }
-
-        wallet.setBalance(newBalance);
-        walletRepository.save(wallet);
+        BigDecimal newBalance = walletBalanceService.getBalance(walletId);
 
         String finalDescription = String.format("Nạp tiền qua %s%s",
                 request.getMethod(),
@@ -90,6 +96,7 @@ public class WalletService {
                 .build();
 
         Transaction savedTransaction = transactionRepository.save(transaction);
+        transactionRollupService.record(savedTransaction);
 
         return TransactionResponse.builder()
                 .id(savedTransaction.getId())
@@ -128,7 +135,7 @@ public class WalletService {
         return wallets.stream()
                 .map(wallet -> {
                     WalletResponse response = walletMapper.toWalletResponse(wallet);
-                    BigDecimal totalDeposited = transactionRepository.calculateTotalByWalletIdAndType(wallet.getId(), TransactionType.INCOME);
+                    BigDecimal totalDeposited = transactionRollupRepository.sumAmountByWalletIdAndType(wallet.getId(), TransactionType.INCOME);
                     if (totalDeposited != null) {
                         response.setTotalDeposited(totalDeposited);
                     }
@@ -137,13 +144,19 @@ public class WalletService {
                 .collect(Collectors.toList());
     }
 
-    @Transactional
     public WalletResponse updateWallet(Long walletId, UpdateWalletRequest request, Long userId) {
+        return walletBalanceService.executeWithRetry(() -> doUpdateWallet(walletId, request));
+    }
+
+    private WalletResponse doUpdateWallet(Long walletId, UpdateWalletRequest request) {
         Wallet wallet = walletRepository.findById(walletId)
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy ví với ID: " + walletId));
 
         checkIfWalletIsArchived(wallet);
 
+        if (!Objects.equals(wallet.getName(), request.getName())) {
+            transactionRollupService.touchWallet(walletId);
+        }
         wallet.setName(request.getName());
         wallet.setIcon(request.getIcon());
         wallet.setDescription(request.getDescription());
@@ -168,15 +181,15 @@ public class WalletService {
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy ví với ID: " + walletId));
 
         YearMonth currentMonth = YearMonth.now();
-        Instant startOfMonth = currentMonth.atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC);
-        Instant endOfMonth = currentMonth.atEndOfMonth().atTime(23, 59, 59).toInstant(ZoneOffset.UTC);
+        LocalDate startOfMonth = currentMonth.atDay(1);
+        LocalDate endOfMonth = currentMonth.atEndOfMonth();
 
-        BigDecimal monthlyIncome = transactionRepository.sumAmountByWalletIdAndTypeAndDateBetween(walletId, TransactionType.INCOME, startOfMonth, endOfMonth);
-        BigDecimal monthlyExpense = transactionRepository.sumAmountByWalletIdAndTypeAndDateBetween(walletId, TransactionType.EXPENSE, startOfMonth, endOfMonth);
+        BigDecimal monthlyIncome = transactionRollupRepository.sumAmountByWalletIdAndTypeAndDateBetween(walletId, TransactionType.INCOME, startOfMonth, endOfMonth);
+        BigDecimal monthlyExpense = transactionRollupRepository.sumAmountByWalletIdAndTypeAndDateBetween(walletId, TransactionType.EXPENSE, startOfMonth, endOfMonth);
         BigDecimal netChange = monthlyIncome.subtract(monthlyExpense);
 
         List<BalanceHistoryResponse> balanceHistory = getBalanceHistory(walletId, "30d");
-        List<CategorySpendingResponse> expenseByCategory = transactionRepository.findExpenseByWalletIdAndDateRange(walletId, startOfMonth, endOfMonth);
+        List<CategorySpendingResponse> expenseByCategory = transactionRollupRepository.findExpenseByWalletIdAndDateRange(walletId, startOfMonth, endOfMonth);
 
         return WalletDetailResponse.builder()
                 .wallet(walletMapper.toWalletResponse(wallet))
@@ -231,7 +244,25 @@ public class WalletService {
 
     public Page<TransactionResponse> getTransactionsByWalletId(Long walletId, Pageable pageable) {
         Page<Transaction> transactions = transactionRepository.findByWalletId(walletId, pageable);
-        return transactions.map(transaction -> TransactionResponse.builder()
+        return transactions.map(this::toTransactionResponse);
+    }
+
+    public CursorPageResponse<TransactionResponse> getTransactionsByWalletIdCursor(Long walletId, String cursor, int size, boolean includeTotal) {
+        TransactionCursor position = TransactionCursor.decode(cursor);
+        int pageSize = TransactionCursor.clampSize(size);
+        Specification<Transaction> specification = Specification.allOf(
+                TransactionSpecifications.inWallet(walletId),
+                TransactionSpecifications.before(position),
+                TransactionSpecifications.fetchWalletAndCategory());
+        List<Transaction> rows = transactionRepository.findBy(specification,
+                query -> query.sortBy(TransactionCursor.ORDER).limit(pageSize + 1).all());
+        Long totalElements = includeTotal ? transactionRepository.countByWalletId(walletId) : null;
+        return TransactionCursor.toPage(rows, pageSize,
+                pageRows -> pageRows.stream().map(this::toTransactionResponse).toList(), totalElements);
+    }
+
+    private TransactionResponse toTransactionResponse(Transaction transaction) {
+        return TransactionResponse.builder()
                 .id(transaction.getId())
                 .amount(transaction.getAmount())
                 .type(transaction.getType())
@@ -240,7 +271,7 @@ public class WalletService {
                 .category(transaction.getCategory() != null ? transaction.getCategory().getName() : null)
                 .walletId(transaction.getWallet().getId())
                 .walletName(transaction.getWallet().getName())
-                .build());
+                .build();
     }
 
     public List<BalanceHistoryResponse> getBalanceHistory(Long walletId, String period) {
@@ -297,29 +328,29 @@ public class WalletService {
         checkIfWalletIsArchived(walletToDelete);
 
         transactionRepository.deleteByWalletId(walletId);
+        transactionRollupService.removeWallet(walletId);
 
-        List<UserSettings> settingsToUpdate = userSettingsRepository.findByCurrentWalletId(walletId);
+        List<UserSettings> settingsToUpdate = userSettingsRepository.findByCurrentWallet_Id(walletId);
         settingsToUpdate.forEach(setting -> setting.setCurrentWallet(null));
         userSettingsRepository.saveAll(settingsToUpdate);
 
         walletShareRepository.deleteByWalletId(walletId);
         walletRepository.delete(walletToDelete);
+        walletPermissionCache.invalidateWallet(walletId);
     }
 
-    @Transactional
     public WalletResponse archiveWallet(Long walletId, Long userId) {
-        Wallet wallet = walletRepository.findById(walletId)
-                .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy ví với ID: " + walletId));
-        wallet.setArchived(true);
-        Wallet savedWallet = walletRepository.save(wallet);
-        return walletMapper.toWalletResponse(savedWallet);
+        return walletBalanceService.executeWithRetry(() -> setArchived(walletId, true));
     }
 
-    @Transactional
     public WalletResponse unarchiveWallet(Long walletId, Long userId) {
+        return walletBalanceService.executeWithRetry(() -> setArchived(walletId, false));
+    }
+
+    private WalletResponse setArchived(Long walletId, boolean archived) {
         Wallet wallet = walletRepository.findById(walletId)
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy ví với ID: " + walletId));
-        wallet.setArchived(false);
+        wallet.setArchived(archived);
         Wallet savedWallet = walletRepository.save(wallet);
         return walletMapper.toWalletResponse(savedWallet);
     }
@@ -33,6 +33,7 @@ public class WalletShareService {
     private final UserRepository userRepository;
     private final EmailService emailService;
     private final WalletPermissionService walletPermissionService;
+    private final WalletPermissionCache walletPermissionCache;
 
     @Transactional
     public ShareWalletResponse shareWallet(ShareWalletRequest request, Long ownerId) {
@@ -160,6 +161,7 @@ public class WalletShareService {
     public void revokeWalletShareById(Long shareId, Long ownerId) {
         WalletShare walletShare = walletShareRepository.findByIdAndOwnerId(shareId, ownerId)
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy chia sẻ ví với ID: " + shareId + " hoặc bạn không có quyền."));
+        walletPermissionCache.invalidate(walletShare.getWallet().getId(), walletShare.getSharedWithUser().getId());
 
         if (walletShare.getStatus() == InvitationStatus.PENDING) {
             walletShare.setStatus(InvitationStatus.REVOKED);
@@ -185,6 +187,7 @@ public class WalletShareService {
         }
 
         walletPermissionService.deleteAllPermissionsByWalletShareId(walletShare.getId());
+        walletPermissionCache.invalidate(walletShare.getWallet().getId(), walletShare.getSharedWithUser().getId());
         walletShare.setPermissionLevel(newPermission);
         WalletShare updatedWalletShare = walletShareRepository.save(walletShare);
         walletPermissionService.assignDefaultPermissions(updatedWalletShare);
@@ -258,6 +261,7 @@ public class WalletShareService {
         walletPermissionService.deleteAllPermissionsByWalletShareId(walletShare.getId());
 
         walletShareRepository.delete(walletShare);
+        walletPermissionCache.invalidate(walletId, userId);
 
         log.info("Đã xóa hoàn toàn chia sẻ ví '{}' với user ID '{}' bởi owner ID '{}'",
                 walletShare.getWallet().getName(), userId, ownerId);
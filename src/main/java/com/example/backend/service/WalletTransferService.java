@@ -13,11 +13,15 @@ import com.example.backend.repository.UserRepository;
 import com.example.backend.repository.WalletRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -26,30 +30,42 @@ public class WalletTransferService {
     private final WalletRepository walletRepository;
     private final TransactionRepository transactionRepository;
     private final UserRepository userRepository;
+    private final TransactionRollupService transactionRollupService;
+    private final WalletBalanceService walletBalanceService;
 
-    @Transactional
     public WalletTransferResponse transferMoney(Long userId, WalletTransferRequest request) {
         if (request.getFromWalletId().equals(request.getToWalletId())) {
             throw new IllegalArgumentException("Không thể chuyển tiền trong cùng một ví.");
         }
+        return walletBalanceService.executeWithRetry(() -> doTransferMoney(userId, request));
+    }
+
+    private WalletTransferResponse doTransferMoney(Long userId, WalletTransferRequest request) {
 
         User currentUser = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        Wallet fromWallet = walletRepository.findById(request.getFromWalletId())
+        // Khóa cả hai ví theo thứ tự id: A→B và B→A đồng thời sẽ xếp hàng thay vì deadlock
+        Map<Long, Wallet> lockedWallets = walletRepository
+                .findAllByIdForUpdate(List.of(request.getFromWalletId(), request.getToWalletId())).stream()
+                .collect(Collectors.toMap(Wallet::getId, Function.identity()));
+
+        Wallet fromWallet = Optional.ofNullable(lockedWallets.get(request.getFromWalletId()))
                 .orElseThrow(() -> new WalletNotFoundException("Không tìm thấy ví nguồn."));
 
-        Wallet toWallet = walletRepository.findById(request.getToWalletId())
+        Wallet toWallet = Optional.ofNullable(lockedWallets.get(request.getToWalletId()))
                 .orElseThrow(() -> new WalletNotFoundException("Không tìm thấy ví đích."));
 
-        if (fromWallet.getBalance().compareTo(request.getAmount()) < 0) {
-            throw new InsufficientBalanceException("Số dư ví nguồn không đủ.");
-        }
-
         if (!fromWallet.getCurrency().equals(toWallet.getCurrency())) {
             throw new IllegalArgumentException("Chỉ có thể chuyển tiền giữa các ví cùng loại tiền tệ.");
         }
 
+        // Trừ tiền có điều kiện ngay trên DB để hai lần chuyển đồng thời không cùng vượt số dư
+        if (!walletBalanceService.tryDebit(fromWallet.getId(), request.getAmount())) {
+            throw new InsufficientBalanceException("Số dư ví nguồn không đủ.");
+        }
+        walletBalanceService.adjust(toWallet.getId(), request.getAmount());
+
         Instant transactionTime = (request.getDate() != null) ? request.getDate() : Instant.now();
 
         // 1. Tạo giao dịch cha (meta-transaction)
@@ -63,11 +79,10 @@ public class WalletTransferService {
                 .toWalletId(toWallet.getId())
                 .date(transactionTime)
                 .build();
-        Transaction savedParent = transactionRepository.save(parentTransaction);
 
         // 2. Tạo giao dịch con EXPENSE
         Transaction expenseTransaction = Transaction.builder()
-                .parentTransaction(savedParent)
+                .parentTransaction(parentTransaction)
                 .user(currentUser)
                 .wallet(fromWallet)
                 .type(TransactionType.EXPENSE)
@@ -78,7 +93,7 @@ public class WalletTransferService {
 
         // 3. Tạo giao dịch con INCOME
         Transaction incomeTransaction = Transaction.builder()
-                .parentTransaction(savedParent)
+                .parentTransaction(parentTransaction)
                 .user(toWallet.getUser())
                 .wallet(toWallet)
                 .type(TransactionType.INCOME)
@@ -87,19 +102,15 @@ public class WalletTransferService {
                 .date(transactionTime)
                 .build();
 
-        transactionRepository.save(expenseTransaction);
-        transactionRepository.save(incomeTransaction);
-
-        // 4. Cập nhật số dư
-        fromWallet.setBalance(fromWallet.getBalance().subtract(request.getAmount()));
-        toWallet.setBalance(toWallet.getBalance().add(request.getAmount()));
-        walletRepository.save(fromWallet);
-        walletRepository.save(toWallet);
+        // Lưu cả ba bản ghi cùng lúc để Hibernate gom vào một JDBC batch
+        List<Transaction> transferTransactions = transactionRepository.saveAll(
+                List.of(parentTransaction, expenseTransaction, incomeTransaction));
+        transactionRollupService.recordAll(transferTransactions);
 
         return WalletTransferResponse.builder()
                 .message("Chuyển tiền thành công")
-                .fromWalletBalance(fromWallet.getBalance())
-                .toWalletBalance(toWallet.getBalance())
+                .fromWalletBalance(walletBalanceService.getBalance(fromWallet.getId()))
+                .toWalletBalance(walletBalanceService.getBalance(toWallet.getId()))
                 .transferTime(LocalDateTime.now())
                 .success(true)
                 .build();
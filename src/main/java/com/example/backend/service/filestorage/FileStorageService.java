@@ -1,27 +1,36 @@
 package com.example.backend.service.filestorage;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.time.Instant;
 import java.util.UUID;
 
 @Service
 public class FileStorageService {
 
     private final Path fileStorageLocation;
+    // Thư mục riêng cho file báo cáo, không nằm dưới thư mục upload đang được phục vụ công khai
+    private final Path reportStorageLocation;
 
-    public FileStorageService(@Value("${file.upload-dir}") String uploadDir) {
+    public FileStorageService(@Value("${file.upload-dir}") String uploadDir,
+                              @Value("${file.report-dir}") String reportDir) {
         this.fileStorageLocation = Paths.get(uploadDir).toAbsolutePath().normalize();
+        this.reportStorageLocation = Paths.get(reportDir).toAbsolutePath().normalize();
         try {
             Files.createDirectories(this.fileStorageLocation);
+            Files.createDirectories(this.reportStorageLocation);
         } catch (Exception ex) {
             throw new RuntimeException("Could not create the directory where the uploaded files will be stored.", ex);
         }
@@ -54,4 +63,48 @@ public class FileStorageService {
             throw new RuntimeException("Could not store file " + originalFileName + ". Please try again!", ex);
         }
     }
-}
\ No newline at end of file
+
+    public String newReportFileName(String extension) {
+        return UUID.randomUUID() + "." + extension;
+    }
+
+    public Path resolveReportFile(String fileName) {
+        Path target = this.reportStorageLocation.resolve(fileName).normalize();
+        if (!target.startsWith(this.reportStorageLocation)) {
+            throw new RuntimeException("Sorry! Filename contains invalid path sequence " + fileName);
+        }
+        return target;
+    }
+
+    public Resource loadReportAsResource(String fileName) {
+        Path target = resolveReportFile(fileName);
+        if (!Files.exists(target)) {
+            throw new RuntimeException("Report file not found " + fileName);
+        }
+        return new FileSystemResource(target);
+    }
+
+    public void deleteReport(String fileName) {
+        try {
+            Files.deleteIfExists(resolveReportFile(fileName));
+        } catch (IOException ex) {
+            throw new RuntimeException("Could not delete report file " + fileName, ex);
+        }
+    }
+
+    // Dọn các file báo cáo cũ còn sót lại, kể cả file của tác vụ trước khi khởi động lại ứng dụng
+    public int deleteReportsOlderThan(Instant cutoff) {
+        int deleted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(this.reportStorageLocation)) {
+            for (Path file : files) {
+                if (Files.isRegularFile(file) && Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)) {
+                    Files.deleteIfExists(file);
+                    deleted++;
+                }
+            }
+        } catch (IOException ex) {
+            throw new RuntimeException("Could not clean up report files", ex);
+        }
+        return deleted;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.backend.util;
+
+import com.example.backend.dto.request.ReportRequest;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+public final class ReportRequestKeys {
+
+    private ReportRequestKeys() {
+    }
+
+    // Chuỗi chuẩn hóa của bộ lọc báo cáo: hai yêu cầu cùng nội dung cho ra cùng một chuỗi
+    public static String canonical(ReportRequest request) {
+        return String.join("|",
+                String.valueOf(request.getStartDate()),
+                String.valueOf(request.getEndDate()),
+                sortedKey(request.getWalletIds()),
+                sortedKey(request.getTransactionTypes()),
+                sortedKey(request.getCategoryIds()),
+                Objects.toString(request.getReportFormat(), ""));
+    }
+
+    private static String sortedKey(List<?> values) {
+        if (values == null) {
+            return "";
+        }
+        return values.stream()
+                .map(String::valueOf)
+                .sorted()
+                .distinct()
+                .collect(Collectors.joining(","));
+    }
+}
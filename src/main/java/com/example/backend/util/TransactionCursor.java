@@ -0,0 +1,62 @@
+package com.example.backend.util;
+
+import com.example.backend.dto.response.CursorPageResponse;
+import com.example.backend.entity.Transaction;
+import com.example.backend.exception.BadRequestException;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+// Vị trí keyset (transaction_date, id) của dòng cuối trang, mã hóa base64 để client coi là chuỗi mờ
+public record TransactionCursor(Instant date, Long id) {
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    // Thứ tự khớp với index (..., transaction_date, id) và điều kiện keyset
+    public static final Sort ORDER = Sort.by(Sort.Direction.DESC, "date").and(Sort.by(Sort.Direction.DESC, "id"));
+
+    public static int clampSize(int size) {
+        return Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+    }
+
+    // rows được truy vấn với size + 1 dòng: dòng dư chỉ dùng để biết còn trang sau
+    public static <R> CursorPageResponse<R> toPage(List<Transaction> rows, int size,
+                                                   Function<List<Transaction>, List<R>> mapper, Long totalElements) {
+        boolean hasNext = rows.size() > size;
+        List<Transaction> pageRows = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            Transaction last = pageRows.get(pageRows.size() - 1);
+            nextCursor = new TransactionCursor(last.getDate(), last.getId()).encode();
+        }
+        return CursorPageResponse.<R>builder()
+                .content(mapper.apply(pageRows))
+                .size(pageRows.size())
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .totalElements(totalElements)
+                .build();
+    }
+
+    public String encode() {
+        String raw = date.toString() + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static TransactionCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new TransactionCursor(Instant.parse(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Cursor phân trang không hợp lệ");
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.backend.controller;
+
+import com.example.backend.entity.Category;
+import com.example.backend.entity.ReportEmailSetting;
+import com.example.backend.entity.User;
+import com.example.backend.entity.Wallet;
+import com.example.backend.entity.WalletShare;
+import com.example.backend.enums.TransactionType;
+import com.example.backend.metrics.QueryCounter;
+import com.example.backend.security.CustomUserDetails;
+import com.example.backend.service.ReportEmailSettingService;
+import com.example.backend.service.WalletSelectionService;
+import com.example.backend.support.TestDataFactory;
+import org.hibernate.LazyInitializationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+// open-in-view tắt trong application.properties nên mọi truy cập quan hệ lazy ngoài transaction của service đều ném
+// LazyInitializationException thay vì âm thầm mở thêm câu SQL lúc serialize. Số câu SQL của mỗi endpoint được đo hai lần, trước và sau khi
+// tăng gấp nhiều lần số ví chia sẻ và giao dịch: nếu có N+1 thì lần đo sau sẽ lớn hơn
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestDataFactory.class)
+class LazyLoadingEndpointsTest {
+
+    // Trần tuyệt đối cho một request, kể cả kiểm tra quyền và truy vấn đếm tổng
+    private static final long MAX_QUERIES_PER_REQUEST = 12;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TestDataFactory testData;
+
+    @Autowired
+    private QueryCounter queryCounter;
+
+    @Autowired
+    private WalletSelectionService walletSelectionService;
+
+    @Autowired
+    private ReportEmailSettingService reportEmailSettingService;
+
+    private User owner;
+    private User member;
+    private Category food;
+    private Category salary;
+    private final List<Wallet> wallets = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        owner = testData.createUser();
+        member = testData.createUser();
+        food = testData.createCategory(owner, "Ăn uống");
+        salary = testData.createCategory(owner, "Lương");
+        addSharedWallets(1, 2);
+    }
+
+    @Test
+    void walletShareEndpointsDoNotLazyLoadOrGrowWithData() throws Exception {
+        assertBounded(member, "/api/wallet-shares/shared-with-me");
+        assertBounded(owner, "/api/wallet-shares/shared-by-me");
+    }
+
+    @Test
+    void permissionEndpointsDoNotLazyLoadOrGrowWithData() throws Exception {
+        assertBounded(member, "/api/wallet-permissions/my-permissions");
+        assertBounded(owner, "/api/wallet-permissions/my-permissions");
+        assertBounded(owner, "/api/wallet-permissions/" + wallets.get(0).getId() + "/users/" + member.getId());
+    }
+
+    @Test
+    void dashboardEndpointsDoNotLazyLoadOrGrowWithData() throws Exception {
+        assertBounded(owner, "/api/dashboard/summary");
+        assertBounded(owner, "/api/dashboard/summary?walletId=" + wallets.get(0).getId());
+    }
+
+    @Test
+    void walletTransactionEndpointsDoNotLazyLoadOrGrowWithData() throws Exception {
+        Long walletId = wallets.get(0).getId();
+        assertBounded(owner, "/api/wallets/" + walletId + "/transactions?size=50");
+        assertBounded(owner, "/api/wallets/" + walletId + "/transactions/cursor?includeTotal=true&size=50");
+        assertBounded(member, "/api/wallets/" + walletId + "/transactions/cursor?size=50");
+    }
+
+    // Các endpoint này trả thẳng entity: quan hệ lazy phải được nạp trong service hoặc bị bỏ khỏi JSON
+    @Test
+    void entityResponsesSerializeWithoutOpenSession() throws Exception {
+        walletSelectionService.setCurrentSelectedWallet(owner.getId(), wallets.get(0).getId());
+        ReportEmailSetting emailSetting = new ReportEmailSetting();
+        emailSetting.setDailyEnabled(true);
+        reportEmailSettingService.upsert(owner.getId(), emailSetting);
+
+        countQueries(owner, "/api/settings");
+        countQueries(owner, "/api/reports/email/settings");
+    }
+
+    private void assertBounded(User as, String url) throws Exception {
+        long small = countQueries(as, url);
+        // Thêm ví chia sẻ mới và nhiều giao dịch hơn cho cả ví đầu tiên lẫn ví mới
+        addSharedWallets(3, 10);
+        addTransactions(wallets.get(0), 10);
+        long large = countQueries(as, url);
+
+        assertThat(small).as("Số câu SQL của %s", url).isLessThanOrEqualTo(MAX_QUERIES_PER_REQUEST);
+        assertThat(large).as("Số câu SQL của %s phải không tăng theo dữ liệu", url).isLessThanOrEqualTo(small);
+    }
+
+    // MockMvc chạy request trên chính thread của test nên bộ đếm theo thread của QueryCounter đo được đúng request
+    private long countQueries(User as, String url) throws Exception {
+        long before = queryCounter.current();
+        MvcResult result = mockMvc.perform(get(url).with(user(CustomUserDetails.create(as)))).andReturn();
+        long queries = queryCounter.current() - before;
+
+        assertThat(result.getResolvedException()).as("Lỗi khi gọi %s", url).isNull();
+        assertThat(result.getResponse().getStatus()).as("HTTP status của %s", url).isEqualTo(200);
+        assertThat(result.getResponse().getContentAsString())
+                .doesNotContain(LazyInitializationException.class.getSimpleName())
+                .doesNotContain("could not initialize proxy");
+        return queries;
+    }
+
+    private void addSharedWallets(int count, int transactionsPerWallet) {
+        for (int w = 0; w < count; w++) {
+            Wallet wallet = testData.createOwnedWallet(owner, new BigDecimal("1000000"));
+            addTransactions(wallet, transactionsPerWallet);
+            testData.shareWallet(wallet, owner, member, WalletShare.PermissionLevel.VIEW);
+            wallets.add(wallet);
+        }
+    }
+
+    private void addTransactions(Wallet wallet, int count) {
+        Instant now = Instant.now();
+        for (int i = 0; i < count; i++) {
+            testData.createTransaction(owner, wallet, i % 2 == 0 ? food : salary,
+                    i % 2 == 0 ? TransactionType.EXPENSE : TransactionType.INCOME, "1000", now.minus(i, ChronoUnit.HOURS));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.backend.controller;
+
+import com.example.backend.entity.User;
+import com.example.backend.security.CustomUserDetails;
+import com.example.backend.support.TestDataFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Spring Boot test tắt exporter metrics mặc định; bật lại để endpoint Prometheus tồn tại
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("test")
+@TestPropertySource(properties = "app.metrics.allowed-addresses=127.0.0.1, 10.20.0.0/16")
+@Import(TestDataFactory.class)
+class PrometheusEndpointSecurityTest {
+
+    private static final String SCRAPE_URL = "/actuator/prometheus";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TestDataFactory testData;
+
+    @Test
+    void allowedAddressesCanScrapeWithoutToken() throws Exception {
+        mockMvc.perform(get(SCRAPE_URL).with(from("127.0.0.1")))
+                .andExpect(status().isOk());
+        mockMvc.perform(get(SCRAPE_URL).with(from("10.20.3.4")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void otherAddressesAreRejected() throws Exception {
+        mockMvc.perform(get(SCRAPE_URL).with(from("203.0.113.7")))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void loggedInUsersOutsideAllowlistAreRejected() throws Exception {
+        User user = testData.createUser();
+        mockMvc.perform(get(SCRAPE_URL).with(from("203.0.113.7")).with(user(CustomUserDetails.create(user))))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void healthStaysPublic() throws Exception {
+        // Health có thể báo DOWN (503) vì mail server không chạy trong test; chỉ cần không bị chặn
+        mockMvc.perform(get("/actuator/health").with(from("203.0.113.7")))
+                .andExpect(result -> assertThat(result.getResponse().getStatus()).isNotIn(401, 403));
+    }
+
+    private static RequestPostProcessor from(String address) {
+        return request -> {
+            request.setRemoteAddr(address);
+            return request;
+        };
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.backend.controller;
+
+import com.example.backend.entity.User;
+import com.example.backend.security.CustomUserDetails;
+import com.example.backend.support.TestDataFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestDataFactory.class)
+@TestPropertySource(properties = "app.query-budget.limits.WalletController.getAllWallets=0")
+class QueryBudgetBreachTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TestDataFactory testData;
+
+    @Test
+    void breachFailsTheRequestWhenFailOnBreachIsOn() throws Exception {
+        User owner = testData.createUser();
+        testData.createOwnedWallet(owner, new BigDecimal("1000"));
+
+        mockMvc.perform(get("/api/wallets").with(user(CustomUserDetails.create(owner))))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.message", containsString("WalletController.getAllWallets")));
+    }
+}
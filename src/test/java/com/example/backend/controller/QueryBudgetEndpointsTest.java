@@ -0,0 +1,101 @@
+package com.example.backend.controller;
+
+import com.example.backend.entity.Category;
+import com.example.backend.entity.User;
+import com.example.backend.entity.Wallet;
+import com.example.backend.entity.WalletShare;
+import com.example.backend.enums.TransactionType;
+import com.example.backend.security.CustomUserDetails;
+import com.example.backend.support.TestDataFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Profile test bật fail-on-breach: endpoint vượt ngân sách câu SQL trả về 500 thay vì 200.
+// Dữ liệu có nhiều ví, danh mục, giao dịch và ví được chia sẻ để lộ ra truy vấn lặp theo từng dòng (N+1)
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestDataFactory.class)
+class QueryBudgetEndpointsTest {
+
+    private static final int WALLETS = 3;
+    private static final int TRANSACTIONS_PER_WALLET = 8;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TestDataFactory testData;
+
+    private User owner;
+    private User member;
+    private Wallet wallet;
+
+    @BeforeEach
+    void setUp() {
+        owner = testData.createUser();
+        member = testData.createUser();
+        Category food = testData.createCategory(owner, "Ăn uống");
+        Category salary = testData.createCategory(owner, "Lương");
+        Instant now = Instant.now();
+        for (int w = 0; w < WALLETS; w++) {
+            Wallet created = testData.createOwnedWallet(owner, new BigDecimal("1000000"));
+            for (int i = 0; i < TRANSACTIONS_PER_WALLET; i++) {
+                testData.createTransaction(owner, created, i % 2 == 0 ? food : salary,
+                        i % 2 == 0 ? TransactionType.EXPENSE : TransactionType.INCOME, "1000", now.minus(i, ChronoUnit.HOURS));
+            }
+            testData.shareWallet(created, owner, member, WalletShare.PermissionLevel.VIEW);
+            if (wallet == null) {
+                wallet = created;
+            }
+        }
+    }
+
+    @Test
+    void dashboardStaysWithinBudget() throws Exception {
+        expectOk("/api/dashboard/summary", owner);
+        expectOk("/api/dashboard/summary?walletId=" + wallet.getId(), owner);
+    }
+
+    @Test
+    void transactionEndpointsStayWithinBudget() throws Exception {
+        expectOk("/api/transactions", owner);
+        expectOk("/api/transactions/statistics", owner);
+        expectOk("/api/transactions/statistics/wallet?walletId=" + wallet.getId(), owner);
+        expectOk("/api/transactions/statistics/cursor?includeTotal=true", owner);
+        expectOk("/api/transactions/statistics/wallet/cursor?includeTotal=true&walletId=" + wallet.getId(), owner);
+    }
+
+    @Test
+    void walletEndpointsStayWithinBudget() throws Exception {
+        expectOk("/api/wallets", owner);
+        expectOk("/api/wallets", member);
+        expectOk("/api/wallets/shared-with-me", member);
+        expectOk("/api/wallets/" + wallet.getId() + "/transactions/cursor?includeTotal=true", owner);
+    }
+
+    @Test
+    void walletShareEndpointsStayWithinBudget() throws Exception {
+        expectOk("/api/wallet-shares/shared-with-me", member);
+        expectOk("/api/wallet-shares/shared-by-me", owner);
+    }
+
+    private void expectOk(String url, User as) throws Exception {
+        mockMvc.perform(get(url).with(user(CustomUserDetails.create(as))))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.backend.repository;
+
+import com.example.backend.entity.Category;
+import com.example.backend.entity.Transaction;
+import com.example.backend.entity.User;
+import com.example.backend.entity.Wallet;
+import com.example.backend.enums.TransactionType;
+import com.example.backend.support.StatementRecorder;
+import com.example.backend.support.StatementRecorder.RecordedStatement;
+import com.example.backend.support.TestDataFactory;
+import com.example.backend.util.TransactionCursor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Chạy các truy vấn của TransactionRepository trên bộ dữ liệu mẫu rồi EXPLAIN đúng câu SQL đã thực thi:
+// test thất bại nếu bảng transactions bị quét toàn bộ. Lớp con cung cấp cách đọc kế hoạch của từng database
+abstract class AbstractTransactionQueryPlanTest {
+
+    private static final int USERS = 4;
+    private static final int WALLETS_PER_USER = 2;
+    private static final int CATEGORIES_PER_USER = 3;
+    private static final int TRANSACTIONS_PER_WALLET = 500;
+    private static final Instant NOW = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+    private static final Pattern TRANSACTIONS_ALIAS = Pattern.compile("\\btransactions\\s+(?:as\\s+)?(\\w+)", Pattern.CASE_INSENSITIVE);
+
+    @Autowired
+    private StatementRecorder statementRecorder;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private TestDataFactory testData;
+
+    // Cập nhật thống kê để optimizer chọn kế hoạch như trên dữ liệu thật
+    protected abstract void analyze(Connection connection) throws SQLException;
+
+    // true nếu kế hoạch của câu lệnh (đã bind tham số) quét toàn bộ một trong các alias của bảng transactions
+    protected abstract boolean scansTransactions(PreparedStatement explain, Set<String> aliases) throws SQLException;
+
+    protected String explainPrefix() {
+        return "EXPLAIN ";
+    }
+
+    @Test
+    void transactionQueriesDoNotFallBackToFullTableScans() throws SQLException {
+        Seed seed = seed();
+        try (Connection connection = dataSource.getConnection()) {
+            analyze(connection);
+        }
+
+        List<RecordedStatement> statements = statementRecorder.record(() -> exerciseRepository(seed));
+        assertThat(statements).isNotEmpty();
+
+        List<String> fullScans = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection()) {
+            for (RecordedStatement statement : statements) {
+                Set<String> aliases = transactionAliases(statement.sql());
+                if (aliases.isEmpty()) {
+                    continue;
+                }
+                try (PreparedStatement explain = connection.prepareStatement(explainPrefix() + statement.sql())) {
+                    for (Map.Entry<Integer, Object> parameter : statement.parameters().entrySet()) {
+                        explain.setObject(parameter.getKey(), parameter.getValue());
+                    }
+                    if (scansTransactions(explain, aliases)) {
+                        fullScans.add(statement.sql());
+                    }
+                }
+            }
+        }
+        assertThat(fullScans).as("Truy vấn quét toàn bộ bảng transactions").isEmpty();
+    }
+
+    private void exerciseRepository(Seed seed) {
+        Instant from = NOW.minus(30, ChronoUnit.DAYS);
+        PageRequest page = PageRequest.of(0, 20, TransactionCursor.ORDER);
+        TransactionCursor cursor = new TransactionCursor(NOW.minus(10, ChronoUnit.DAYS), Long.MAX_VALUE);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            transactionRepository.findByWalletId(seed.walletId(), page);
+            transactionRepository.findByWalletIdAndDateAfterOrderByDateAsc(seed.walletId(), NOW.minus(3, ChronoUnit.DAYS));
+            transactionRepository.findByCategoryIdOrderByDateDesc(seed.categoryId());
+            transactionRepository.findByCategoryIdOrderByDateDescIdDesc(seed.categoryId());
+            transactionRepository.findTransactionsTodayByUser(seed.userId(), NOW.minus(1, ChronoUnit.DAYS), NOW, page);
+            transactionRepository.countByWalletId(seed.walletId());
+            transactionRepository.findAllByUserIdAndDateBetween(seed.userId(), from, NOW, page);
+            transactionRepository.findTop5ByWalletIdOrderByDateDesc(seed.walletId());
+            transactionRepository.findTop5ByWallet_UserIdOrderByDateDesc(seed.userId());
+            transactionRepository.findRollupSourceByUserId(seed.userId());
+
+            Specification<Transaction> statistics = TransactionSpecifications.statistics(
+                    seed.userId(), seed.walletId(), from, NOW, new BigDecimal("10"), null);
+            transactionRepository.sumSignedAmount(statistics);
+            transactionRepository.findListingRows(TransactionSpecifications.belongsToUser(seed.userId()), 10);
+            transactionRepository.findAll(Specification.allOf(
+                    TransactionSpecifications.belongsToUser(seed.userId()),
+                    TransactionSpecifications.before(cursor),
+                    TransactionSpecifications.fetchWalletAndCategory()), PageRequest.of(0, 20, TransactionCursor.ORDER));
+            transactionRepository.findAll(Specification.allOf(
+                    TransactionSpecifications.inWallet(seed.walletId()),
+                    TransactionSpecifications.hasType(TransactionType.EXPENSE)), page);
+            try (var rows = transactionRepository.streamReportRows(seed.userId(), from, NOW, List.of(seed.walletId()),
+                    List.of(TransactionType.EXPENSE), List.of(seed.categoryId()))) {
+                rows.forEach(row -> { });
+            }
+
+            transactionRepository.setCategoryToNullByCategoryId(seed.categoryId());
+            transactionRepository.deleteByWalletId(seed.walletId());
+            status.setRollbackOnly();
+        });
+    }
+
+    private Seed seed() {
+        List<Transaction> batch = new ArrayList<>();
+        Seed seed = null;
+        for (int u = 0; u < USERS; u++) {
+            User user = testData.createUser();
+            List<Category> categories = new ArrayList<>();
+            for (int c = 0; c < CATEGORIES_PER_USER; c++) {
+                categories.add(testData.createCategory(user, "Danh mục " + c));
+            }
+            for (int w = 0; w < WALLETS_PER_USER; w++) {
+                Wallet wallet = testData.createWallet(user, new BigDecimal("1000000"));
+                for (int i = 0; i < TRANSACTIONS_PER_WALLET; i++) {
+                    Transaction transaction = new Transaction();
+                    transaction.setUser(user);
+                    transaction.setWallet(wallet);
+                    transaction.setCategory(categories.get(i % CATEGORIES_PER_USER));
+                    transaction.setType(i % 4 == 0 ? TransactionType.INCOME : TransactionType.EXPENSE);
+                    transaction.setAmount(BigDecimal.valueOf(1000L + i));
+                    transaction.setDate(NOW.minus(i % 365, ChronoUnit.DAYS).minusSeconds(i));
+                    transaction.setDescription("Giao dịch " + i);
+                    batch.add(transaction);
+                }
+                if (seed == null) {
+                    seed = new Seed(user.getId(), wallet.getId(), categories.get(0).getId());
+                }
+            }
+            transactionRepository.saveAll(batch);
+            batch.clear();
+        }
+        return seed;
+    }
+
+    private static Set<String> transactionAliases(String sql) {
+        Set<String> aliases = new HashSet<>();
+        Matcher matcher = TRANSACTIONS_ALIAS.matcher(sql);
+        while (matcher.find()) {
+            String alias = matcher.group(1);
+            // Câu DELETE/UPDATE không alias: từ khóa kế tiếp không phải alias
+            aliases.add(Set.of("where", "set", "values").contains(alias.toLowerCase()) ? "transactions" : alias);
+        }
+        if (aliases.isEmpty() && sql.toLowerCase().matches("(?s).*\\b(update|into|from)\\s+transactions\\b.*")) {
+            aliases.add("transactions");
+        }
+        return aliases;
+    }
+
+    private record Seed(Long userId, Long walletId, Long categoryId) {
+    }
+}
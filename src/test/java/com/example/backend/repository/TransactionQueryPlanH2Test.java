@@ -0,0 +1,40 @@
+package com.example.backend.repository;
+
+import com.example.backend.support.StatementRecorder;
+import com.example.backend.support.TestDataFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+
+// H2 in ra "transactions.tableScan" trong kế hoạch khi không dùng được index nào
+@SpringBootTest
+@ActiveProfiles("test")
+@Import({TestDataFactory.class, StatementRecorder.class})
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query-plan;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;IGNORE_UNKNOWN_SETTINGS=TRUE",
+        "spring.flyway.enabled=true"
+})
+class TransactionQueryPlanH2Test extends AbstractTransactionQueryPlanTest {
+
+    @Override
+    protected void analyze(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE");
+        }
+    }
+
+    @Override
+    protected boolean scansTransactions(PreparedStatement explain, Set<String> aliases) throws SQLException {
+        try (ResultSet plan = explain.executeQuery()) {
+            return plan.next() && plan.getString(1).toLowerCase().contains(".transactions.tablescan");
+        }
+    }
+}
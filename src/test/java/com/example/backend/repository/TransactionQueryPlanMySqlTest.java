@@ -0,0 +1,60 @@
+package com.example.backend.repository;
+
+import com.example.backend.support.StatementRecorder;
+import com.example.backend.support.TestDataFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+
+// Chạy trên MySQL thật (cùng Flyway như môi trường chạy); bỏ qua khi máy không có Docker.
+// EXPLAIN của MySQL trả type = ALL khi bảng bị quét toàn bộ
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest
+@ActiveProfiles("test")
+@Import({TestDataFactory.class, StatementRecorder.class})
+class TransactionQueryPlanMySqlTest extends AbstractTransactionQueryPlanTest {
+
+    @Container
+    private static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0");
+
+    @DynamicPropertySource
+    static void mysqlProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", MYSQL::getJdbcUrl);
+        registry.add("spring.datasource.username", MYSQL::getUsername);
+        registry.add("spring.datasource.password", MYSQL::getPassword);
+        registry.add("spring.datasource.driver-class-name", MYSQL::getDriverClassName);
+        registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.MySQLDialect");
+        registry.add("spring.flyway.enabled", () -> "true");
+    }
+
+    @Override
+    protected void analyze(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE TABLE transactions, wallets, categories, users");
+        }
+    }
+
+    @Override
+    protected boolean scansTransactions(PreparedStatement explain, Set<String> aliases) throws SQLException {
+        try (ResultSet plan = explain.executeQuery()) {
+            while (plan.next()) {
+                if (aliases.contains(plan.getString("table")) && "ALL".equalsIgnoreCase(plan.getString("type"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
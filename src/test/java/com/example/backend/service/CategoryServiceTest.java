@@ -0,0 +1,149 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.response.CategoryResponse;
+import com.example.backend.entity.Category;
+import com.example.backend.entity.TransactionRollup;
+import com.example.backend.entity.User;
+import com.example.backend.entity.Wallet;
+import com.example.backend.enums.TransactionType;
+import com.example.backend.metrics.QueryCounter;
+import com.example.backend.repository.CategoryRepository;
+import com.example.backend.repository.TransactionRollupRepository;
+import com.example.backend.support.TestDataFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestDataFactory.class)
+class CategoryServiceTest {
+
+    // Một câu lấy danh mục của người dùng và một câu GROUP BY tổng theo danh mục, không phụ thuộc số danh mục
+    private static final long CATEGORY_LIST_QUERIES = 2;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private TransactionRollupRepository transactionRollupRepository;
+
+    @Autowired
+    private QueryCounter queryCounter;
+
+    @Autowired
+    private TestDataFactory testData;
+
+    @Test
+    void batchedTotalsMatchPerCategoryTotals() {
+        User user = testData.createUser();
+        User other = testData.createUser();
+        Wallet wallet = testData.createWallet(user, new BigDecimal("1000000"));
+        Wallet otherWallet = testData.createWallet(other, new BigDecimal("1000000"));
+        YearMonth month = YearMonth.now();
+
+        Category food = createCategory(user, "Ăn uống", "500000");
+        Category salary = createCategory(user, "Lương", null);
+        Category mixed = createCategory(user, "Khác", "100");
+        createCategory(user, "Chưa dùng", "200000");
+        Category otherFood = createCategory(other, "Ăn uống", "1000");
+
+        saveRollup(wallet, food, TransactionType.EXPENSE, month.atDay(1), "120000");
+        saveRollup(wallet, food, TransactionType.EXPENSE, month.atEndOfMonth(), "30000.50");
+        saveRollup(wallet, salary, TransactionType.INCOME, month.atDay(1), "15000000");
+        saveRollup(wallet, mixed, TransactionType.EXPENSE, month.atDay(1), "250");
+        saveRollup(wallet, mixed, TransactionType.INCOME, month.atEndOfMonth(), "75");
+        // Ngoài khoảng tháng hiện tại và của người dùng khác: cả hai đường tính đều phải bỏ qua
+        saveRollup(wallet, food, TransactionType.EXPENSE, month.minusMonths(1).atEndOfMonth(), "999");
+        saveRollup(wallet, food, TransactionType.EXPENSE, month.plusMonths(1).atDay(1), "999");
+        saveRollup(otherWallet, otherFood, TransactionType.EXPENSE, month.atDay(1), "777");
+
+        List<CategoryResponse> batched = categoryService.getCategories(user.getId());
+
+        assertThat(batched).hasSize(4);
+        for (CategoryResponse response : batched) {
+            CategoryResponse single = categoryService.getCategoryById(response.getId(), user.getId());
+            assertThat(response.getSpentAmount()).as(response.getName()).isEqualByComparingTo(single.getSpentAmount());
+            assertThat(response.getEarnedAmount()).as(response.getName()).isEqualByComparingTo(single.getEarnedAmount());
+            if (single.getRemainingAmount() == null) {
+                assertThat(response.getRemainingAmount()).as(response.getName()).isNull();
+            } else {
+                assertThat(response.getRemainingAmount()).as(response.getName()).isEqualByComparingTo(single.getRemainingAmount());
+            }
+        }
+
+        CategoryResponse foodResponse = find(batched, food);
+        assertThat(foodResponse.getSpentAmount()).isEqualByComparingTo("150000.50");
+        assertThat(foodResponse.getRemainingAmount()).isEqualByComparingTo("349999.50");
+        assertThat(find(batched, salary).getEarnedAmount()).isEqualByComparingTo("15000000");
+        assertThat(find(batched, mixed).getRemainingAmount()).isEqualByComparingTo("-150");
+    }
+
+    @Test
+    void categoryListUsesFixedQueryCount() {
+        User user = testData.createUser();
+        Wallet wallet = testData.createWallet(user, new BigDecimal("1000000"));
+        LocalDate day = YearMonth.now().atDay(1);
+
+        for (int i = 0; i < 3; i++) {
+            Category category = createCategory(user, "Danh mục " + i, "1000");
+            saveRollup(wallet, category, TransactionType.EXPENSE, day, "10");
+        }
+        long fewCategories = countGetCategoriesQueries(user, 3);
+
+        for (int i = 3; i < 12; i++) {
+            Category category = createCategory(user, "Danh mục " + i, "1000");
+            saveRollup(wallet, category, TransactionType.EXPENSE, day, "10");
+            saveRollup(wallet, category, TransactionType.INCOME, day, "20");
+        }
+        long manyCategories = countGetCategoriesQueries(user, 12);
+
+        assertThat(fewCategories).isEqualTo(CATEGORY_LIST_QUERIES);
+        assertThat(manyCategories).isEqualTo(CATEGORY_LIST_QUERIES);
+    }
+
+    private long countGetCategoriesQueries(User user, int expectedCategories) {
+        long before = queryCounter.current();
+        List<CategoryResponse> categories = categoryService.getCategories(user.getId());
+        long queries = queryCounter.current() - before;
+        assertThat(categories).hasSize(expectedCategories);
+        return queries;
+    }
+
+    private Category createCategory(User user, String name, String budget) {
+        Category category = testData.createCategory(user, name);
+        if (budget != null) {
+            category.setBudgetAmount(new BigDecimal(budget));
+            category = categoryRepository.save(category);
+        }
+        return category;
+    }
+
+    private void saveRollup(Wallet wallet, Category category, TransactionType type, LocalDate day, String amount) {
+        transactionRollupRepository.save(TransactionRollup.builder()
+                .userId(category.getUser().getId())
+                .walletId(wallet.getId())
+                .categoryId(category.getId())
+                .type(type)
+                .rollupDate(day)
+                .totalAmount(new BigDecimal(amount))
+                .transactionCount(1L)
+                .build());
+    }
+
+    private static CategoryResponse find(List<CategoryResponse> responses, Category category) {
+        return responses.stream().filter(response -> response.getId().equals(category.getId())).findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.response.DashboardDataResponse;
+import com.example.backend.dto.response.IncomeExpenseTrendResponse;
+import com.example.backend.entity.Category;
+import com.example.backend.entity.TransactionRollup;
+import com.example.backend.entity.User;
+import com.example.backend.entity.Wallet;
+import com.example.backend.enums.TransactionType;
+import com.example.backend.repository.TransactionRollupRepository;
+import com.example.backend.support.TestDataFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestDataFactory.class)
+class DashboardServiceTest {
+
+    @Autowired
+    private DashboardService dashboardService;
+
+    @Autowired
+    private TransactionRollupRepository transactionRollupRepository;
+
+    @Autowired
+    private TestDataFactory testData;
+
+    @Test
+    void summaryCountsEveryTransactionInOwnedWalletsWhileTrendStaysPerUser() {
+        User owner = testData.createUser();
+        User member = testData.createUser();
+        Wallet wallet = testData.createWallet(owner, new BigDecimal("1000"));
+        Category food = testData.createCategory(owner, "Ăn uống");
+        LocalDate day = YearMonth.now().atDay(1);
+
+        // Chủ ví chi 100, người được chia sẻ chi 40 trên cùng ví
+        saveRollup(owner, wallet, food, day, "100");
+        saveRollup(member, wallet, food, day, "40");
+
+        DashboardDataResponse allWallets = dashboardService.getDashboardData(owner.getId(), null);
+        DashboardDataResponse walletOnly = dashboardService.getDashboardData(owner.getId(), wallet.getId());
+
+        for (DashboardDataResponse data : List.of(allWallets, walletOnly)) {
+            assertThat(data.getSummary().getMonthlyExpense()).isEqualByComparingTo("140");
+            assertThat(data.getSummary().getTotalTransactions()).isEqualTo(2);
+            assertThat(data.getSpendingByCategory()).singleElement()
+                    .satisfies(spending -> assertThat(spending.getTotalAmount()).isEqualByComparingTo("140"));
+
+            IncomeExpenseTrendResponse currentMonth = data.getIncomeExpenseTrend().get(data.getIncomeExpenseTrend().size() - 1);
+            assertThat(currentMonth.getExpense()).isEqualByComparingTo("100");
+        }
+    }
+
+    @Test
+    void trendAndWeeklySpendingFollowWalletFilter() {
+        User owner = testData.createUser();
+        Wallet cash = testData.createWallet(owner, new BigDecimal("1000"));
+        Wallet bank = testData.createWallet(owner, new BigDecimal("1000"));
+        Category food = testData.createCategory(owner, "Ăn uống");
+        LocalDate today = LocalDate.now();
+
+        saveRollup(owner, cash, food, today, "70");
+        saveRollup(owner, bank, food, today, "30");
+
+        DashboardDataResponse allWallets = dashboardService.getDashboardData(owner.getId(), null);
+        DashboardDataResponse cashOnly = dashboardService.getDashboardData(owner.getId(), cash.getId());
+
+        assertThat(lastTrendExpense(allWallets)).isEqualByComparingTo("100");
+        assertThat(lastWeeklyValue(allWallets)).isEqualByComparingTo("100");
+        assertThat(lastTrendExpense(cashOnly)).isEqualByComparingTo("70");
+        assertThat(lastWeeklyValue(cashOnly)).isEqualByComparingTo("70");
+    }
+
+    private static BigDecimal lastTrendExpense(DashboardDataResponse data) {
+        return data.getIncomeExpenseTrend().get(data.getIncomeExpenseTrend().size() - 1).getExpense();
+    }
+
+    private static BigDecimal lastWeeklyValue(DashboardDataResponse data) {
+        return data.getWeeklySpending().get(data.getWeeklySpending().size() - 1).getValue();
+    }
+
+    private void saveRollup(User user, Wallet wallet, Category category, LocalDate day, String amount) {
+        transactionRollupRepository.save(TransactionRollup.builder()
+                .userId(user.getId())
+                .walletId(wallet.getId())
+                .categoryId(category.getId())
+                .type(TransactionType.EXPENSE)
+                .rollupDate(day)
+                .totalAmount(new BigDecimal(amount))
+                .transactionCount(1L)
+                .build());
+    }
+}
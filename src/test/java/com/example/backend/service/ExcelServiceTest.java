@@ -0,0 +1,136 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.request.ReportRequest;
+import com.example.backend.dto.response.ReportDataResponse;
+import com.example.backend.entity.Category;
+import com.example.backend.entity.User;
+import com.example.backend.entity.Wallet;
+import com.example.backend.enums.TransactionType;
+import com.example.backend.support.TestDataFactory;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestDataFactory.class)
+class ExcelServiceTest {
+
+    // Lớn hơn cửa sổ 100 dòng của SXSSF để các dòng cũ thực sự bị đẩy xuống file tạm
+    private static final int TRANSACTIONS_PER_WALLET = 130;
+
+    @Autowired
+    private ExcelService excelService;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private TestDataFactory testData;
+
+    @Test
+    void streamingWorkbookMatchesGeneratedReportData() throws Exception {
+        User owner = testData.createUser();
+        Wallet cash = testData.createOwnedWallet(owner, new BigDecimal("100000000"));
+        Wallet bank = testData.createOwnedWallet(owner, new BigDecimal("50000000"));
+        Category food = testData.createCategory(owner, "Ăn uống");
+        Category salary = testData.createCategory(owner, "Lương");
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        for (Wallet wallet : List.of(cash, bank)) {
+            for (int i = 0; i < TRANSACTIONS_PER_WALLET; i++) {
+                boolean income = i % 5 == 0;
+                testData.createTransaction(owner, wallet, income ? salary : food,
+                        income ? TransactionType.INCOME : TransactionType.EXPENSE,
+                        String.valueOf(income ? 200000 + i : 10000 + i), now.minus(i, ChronoUnit.HOURS));
+            }
+        }
+
+        ReportRequest request = new ReportRequest();
+        request.setStartDate(LocalDateTime.now().minusDays(30));
+        request.setEndDate(LocalDateTime.now().plusDays(1));
+        request.setReportType("EXCEL");
+        request.setReportFormat("DETAILED");
+
+        ReportDataResponse expected = reportService.generateReportData(request, owner.getId());
+        AtomicInteger reportedRows = new AtomicInteger();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        excelService.writeStreamingExcelReport(request, owner.getId(), output, reportedRows::incrementAndGet);
+
+        assertThat(expected.getTotalTransactions()).isEqualTo(2 * TRANSACTIONS_PER_WALLET);
+        assertThat(reportedRows).hasValue(expected.getTotalTransactions());
+
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(output.toByteArray()))) {
+            assertThat(workbook.getNumberOfSheets()).isEqualTo(4);
+            assertThat(List.of(workbook.getSheetName(0), workbook.getSheetName(1), workbook.getSheetName(2), workbook.getSheetName(3)))
+                    .containsExactly("Tổng Quan", "Chi Tiết Giao Dịch", "Thống Kê Theo Danh Mục", "Thống Kê Theo Ví");
+
+            Sheet summary = workbook.getSheet("Tổng Quan");
+            assertThat(summaryValue(summary, "Tổng thu nhập:")).isEqualTo(currency(expected.getTotalIncome()));
+            assertThat(summaryValue(summary, "Tổng chi tiêu:")).isEqualTo(currency(expected.getTotalExpense()));
+            assertThat(summaryValue(summary, "Số dư ròng:")).isEqualTo(currency(expected.getNetAmount()));
+            assertThat(summaryValue(summary, "Tổng số giao dịch:")).isEqualTo(String.valueOf(expected.getTotalTransactions()));
+
+            // Dòng 0 là tiêu đề, các dòng sau theo đúng thứ tự giao dịch của báo cáo
+            Sheet detail = workbook.getSheet("Chi Tiết Giao Dịch");
+            assertThat(detail.getLastRowNum()).isEqualTo(expected.getTransactions().size());
+            for (int i = 0; i < expected.getTransactions().size(); i++) {
+                ReportDataResponse.TransactionReportData transaction = expected.getTransactions().get(i);
+                Row row = detail.getRow(i + 1);
+                assertThat((long) row.getCell(0).getNumericCellValue()).isEqualTo(transaction.getId());
+                assertThat(row.getCell(3).getNumericCellValue()).isEqualTo(transaction.getAmount().doubleValue());
+            }
+
+            Sheet categories = workbook.getSheet("Thống Kê Theo Danh Mục");
+            assertThat(categories.getLastRowNum()).isEqualTo(expected.getCategoryStats().size());
+            for (int i = 0; i < expected.getCategoryStats().size(); i++) {
+                ReportDataResponse.CategoryReportData category = expected.getCategoryStats().get(i);
+                Row row = categories.getRow(i + 1);
+                assertThat(row.getCell(0).getStringCellValue()).isEqualTo(category.getCategoryName());
+                assertThat(row.getCell(2).getNumericCellValue()).isEqualTo(category.getTotalAmount().doubleValue());
+                assertThat((long) row.getCell(3).getNumericCellValue()).isEqualTo(category.getTransactionCount());
+            }
+
+            Sheet wallets = workbook.getSheet("Thống Kê Theo Ví");
+            assertThat(wallets.getLastRowNum()).isEqualTo(expected.getWalletStats().size());
+            for (int i = 0; i < expected.getWalletStats().size(); i++) {
+                ReportDataResponse.WalletReportData wallet = expected.getWalletStats().get(i);
+                Row row = wallets.getRow(i + 1);
+                assertThat(row.getCell(0).getStringCellValue()).isEqualTo(wallet.getWalletName());
+                assertThat(row.getCell(1).getNumericCellValue()).isEqualTo(wallet.getTotalIncome().doubleValue());
+                assertThat(row.getCell(2).getNumericCellValue()).isEqualTo(wallet.getTotalExpense().doubleValue());
+                assertThat((long) row.getCell(4).getNumericCellValue()).isEqualTo(wallet.getTransactionCount());
+            }
+        }
+    }
+
+    private static String summaryValue(Sheet sheet, String label) {
+        for (Row row : sheet) {
+            if (row.getCell(0) != null && label.equals(row.getCell(0).getStringCellValue())) {
+                return row.getCell(1).getStringCellValue();
+            }
+        }
+        throw new AssertionError("Không có dòng " + label);
+    }
+
+    // Cùng định dạng với ExcelService
+    private static String currency(BigDecimal amount) {
+        return String.format("%,.0f VND", amount.doubleValue());
+    }
+}
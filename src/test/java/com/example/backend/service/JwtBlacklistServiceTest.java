@@ -0,0 +1,84 @@
+package com.example.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class JwtBlacklistServiceTest {
+
+    // Nhiều hơn hẳn độ lùi id cũ (100) để bản ghi commit trễ nằm xa phía sau các bản ghi đã đồng bộ
+    private static final int EARLY_COMMITS = 150;
+
+    @Autowired
+    private JwtBlacklistService writer;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void otherInstanceSeesRowsCommittedOutOfIdOrder() throws Exception {
+        // Một instance khác dùng chung DB nhưng có bộ nhớ riêng
+        JwtBlacklistService reader = new JwtBlacklistService(
+                applicationContext.getBeanProvider(RevokedTokenStore.class), new SimpleMeterRegistry(), 60_000);
+        long expiry = System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1);
+        String lateToken = "late-" + UUID.randomUUID();
+        String earlyToken = "early-" + UUID.randomUUID();
+
+        CountDownLatch inserted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // Bản ghi nhận id trước nhưng giữ transaction mở, commit sau cùng
+            Future<?> late = executor.submit(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                writer.blacklistToken(lateToken, expiry);
+                inserted.countDown();
+                await(release);
+            }));
+            assertThat(inserted.await(30, TimeUnit.SECONDS)).isTrue();
+
+            for (int i = 0; i < EARLY_COMMITS; i++) {
+                writer.blacklistToken(earlyToken + "-" + i, expiry);
+            }
+            reader.syncFromStore();
+            assertThat(reader.isBlacklisted(earlyToken + "-" + (EARLY_COMMITS - 1))).isTrue();
+            assertThat(reader.isBlacklisted(lateToken)).isFalse();
+
+            release.countDown();
+            late.get(30, TimeUnit.SECONDS);
+            reader.syncFromStore();
+
+            assertThat(reader.isBlacklisted(lateToken)).isTrue();
+            assertThat(reader.isBlacklisted(earlyToken + "-0")).isTrue();
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
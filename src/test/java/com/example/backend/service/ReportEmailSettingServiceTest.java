@@ -0,0 +1,105 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.ReportEmailSetting;
+import com.example.backend.entity.User;
+import com.example.backend.enums.ReportPeriod;
+import com.example.backend.repository.ReportEmailSettingRepository;
+import com.example.backend.support.TestDataFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestDataFactory.class)
+class ReportEmailSettingServiceTest {
+
+    // Thứ Tư, 15/01/2025 lúc 10:30
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 1, 15, 10, 30);
+
+    @Autowired
+    private ReportEmailSettingService settingService;
+
+    @Autowired
+    private ReportEmailSettingRepository settingRepository;
+
+    @Autowired
+    private TestDataFactory testData;
+
+    @Test
+    void missedDailySlotIsStillDueLaterTheSameDay() {
+        ReportEmailSetting setting = saveSetting(8, 0, s -> s.setDailyEnabled(true));
+
+        assertThat(isDue(setting, NOW)).isTrue();
+        assertThat(isDue(setting, NOW.withHour(7))).isFalse();
+    }
+
+    @Test
+    void claimedPeriodIsNoLongerDue() {
+        ReportEmailSetting setting = saveSetting(8, 0, s -> s.setDailyEnabled(true));
+
+        assertThat(settingService.claimSend(setting.getId(), ReportPeriod.DAILY, NOW)).isTrue();
+        assertThat(settingService.claimSend(setting.getId(), ReportPeriod.DAILY, NOW.plusMinutes(1))).isFalse();
+        assertThat(isDue(setting, NOW.plusMinutes(1))).isFalse();
+        assertThat(isDue(setting, NOW.plusDays(1))).isTrue();
+    }
+
+    @Test
+    void weeklyAndMonthlyCatchUpAfterDowntime() {
+        // Ngày gửi hàng tuần là thứ Hai, hàng tháng là ngày 10 — cả hai đã qua mà chưa gửi
+        ReportEmailSetting weekly = saveSetting(9, 0, s -> {
+            s.setWeeklyEnabled(true);
+            s.setWeeklyDayOfWeek(1);
+        });
+        ReportEmailSetting monthly = saveSetting(9, 0, s -> {
+            s.setMonthlyEnabled(true);
+            s.setMonthlyDayOfMonth(10);
+        });
+        ReportEmailSetting notYet = saveSetting(9, 0, s -> {
+            s.setMonthlyEnabled(true);
+            s.setMonthlyDayOfMonth(20);
+        });
+
+        assertThat(isDue(weekly, NOW)).isTrue();
+        assertThat(isDue(monthly, NOW)).isTrue();
+        assertThat(isDue(notYet, NOW)).isFalse();
+
+        assertThat(settingService.claimSend(weekly.getId(), ReportPeriod.WEEKLY, NOW)).isTrue();
+        assertThat(isDue(weekly, NOW.plusDays(1))).isFalse();
+        assertThat(isDue(weekly, NOW.plusDays(5))).isTrue();
+    }
+
+    @Test
+    void monthlyDayBeyondMonthLengthIsDueOnLastDay() {
+        ReportEmailSetting setting = saveSetting(9, 0, s -> {
+            s.setMonthlyEnabled(true);
+            s.setMonthlyDayOfMonth(31);
+        });
+
+        assertThat(isDue(setting, LocalDateTime.of(2025, 2, 28, 9, 0))).isTrue();
+        assertThat(isDue(setting, LocalDateTime.of(2025, 2, 27, 9, 0))).isFalse();
+    }
+
+    private boolean isDue(ReportEmailSetting setting, LocalDateTime now) {
+        List<ReportEmailSetting> due = settingService.findDueSettings(now, false, setting.getId() - 1, 1);
+        return !due.isEmpty() && due.get(0).getId().equals(setting.getId());
+    }
+
+    private ReportEmailSetting saveSetting(int hour, int minute, Consumer<ReportEmailSetting> customizer) {
+        User user = testData.createUser();
+        ReportEmailSetting setting = new ReportEmailSetting();
+        setting.setUser(user);
+        setting.setSendHour(hour);
+        setting.setSendMinute(minute);
+        customizer.accept(setting);
+        return settingRepository.save(setting);
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.backend.service;
+
+import com.example.backend.controller.ReportExportJobController;
+import com.example.backend.dto.request.ReportRequest;
+import com.example.backend.dto.response.ApiResponse;
+import com.example.backend.dto.response.ReportExportJobResponse;
+import com.example.backend.enums.ReportExportFormat;
+import com.example.backend.enums.ReportExportJobStatus;
+import com.example.backend.enums.UserStatus;
+import com.example.backend.exception.ResourceNotFoundException;
+import com.example.backend.security.CustomUserDetails;
+import com.example.backend.service.filestorage.FileStorageService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+// Chỉ kiểm tra phần điều phối trong bộ nhớ (gộp yêu cầu, hàng đợi giới hạn, dọn file) nên việc render được thay bằng mock
+class ReportExportJobServiceTest {
+
+    private static final Long USER_ID = 7L;
+
+    @TempDir
+    Path tempDir;
+
+    private ExcelService excelService;
+    // Tác vụ render đứng chờ cho đến khi gate được mở
+    private final CountDownLatch gate = new CountDownLatch(1);
+    private final AtomicInteger renders = new AtomicInteger();
+    private final List<ReportExportJobService> services = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        excelService = mock(ExcelService.class);
+        doAnswer(invocation -> {
+            renders.incrementAndGet();
+            gate.await(30, TimeUnit.SECONDS);
+            invocation.getArgument(2, OutputStream.class).write("xlsx".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(excelService).writeStreamingExcelReport(any(), any(), any(), any());
+    }
+
+    @AfterEach
+    void tearDown() {
+        gate.countDown();
+        services.forEach(ReportExportJobService::shutdown);
+    }
+
+    @Test
+    void identicalConcurrentSubmitsShareOneJob() throws Exception {
+        ReportExportJobService service = newService(2, 10, 60);
+        int submitters = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(submitters);
+        try {
+            List<Future<String>> jobIds = new ArrayList<>();
+            for (int i = 0; i < submitters; i++) {
+                jobIds.add(executor.submit(() -> {
+                    start.await();
+                    return service.submit(request(1), USER_ID, ReportExportFormat.EXCEL).getJobId();
+                }));
+            }
+            start.countDown();
+            Set<String> distinct = new HashSet<>();
+            for (Future<String> jobId : jobIds) {
+                distinct.add(jobId.get(30, TimeUnit.SECONDS));
+            }
+
+            assertThat(distinct).hasSize(1);
+            gate.countDown();
+            awaitStatus(service, distinct.iterator().next(), ReportExportJobStatus.COMPLETED);
+            assertThat(renders).hasValue(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void fullQueueReturns503AndDoesNotKeepTheRejectedJob() throws Exception {
+        // Một luồng đang chạy tác vụ A, hàng đợi một chỗ giữ tác vụ B
+        ReportExportJobService service = newService(1, 1, 60);
+        ReportExportJobController controller = new ReportExportJobController(service);
+        CustomUserDetails user = new CustomUserDetails(USER_ID, "user@example.com", "x", UserStatus.ACTIVE, List.of());
+
+        String running = controller.submitJob(user, request(1)).getBody().getData().getJobId();
+        String queued = controller.submitJob(user, request(2)).getBody().getData().getJobId();
+        ResponseEntity<ApiResponse<ReportExportJobResponse>> rejected = controller.submitJob(user, request(3));
+
+        assertThat(rejected.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+
+        gate.countDown();
+        awaitStatus(service, running, ReportExportJobStatus.COMPLETED);
+        awaitStatus(service, queued, ReportExportJobStatus.COMPLETED);
+
+        // Nếu khóa của yêu cầu bị từ chối còn trong activeJobsByKey, lần gửi lại sẽ nhận về tác vụ ma không bao giờ chạy
+        ResponseEntity<ApiResponse<ReportExportJobResponse>> retried = controller.submitJob(user, request(3));
+        assertThat(retried.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+        String retriedId = retried.getBody().getData().getJobId();
+        assertThat(retriedId).isNotIn(running, queued);
+        awaitStatus(service, retriedId, ReportExportJobStatus.COMPLETED);
+        assertThat(renders).hasValue(3);
+    }
+
+    @Test
+    void cleanupRemovesExpiredJobsAndTheirFiles() throws Exception {
+        gate.countDown();
+        // TTL 0 phút: tác vụ hết hạn ngay khi hoàn tất; dịch vụ thứ hai giữ TTL 60 phút để so sánh
+        ReportExportJobService expiring = newService(1, 5, 0);
+        ReportExportJobService retained = newService(1, 5, 60);
+
+        String expiredId = expiring.submit(request(1), USER_ID, ReportExportFormat.EXCEL).getJobId();
+        String keptId = retained.submit(request(1), USER_ID, ReportExportFormat.EXCEL).getJobId();
+        awaitStatus(expiring, expiredId, ReportExportJobStatus.COMPLETED);
+        awaitStatus(retained, keptId, ReportExportJobStatus.COMPLETED);
+        Path expiredFile = tempDir.resolve("reports-1").resolve(expiring.getCompletedJob(expiredId, USER_ID).getStoredFileName());
+        Path keptFile = tempDir.resolve("reports-2").resolve(retained.getCompletedJob(keptId, USER_ID).getStoredFileName());
+        assertThat(expiredFile).exists();
+
+        Thread.sleep(5);
+        expiring.cleanupExpired();
+        retained.cleanupExpired();
+
+        assertThat(expiredFile).doesNotExist();
+        assertThatThrownBy(() -> expiring.getJob(expiredId, USER_ID)).isInstanceOf(ResourceNotFoundException.class);
+        assertThat(Files.readString(keptFile)).isEqualTo("xlsx");
+        assertThat(retained.getJob(keptId, USER_ID).getStatus()).isEqualTo(ReportExportJobStatus.COMPLETED);
+    }
+
+    // Mỗi dịch vụ có thư mục báo cáo riêng vì cleanupExpired còn quét file cũ theo TTL của chính nó
+    private ReportExportJobService newService(int poolSize, int queueCapacity, long ttlMinutes) {
+        int index = services.size() + 1;
+        FileStorageService fileStorageService = new FileStorageService(
+                tempDir.resolve("uploads-" + index).toString(), tempDir.resolve("reports-" + index).toString());
+        ReportExportJobService service = new ReportExportJobService(
+                mock(ReportService.class), excelService, mock(StreamingPDFService.class), mock(PDFService.class),
+                mock(EmailService.class), fileStorageService, mock(ReportRenderCache.class),
+                poolSize, queueCapacity, ttlMinutes);
+        services.add(service);
+        return service;
+    }
+
+    // Mỗi giá trị variant cho ra một khóa gộp khác nhau
+    private static ReportRequest request(int variant) {
+        ReportRequest request = new ReportRequest();
+        request.setStartDate(LocalDateTime.of(2025, 1, 1, 0, 0));
+        request.setEndDate(LocalDateTime.of(2025, 1, 1, 0, 0).plusDays(variant));
+        request.setReportType("EXCEL");
+        return request;
+    }
+
+    private static void awaitStatus(ReportExportJobService service, String jobId, ReportExportJobStatus expected)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        ReportExportJobStatus status = service.getJob(jobId, USER_ID).getStatus();
+        while (status != expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            status = service.getJob(jobId, USER_ID).getStatus();
+        }
+        assertThat(status).isEqualTo(expected);
+    }
+}
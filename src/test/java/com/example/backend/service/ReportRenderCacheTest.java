@@ -0,0 +1,97 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.request.ReportRequest;
+import com.example.backend.entity.Category;
+import com.example.backend.entity.User;
+import com.example.backend.entity.Wallet;
+import com.example.backend.enums.ReportExportFormat;
+import com.example.backend.enums.TransactionType;
+import com.example.backend.service.filestorage.FileStorageService;
+import com.example.backend.support.TestDataFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestDataFactory.class)
+class ReportRenderCacheTest {
+
+    @Autowired
+    private ReportRenderCache reportRenderCache;
+
+    @Autowired
+    private ReportDataVersionService reportDataVersionService;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private WalletBalanceService walletBalanceService;
+
+    @Autowired
+    private TestDataFactory testData;
+
+    @Test
+    void balanceChangeKeepsClosedPeriodReports() throws Exception {
+        User user = testData.createUser();
+        Wallet wallet = testData.createWallet(user, new BigDecimal("1000"));
+        ReportRequest request = closedPeriodRequest();
+        AtomicInteger renders = new AtomicInteger();
+
+        reportRenderCache.getOrRender(user.getId(), request, ReportExportFormat.PDF, () -> render(renders));
+
+        // Báo cáo kỳ đã đóng không in số dư hiện tại nên thay đổi số dư hôm nay không làm cũ bản đã dựng
+        walletBalanceService.executeWithRetry(() -> walletBalanceService.adjust(wallet.getId(), new BigDecimal("250")));
+
+        reportRenderCache.getOrRender(user.getId(), request, ReportExportFormat.PDF, () -> render(renders));
+        assertThat(renders.get()).isEqualTo(1);
+    }
+
+    @Test
+    void changeDatedInsidePeriodInvalidatesOtherInstances() throws Exception {
+        User user = testData.createUser();
+        Wallet wallet = testData.createOwnedWallet(user, new BigDecimal("1000"));
+        Category category = testData.createCategory(user, "Ăn uống");
+        ReportRequest request = closedPeriodRequest();
+        AtomicInteger renders = new AtomicInteger();
+        // Instance khác: không phải bean nên không nhận event thay đổi dữ liệu, chỉ thấy phiên bản trong DB
+        ReportRenderCache otherInstance = new ReportRenderCache(fileStorageService, reportDataVersionService,
+                new SimpleMeterRegistry(), true, 100, 60);
+
+        otherInstance.getOrRender(user.getId(), request, ReportExportFormat.PDF, () -> render(renders));
+
+        // Giao dịch ngoài kỳ không đổi khóa của báo cáo tháng 1
+        testData.createTransaction(user, wallet, category, TransactionType.EXPENSE, "50", Instant.parse("2024-03-10T12:00:00Z"));
+        otherInstance.getOrRender(user.getId(), request, ReportExportFormat.PDF, () -> render(renders));
+        assertThat(renders.get()).isEqualTo(1);
+
+        testData.createTransaction(user, wallet, category, TransactionType.EXPENSE, "50", Instant.parse("2024-01-15T12:00:00Z"));
+        otherInstance.getOrRender(user.getId(), request, ReportExportFormat.PDF, () -> render(renders));
+        assertThat(renders.get()).isEqualTo(2);
+    }
+
+    private static byte[] render(AtomicInteger renders) {
+        return ("render-" + renders.incrementAndGet()).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static ReportRequest closedPeriodRequest() {
+        ReportRequest request = new ReportRequest();
+        request.setStartDate(LocalDateTime.of(2024, 1, 1, 0, 0));
+        request.setEndDate(LocalDateTime.of(2024, 1, 31, 23, 59, 59));
+        request.setReportType("PDF");
+        request.setReportFormat("DETAILED");
+        return request;
+    }
+}
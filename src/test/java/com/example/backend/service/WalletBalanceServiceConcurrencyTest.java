@@ -0,0 +1,110 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.User;
+import com.example.backend.entity.Wallet;
+import com.example.backend.support.TestDataFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestDataFactory.class)
+class WalletBalanceServiceConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int OPERATIONS_PER_THREAD = 200;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("100");
+    private static final BigDecimal CREDIT = new BigDecimal("7");
+    private static final BigDecimal DEBIT = new BigDecimal("13");
+
+    @Autowired
+    private WalletBalanceService walletBalanceService;
+
+    @Autowired
+    private TestDataFactory testData;
+
+    @Test
+    void concurrentCreditsAndDebitsKeepExactBalanceAndNeverGoNegative() throws Exception {
+        User user = testData.createUser();
+        Long walletId = testData.createWallet(user, INITIAL_BALANCE).getId();
+
+        AtomicInteger credits = new AtomicInteger();
+        AtomicInteger debits = new AtomicInteger();
+        AtomicInteger rejectedDebits = new AtomicInteger();
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<BigDecimal> negativeSamples = new ArrayList<>();
+
+        // Đọc số dư liên tục trong lúc ghi để bắt trạng thái âm tạm thời
+        Thread sampler = new Thread(() -> {
+            while (running.get()) {
+                BigDecimal balance = walletBalanceService.getBalance(walletId);
+                if (balance.signum() < 0) {
+                    synchronized (negativeSamples) {
+                        negativeSamples.add(balance);
+                    }
+                }
+            }
+        });
+        sampler.start();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int threadIndex = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    // Xen kẽ ghi có và ghi nợ, lệch pha giữa các thread
+                    if ((i + threadIndex) % 2 == 0) {
+                        walletBalanceService.executeWithRetry(() -> walletBalanceService.adjust(walletId, CREDIT));
+                        credits.incrementAndGet();
+                    } else {
+                        boolean debited = walletBalanceService.executeWithRetry(() -> walletBalanceService.tryDebit(walletId, DEBIT));
+                        if (debited) {
+                            debits.incrementAndGet();
+                        } else {
+                            rejectedDebits.incrementAndGet();
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+        running.set(false);
+        sampler.join();
+
+        BigDecimal expected = INITIAL_BALANCE
+                .add(CREDIT.multiply(BigDecimal.valueOf(credits.get())))
+                .subtract(DEBIT.multiply(BigDecimal.valueOf(debits.get())));
+        BigDecimal actual = walletBalanceService.getBalance(walletId);
+
+        assertThat(credits.get() + debits.get() + rejectedDebits.get()).isEqualTo(THREADS * OPERATIONS_PER_THREAD);
+        // Ghi nợ nhiều hơn ghi có nên phải có lần bị từ chối, nếu không test không kiểm tra được điều kiện số dư
+        assertThat(rejectedDebits.get()).isPositive();
+        assertThat(actual).isEqualByComparingTo(expected);
+        assertThat(actual.signum()).isGreaterThanOrEqualTo(0);
+        assertThat(negativeSamples).isEmpty();
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.request.WalletTransferRequest;
+import com.example.backend.entity.User;
+import com.example.backend.exception.InsufficientBalanceException;
+import com.example.backend.support.TestDataFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestDataFactory.class)
+class WalletTransferServiceConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int TRANSFERS_PER_THREAD = 25;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("500");
+    private static final BigDecimal AMOUNT = new BigDecimal("40");
+
+    @Autowired
+    private WalletTransferService walletTransferService;
+
+    @Autowired
+    private WalletBalanceService walletBalanceService;
+
+    @Autowired
+    private TestDataFactory testData;
+
+    @Test
+    void oppositeDirectionTransfersConserveTotalWithoutDeadlock() throws Exception {
+        User user = testData.createUser();
+        Long walletA = testData.createWallet(user, INITIAL_BALANCE).getId();
+        Long walletB = testData.createWallet(user, INITIAL_BALANCE).getId();
+
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger insufficient = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            // Một nửa số thread chuyển A→B, nửa còn lại B→A: thứ tự khóa ngược nhau nếu không sắp xếp theo id
+            Long from = t % 2 == 0 ? walletA : walletB;
+            Long to = t % 2 == 0 ? walletB : walletA;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    WalletTransferRequest request = new WalletTransferRequest(from, to, AMOUNT, "Chuyển tiền đồng thời", null);
+                    try {
+                        walletTransferService.transferMoney(user.getId(), request);
+                        completed.incrementAndGet();
+                    } catch (InsufficientBalanceException e) {
+                        insufficient.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+
+        executor.shutdown();
+        // Deadlock sẽ làm các thread treo (hoặc ném lỗi khóa sau khi hết lượt thử lại)
+        assertThat(executor.awaitTermination(2, TimeUnit.MINUTES)).isTrue();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+
+        BigDecimal balanceA = walletBalanceService.getBalance(walletA);
+        BigDecimal balanceB = walletBalanceService.getBalance(walletB);
+
+        assertThat(completed.get() + insufficient.get()).isEqualTo(THREADS * TRANSFERS_PER_THREAD);
+        assertThat(completed.get()).isPositive();
+        assertThat(balanceA.add(balanceB)).isEqualByComparingTo(INITIAL_BALANCE.multiply(BigDecimal.valueOf(2)));
+        assertThat(balanceA.signum()).isGreaterThanOrEqualTo(0);
+        assertThat(balanceB.signum()).isGreaterThanOrEqualTo(0);
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.backend.support;
+
+import com.example.backend.dto.request.CreateWalletRequest;
+import com.example.backend.dto.request.ShareWalletRequest;
+import com.example.backend.dto.request.TransactionRequest;
+import com.example.backend.entity.Category;
+import com.example.backend.entity.User;
+import com.example.backend.entity.Wallet;
+import com.example.backend.entity.WalletShare;
+import com.example.backend.enums.Currency;
+import com.example.backend.enums.TransactionType;
+import com.example.backend.enums.UserStatus;
+import com.example.backend.repository.CategoryRepository;
+import com.example.backend.repository.UserRepository;
+import com.example.backend.repository.WalletRepository;
+import com.example.backend.repository.WalletShareRepository;
+import com.example.backend.service.TransactionService;
+import com.example.backend.service.WalletService;
+import com.example.backend.service.WalletShareService;
+import org.springframework.boot.test.context.TestComponent;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+// Dữ liệu tối thiểu cho test tích hợp; mỗi lần gọi tạo bản ghi mới với email không trùng
+@TestComponent
+public class TestDataFactory {
+
+    private final UserRepository userRepository;
+    private final WalletRepository walletRepository;
+    private final CategoryRepository categoryRepository;
+    private final WalletShareRepository walletShareRepository;
+    private final WalletService walletService;
+    private final WalletShareService walletShareService;
+    private final TransactionService transactionService;
+
+    public TestDataFactory(UserRepository userRepository, WalletRepository walletRepository,
+                           CategoryRepository categoryRepository, WalletShareRepository walletShareRepository,
+                           WalletService walletService, WalletShareService walletShareService,
+                           TransactionService transactionService) {
+        this.userRepository = userRepository;
+        this.walletRepository = walletRepository;
+        this.categoryRepository = categoryRepository;
+        this.walletShareRepository = walletShareRepository;
+        this.walletService = walletService;
+        this.walletShareService = walletShareService;
+        this.transactionService = transactionService;
+    }
+
+    public User createUser() {
+        String key = UUID.randomUUID().toString().substring(0, 8);
+        User user = new User();
+        user.setEmail("user-" + key + "@example.com");
+        user.setUsername("user-" + key);
+        user.setPassword("{noop}password");
+        user.setFirstName("Test");
+        user.setLastName(key);
+        user.setStatus(UserStatus.ACTIVE);
+        return userRepository.save(user);
+    }
+
+    // Ví ghi thẳng vào DB, không kèm quyền của chủ ví
+    public Wallet createWallet(User user, BigDecimal balance) {
+        Wallet wallet = new Wallet();
+        wallet.setName("Ví " + user.getLastName());
+        wallet.setUser(user);
+        wallet.setCurrency(Currency.VND);
+        wallet.setIcon("wallet.json");
+        wallet.setBalance(balance);
+        return walletRepository.save(wallet);
+    }
+
+    // Ví tạo qua WalletService như từ API: chủ ví có đủ quyền để đi qua @RequireWalletPermission
+    public Wallet createOwnedWallet(User user, BigDecimal balance) {
+        CreateWalletRequest request = new CreateWalletRequest();
+        request.setName("Ví " + user.getLastName());
+        request.setIcon("wallet.json");
+        request.setCurrency(Currency.VND);
+        request.setBalance(balance);
+        Long walletId = walletService.createWallet(request, user.getId()).getId();
+        return walletRepository.findById(walletId).orElseThrow();
+    }
+
+    public Category createCategory(User user, String name) {
+        return categoryRepository.save(Category.builder().name(name).user(user).color("#667eea").build());
+    }
+
+    // Mời và chấp nhận chia sẻ ví qua WalletShareService để quyền mặc định được gán như thật
+    public WalletShare shareWallet(Wallet wallet, User owner, User member, WalletShare.PermissionLevel level) {
+        ShareWalletRequest request = new ShareWalletRequest();
+        request.setWalletId(wallet.getId());
+        request.setEmail(member.getEmail());
+        request.setPermissionLevel(level);
+        walletShareService.shareWallet(request, owner.getId());
+
+        WalletShare pending = walletShareRepository.findByWalletIdAndSharedWithUserId(wallet.getId(), member.getId()).orElseThrow();
+        walletShareService.acceptInvitation(pending.getInvitationToken(), member.getId());
+        return walletShareRepository.findById(pending.getId()).orElseThrow();
+    }
+
+    // Giao dịch tạo qua TransactionService nên số dư và bảng rollup cũng được cập nhật
+    public void createTransaction(User user, Wallet wallet, Category category, TransactionType type, String amount, Instant date) {
+        TransactionRequest request = new TransactionRequest();
+        request.setWalletId(wallet.getId());
+        request.setCategoryId(category.getId());
+        request.setType(type);
+        request.setAmount(new BigDecimal(amount));
+        request.setDescription("Giao dịch thử");
+        request.setDate(date);
+        transactionService.createTransaction(request, user.getId());
+    }
+}